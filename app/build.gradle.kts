@@ -48,8 +48,8 @@ dependencies {
     implementation(libs.androidx.compose.ui.tooling.preview)
     implementation(libs.androidx.compose.material3)
     
-    // MessagePack for loading Rust-trained models
-    implementation("org.msgpack:msgpack-core:0.9.8")
+    // Game engine (plain Java, no Android dependencies)
+    implementation(project(":core"))
     
     testImplementation(libs.junit)
     androidTestImplementation(libs.androidx.junit)
@@ -0,0 +1,19 @@
+package com.example.threesclone;
+
+import android.util.Log;
+
+/**
+ * Routes EngineLog to logcat.
+ */
+public class AndroidEngineLog extends EngineLog {
+
+    @Override
+    protected void write(int priority, String tag, String message, Throwable error) {
+        switch (priority) {
+            case DEBUG: Log.d(tag, message); break;
+            case INFO: Log.i(tag, message); break;
+            case WARN: Log.w(tag, message, error); break;
+            default: Log.e(tag, message, error); break;
+        }
+    }
+}
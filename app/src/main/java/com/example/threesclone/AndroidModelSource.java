@@ -0,0 +1,40 @@
+package com.example.threesclone;
+
+import android.content.Context;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * brain.dat in the app's private files dir (same file Game used to open through Context).
+ */
+public class AndroidModelSource implements ModelSource {
+
+    private final Context context;
+
+    public AndroidModelSource(Context context) {
+        this.context = context.getApplicationContext() != null ? context.getApplicationContext() : context;
+    }
+
+    @Override
+    public InputStream openModel() throws IOException {
+        return context.openFileInput(FileModelSource.MODEL_FILE);
+    }
+
+    @Override
+    public OutputStream createModel() throws IOException {
+        return context.openFileOutput(FileModelSource.MODEL_FILE, Context.MODE_PRIVATE);
+    }
+
+    @Override
+    public File modelFile() {
+        return new File(context.getFilesDir(), FileModelSource.MODEL_FILE);
+    }
+
+    @Override
+    public File cacheDir() {
+        return context.getFilesDir();
+    }
+}
@@ -54,6 +54,7 @@ public class MainActivity extends AppCompatActivity {
     @Override
     protected void onCreate(Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
+        EngineLog.install(new AndroidEngineLog());
 
         // Layout chính có ScrollView để tránh bị che khi bàn phím hiện lên
         ScrollView scrollView = new ScrollView(this);
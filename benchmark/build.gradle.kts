@@ -0,0 +1,32 @@
+// Pure-JVM JMH benchmarks for the game engine and evaluator hot paths.
+//
+//   ./gradlew :benchmark:jmh                           all suites
+//   ./gradlew :benchmark:jmh -PjmhIncludes=Predict     suites matching a regex
+//
+// Results: benchmark/build/results/jmh/results.json (throughput, sample-time percentiles,
+// gc.alloc.rate.norm from the GC profiler).
+plugins {
+    java
+    alias(libs.plugins.jmh)
+}
+
+java {
+    sourceCompatibility = JavaVersion.VERSION_11
+    targetCompatibility = JavaVersion.VERSION_11
+}
+
+dependencies {
+    // Same engine the phone runs
+    implementation(project(":core"))
+}
+
+jmh {
+    jmhVersion = libs.versions.jmh.get()
+    fork = 1
+    warmupIterations = 3
+    iterations = 5
+    profilers = listOf("gc")
+    resultFormat = "JSON"
+    jvmArgs = listOf("-Xmx2g")
+    providers.gradleProperty("jmhIncludes").orNull?.let { includes = listOf(it) }
+}
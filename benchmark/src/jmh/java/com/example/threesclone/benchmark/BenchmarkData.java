@@ -0,0 +1,107 @@
+package com.example.threesclone.benchmark;
+
+import com.example.threesclone.BitBoard;
+import com.example.threesclone.FlatModel;
+import com.example.threesclone.MoveTable;
+import com.example.threesclone.NTupleNetwork;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Random;
+import java.util.SplittableRandom;
+
+/**
+ * Fixed inputs shared by all suites: seeded board corpora and synthetic weight files,
+ * so two runs (or two commits) always measure the same work.
+ */
+public final class BenchmarkData {
+
+    public static final long CORPUS_SEED = 0x5EEDB0A4DL;
+    public static final long WEIGHT_SEED = 0x3EE7L;
+
+    private BenchmarkData() {
+    }
+
+    // ============== BOARD CORPUS ==============
+
+    /**
+     * Boards from random playouts (random legal move, 1/2/3 spawned on a moved row),
+     * so the tile distribution looks like real games rather than uniform noise.
+     */
+    public static long[] corpus(int size, long seed) {
+        SplittableRandom rnd = new SplittableRandom(seed);
+        long[] boards = new long[size];
+        long board = newGame(rnd);
+        for (int n = 0; n < size; ) {
+            int rot = rnd.nextInt(4);
+            long rotated = BitBoard.rotate(board, rot);
+            int movedRows = MoveTable.movedRows(rotated);
+            if (movedRows == 0) {
+                if (!canMove(board)) board = newGame(rnd);
+                continue;
+            }
+            int row;
+            do {
+                row = rnd.nextInt(4);
+            } while ((movedRows & (1 << row)) == 0);
+            long shifted = BitBoard.set(MoveTable.shiftLeft(rotated), row, 3, 1 + rnd.nextInt(3));
+            board = BitBoard.rotate(shifted, 4 - rot);
+            boards[n++] = board;
+        }
+        return boards;
+    }
+
+    private static long newGame(SplittableRandom rnd) {
+        long board = BitBoard.EMPTY;
+        for (int placed = 0; placed < 9; ) {
+            int cell = rnd.nextInt(16);
+            if (BitBoard.get(board, cell) != 0) continue;
+            board = BitBoard.set(board, cell, 1 + rnd.nextInt(3));
+            placed++;
+        }
+        return board;
+    }
+
+    private static boolean canMove(long board) {
+        for (int rot = 0; rot < 4; rot++) {
+            if (MoveTable.canMoveLeft(BitBoard.rotate(board, rot))) return true;
+        }
+        return false;
+    }
+
+    // ============== SYNTHETIC WEIGHTS ==============
+
+    // Default snake network with seeded Gaussian weights and non-zero potential weights
+    public static NTupleNetwork syntheticNetwork(long seed) {
+        NTupleNetwork net = new NTupleNetwork();
+        Random rnd = new Random(seed);
+        for (double[] table : net.weights) {
+            for (int i = 0; i < table.length; i++) table[i] = rnd.nextGaussian() * 50.0;
+        }
+        net.wEmpty = 0.5;
+        net.wSnake = 1.0;
+        net.wMerge = 0.5;
+        net.wDisorder = 0.25;
+        return net;
+    }
+
+    // Rust-compatible MessagePack brain.dat in a temp file (deleted on exit)
+    public static File syntheticMessagePack(NTupleNetwork net) throws Exception {
+        File file = File.createTempFile("bench-brain", ".dat");
+        file.deleteOnExit();
+        try (OutputStream os = new FileOutputStream(file)) {
+            net.exportToBinary(os);
+        }
+        return file;
+    }
+
+    // Flat model in the network's current precision, in a temp file (deleted on exit)
+    public static File syntheticFlat(NTupleNetwork net) throws IOException {
+        File file = File.createTempFile("bench-brain", ".bin");
+        file.deleteOnExit();
+        FlatModel.write(net, file);
+        return file;
+    }
+}
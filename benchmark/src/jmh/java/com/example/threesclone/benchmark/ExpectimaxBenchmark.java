@@ -0,0 +1,65 @@
+package com.example.threesclone.benchmark;
+
+import com.example.threesclone.DeckState;
+import com.example.threesclone.ExpectimaxSearch;
+import com.example.threesclone.NTupleNetwork;
+import com.example.threesclone.TranspositionTable;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Root evaluation (all four Q-values), the work behind Game.getBestMove /
+ * evaluateMoveExpectimax. Sampled, so the results include latency percentiles.
+ * Boards cycle through a fixed corpus; the cache is cleared before every search.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ExpectimaxBenchmark {
+
+    private static final int CORPUS_SIZE = 256;
+
+    @Param({"1", "2", "3"})
+    public int depth;
+
+    @Param({"true", "false"})
+    public boolean transpositionTable;
+
+    private ExpectimaxSearch search;
+    private TranspositionTable table;
+    private long[] boards;
+    private final double[] q = new double[4];
+    private int next;
+
+    @Setup
+    public void setup() {
+        NTupleNetwork net = BenchmarkData.syntheticNetwork(BenchmarkData.WEIGHT_SEED);
+        search = new ExpectimaxSearch(net);
+        search.setDepth(depth);
+        if (transpositionTable) {
+            table = new TranspositionTable();
+            search.setTranspositionTable(table);
+        }
+        boards = BenchmarkData.corpus(CORPUS_SIZE, BenchmarkData.CORPUS_SEED);
+    }
+
+    @Benchmark
+    public double evaluateMoves() {
+        long board = boards[next];
+        next = (next + 1) % CORPUS_SIZE;
+        if (table != null) table.clear();
+
+        int future = 1 + (int) Long.remainderUnsigned(board, 3); // fixed hint per board
+        search.evaluateMoves(board, future, DeckState.NEW_DECKS, q);
+        return q[0] + q[1] + q[2] + q[3];
+    }
+}
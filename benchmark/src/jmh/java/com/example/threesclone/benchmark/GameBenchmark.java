@@ -0,0 +1,74 @@
+package com.example.threesclone.benchmark;
+
+import com.example.threesclone.Direction;
+import com.example.threesclone.Game;
+import com.example.threesclone.GameRandom;
+import com.example.threesclone.ModelSource;
+import com.example.threesclone.NTupleNetwork;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The public Game API end to end: move (with spawn, hints, game over check), canMove and
+ * the one-ply Expectimax evaluation, on games played forward by the benchmark itself.
+ */
+@State(Scope.Thread)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class GameBenchmark {
+
+    private static final Direction[] DIRECTIONS = Direction.values();
+    private static final long GAME_SEED = 0x6A3EL;
+
+    private Game game;
+    private int turn;
+
+    @Setup
+    public void setup(SharedBrain shared) {
+        game = new Game(ModelSource.none(), GameRandom.seeded(GAME_SEED)); // same games every run
+        game.setBrain(shared.net);
+        game.parallelSearch = false;
+    }
+
+    // Game.move with the first legal direction in a rotating order; restarts on game over
+    @Benchmark
+    public boolean move() {
+        if (game.gameOver) game.initGame();
+        turn++;
+        for (int i = 0; i < 4; i++) {
+            if (game.move(DIRECTIONS[(turn + i) & 3])) return true;
+        }
+        return false;
+    }
+
+    @Benchmark
+    public void canMove(Blackhole bh) {
+        for (Direction dir : DIRECTIONS) bh.consume(game.canMove(dir));
+    }
+
+    // One move, then the Expectimax Q-value of every direction on the new position
+    @Benchmark
+    public void moveAndEvaluate(Blackhole bh) {
+        bh.consume(move());
+        for (Direction dir : DIRECTIONS) bh.consume(game.evaluateMoveExpectimax(dir));
+    }
+
+    @State(Scope.Benchmark)
+    public static class SharedBrain {
+        NTupleNetwork net;
+
+        @Setup
+        public void setup() {
+            net = BenchmarkData.syntheticNetwork(BenchmarkData.WEIGHT_SEED);
+        }
+    }
+}
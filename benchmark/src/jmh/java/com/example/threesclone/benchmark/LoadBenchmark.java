@@ -0,0 +1,65 @@
+package com.example.threesclone.benchmark;
+
+import com.example.threesclone.NTupleNetwork;
+import com.example.threesclone.WeightPrecision;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.InputStream;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cold model load of a synthetic full-size brain (12 x 759,375 weights):
+ * streaming MessagePack decode (brain.dat) vs. mapping the flat file.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx3g")
+public class LoadBenchmark {
+
+    @Param({"F64", "F32", "I16"})
+    public WeightPrecision precision;
+
+    private File messagePack;
+    private File flat;
+
+    @Setup
+    public void setup() throws Exception {
+        NTupleNetwork net = BenchmarkData.syntheticNetwork(BenchmarkData.WEIGHT_SEED);
+        messagePack = BenchmarkData.syntheticMessagePack(net);
+        net.setPrecision(precision);
+        flat = BenchmarkData.syntheticFlat(net);
+    }
+
+    @Benchmark
+    public NTupleNetwork loadMessagePack() throws Exception {
+        NTupleNetwork net = NTupleNetwork.forLoading();
+        try (InputStream is = new BufferedInputStream(new FileInputStream(messagePack))) {
+            net.loadFromBinary(is, precision);
+        }
+        return net;
+    }
+
+    @Benchmark
+    public NTupleNetwork mapFlat() throws Exception {
+        NTupleNetwork net = NTupleNetwork.forLoading();
+        net.loadFromFlat(flat);
+        return net;
+    }
+}
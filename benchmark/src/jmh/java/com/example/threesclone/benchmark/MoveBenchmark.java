@@ -0,0 +1,75 @@
+package com.example.threesclone.benchmark;
+
+import com.example.threesclone.BitBoard;
+import com.example.threesclone.MoveTable;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Move execution and legality, the work behind Game.move / Game.canMove:
+ * rotate to LEFT, one MoveTable lookup per row, rotate back.
+ * Every invocation walks the whole corpus, scores are per board.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class MoveBenchmark {
+
+    private static final int CORPUS_SIZE = 4096;
+
+    private long[] boards;
+
+    @Setup
+    public void setup() {
+        boards = BenchmarkData.corpus(CORPUS_SIZE, BenchmarkData.CORPUS_SEED);
+    }
+
+    // Game.move without the spawn: all four directions, score gain included
+    @Benchmark
+    @OperationsPerInvocation(CORPUS_SIZE)
+    public void moveAllDirections(Blackhole bh) {
+        for (long board : boards) {
+            for (int rot = 0; rot < 4; rot++) {
+                long rotated = BitBoard.rotate(board, rot);
+                bh.consume(BitBoard.rotate(MoveTable.shiftLeft(rotated), 4 - rot));
+                bh.consume(MoveTable.gainLeft(rotated));
+            }
+        }
+    }
+
+    // Game.canMove for every direction
+    @Benchmark
+    @OperationsPerInvocation(CORPUS_SIZE)
+    public void canMoveAllDirections(Blackhole bh) {
+        for (long board : boards) {
+            for (int rot = 0; rot < 4; rot++) {
+                bh.consume(MoveTable.canMoveLeft(BitBoard.rotate(board, rot)));
+            }
+        }
+    }
+
+    // Game over check: any legal move at all
+    @Benchmark
+    @OperationsPerInvocation(CORPUS_SIZE)
+    public int anyMove() {
+        int legal = 0;
+        for (long board : boards) {
+            if (MoveTable.canMoveLeft(board) || MoveTable.canMoveLeft(BitBoard.rotate(board, 1))
+                    || MoveTable.canMoveLeft(BitBoard.rotate(board, 2))
+                    || MoveTable.canMoveLeft(BitBoard.rotate(board, 3))) {
+                legal++;
+            }
+        }
+        return legal;
+    }
+}
@@ -0,0 +1,128 @@
+package com.example.threesclone.benchmark;
+
+import com.example.threesclone.BitBoard;
+import com.example.threesclone.NTupleNetwork;
+import com.example.threesclone.WeightPrecision;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.File;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * NTupleNetwork.predict / predictBatch / getTotalValue / incremental predict over a fixed corpus,
+ * for every weight precision, with the tables on the heap or memory-mapped.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class PredictBenchmark {
+
+    private static final int CORPUS_SIZE = 4096;
+
+    @Param({"F64", "F32", "I16"})
+    public WeightPrecision precision;
+
+    @Param({"heap", "mapped"})
+    public String storage;
+
+    private NTupleNetwork net;
+    private long[] boards;
+    private int[] emptyCells;
+    private double[] batchOut;
+
+    @Setup
+    public void setup() throws Exception {
+        net = BenchmarkData.syntheticNetwork(BenchmarkData.WEIGHT_SEED);
+        net.setPrecision(precision);
+        if (storage.equals("mapped")) {
+            File flat = BenchmarkData.syntheticFlat(net);
+            net = new NTupleNetwork();
+            net.loadFromFlat(flat);
+        }
+        boards = BenchmarkData.corpus(CORPUS_SIZE, BenchmarkData.CORPUS_SEED);
+        batchOut = new double[CORPUS_SIZE];
+
+        // One empty cell per board for the incremental benchmark (-1 if the board is full)
+        emptyCells = new int[CORPUS_SIZE];
+        for (int i = 0; i < CORPUS_SIZE; i++) {
+            emptyCells[i] = -1;
+            for (int cell = 15; cell >= 0; cell--) {
+                if (BitBoard.get(boards[i], cell) == 0) emptyCells[i] = cell;
+            }
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(CORPUS_SIZE)
+    public double predict() {
+        double sum = 0.0;
+        for (long board : boards) sum += net.predict(board);
+        return sum;
+    }
+
+    // Whole corpus through the structure-of-arrays batch path
+    @Benchmark
+    @OperationsPerInvocation(CORPUS_SIZE)
+    public double[] predictBatch() {
+        net.predictBatch(boards, batchOut);
+        return batchOut;
+    }
+
+    // Leaf value of the search: prediction + PBRS potential
+    @Benchmark
+    @OperationsPerInvocation(CORPUS_SIZE)
+    public double totalValue() {
+        double sum = 0.0;
+        for (long board : boards) sum += net.getTotalValue(board);
+        return sum;
+    }
+
+    // One prepare + three spawned tiles per board, as in a chance node; scored per child
+    @Benchmark
+    @OperationsPerInvocation(3 * CORPUS_SIZE)
+    public void incrementalSpawn(IncrementalScratch scratch, Blackhole bh) {
+        for (int i = 0; i < CORPUS_SIZE; i++) {
+            int cell = emptyCells[i];
+            if (cell < 0) continue;
+            net.prepareIncremental(boards[i], scratch.indices, scratch.partial);
+            for (int code = 1; code <= 3; code++) {
+                bh.consume(net.predictWithChange(boards[i], scratch.indices, scratch.partial, cell, code));
+            }
+        }
+    }
+
+    // Same three children through a full predict each, for comparison
+    @Benchmark
+    @OperationsPerInvocation(3 * CORPUS_SIZE)
+    public void fullSpawn(Blackhole bh) {
+        for (int i = 0; i < CORPUS_SIZE; i++) {
+            int cell = emptyCells[i];
+            if (cell < 0) continue;
+            for (int code = 1; code <= 3; code++) {
+                bh.consume(net.predict(BitBoard.set(boards[i], cell, code)));
+            }
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class IncrementalScratch {
+        int[] indices;
+        double[] partial;
+
+        @Setup
+        public void setup(PredictBenchmark bench) {
+            indices = new int[bench.net.tupleCount()];
+            partial = new double[bench.net.tupleCount()];
+        }
+    }
+}
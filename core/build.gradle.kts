@@ -0,0 +1,48 @@
+// Android-free game engine: board, moves, N-Tuple evaluator, Expectimax search.
+// :app depends on it; JVM tools (benchmarks, bulk simulation, servers) use it directly.
+plugins {
+    `java-library`
+}
+
+java {
+    sourceCompatibility = JavaVersion.VERSION_11
+    targetCompatibility = JavaVersion.VERSION_11
+}
+
+dependencies {
+    // MessagePack for loading Rust-trained models
+    implementation("org.msgpack:msgpack-core:0.9.8")
+
+    testImplementation(libs.junit)
+}
+
+// Headless batch self-play (score distribution, max-tile rates, games/s):
+//   ./gradlew :core:selfPlay --args="--model path/to/brain.dat --games 100000 --depth 1"
+tasks.register<JavaExec>("selfPlay") {
+    group = "application"
+    description = "Play games headlessly on all cores and print score statistics."
+    classpath = sourceSets["main"].runtimeClasspath
+    mainClass.set("com.example.threesclone.SelfPlaySimulator")
+    maxHeapSize = "2g"
+}
+
+// Multi-threaded self-play training (Hogwild / striped / atomic updates), with checkpoints:
+//   ./gradlew :core:train --args="--model brain.dat --out trained.dat --minutes 600 --checkpoint-minutes 60"
+//   ./gradlew :core:train --args="--scaling 1,2,4,8,16,32"   (updates/s per thread count)
+tasks.register<JavaExec>("train") {
+    group = "application"
+    description = "Train the N-Tuple brain from self-play on all cores."
+    classpath = sourceSets["main"].runtimeClasspath
+    mainClass.set("com.example.threesclone.ParallelTrainer")
+    maxHeapSize = "4g"
+}
+
+// Knowledge distillation from PC agent logs (lines "v1,...,v16|G"), streamed on all cores:
+//   ./gradlew :core:distill --args="--log ppo.txt --model brain.dat --out brain.dat --epochs 2"
+tasks.register<JavaExec>("distill") {
+    group = "application"
+    description = "Train the N-Tuple brain from a PC agent log."
+    classpath = sourceSets["main"].runtimeClasspath
+    mainClass.set("com.example.threesclone.DistillationImporter")
+    maxHeapSize = "4g"
+}
@@ -0,0 +1,44 @@
+package com.example.threesclone;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+
+/**
+ * Replace a file in one step: write a sibling ".tmp" file, force it to disk, then move it
+ * over the target. Readers (and a crash mid-write) see the old file or the new one, never
+ * half of one. Used for every model, checkpoint and index this package saves.
+ */
+final class AtomicFiles {
+
+    interface Content<E extends Exception> {
+        // out starts empty; out.getChannel() allows positioned writes
+        void writeTo(FileOutputStream out) throws E;
+    }
+
+    private AtomicFiles() {
+    }
+
+    static <E extends Exception> void write(File file, Content<E> content) throws IOException, E {
+        File tmp = new File(file.getPath() + ".tmp");
+        boolean moved = false;
+        try {
+            try (FileOutputStream out = new FileOutputStream(tmp)) {
+                content.writeTo(out);
+                out.getChannel().force(false);
+            }
+            try {
+                Files.move(tmp.toPath(), file.toPath(),
+                    StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(tmp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            }
+            moved = true;
+        } finally {
+            if (!moved) tmp.delete();
+        }
+    }
+}
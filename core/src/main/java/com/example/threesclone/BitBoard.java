@@ -0,0 +1,243 @@
+package com.example.threesclone;
+
+/**
+ * Packed 4x4 Threes board stored in a single {@code long}.
+ *
+ * Layout:
+ * - Cell (r, c) lives at bits [4 * (r * 4 + c), 4 * (r * 4 + c) + 4)
+ * - Each row therefore occupies one 16-bit lane (row 0 = lowest 16 bits)
+ * - Each cell holds a 4-bit rank code, identical to NTupleNetwork.encodeTile:
+ *   0 = empty, 1 = "1", 2 = "2", 3 = "3", 4 = "6", ... 14 = "6144"
+ * - Code 15 is reserved for 12288 (6144 + 6144), the largest tile we can pack
+ *
+ * All operations are static and allocation-free; Tile[][] is only produced at the UI boundary.
+ */
+public final class BitBoard {
+
+    public static final long EMPTY = 0L;
+
+    public static final int MAX_CODE = 15;
+
+    private static final long ROW_MASK = 0xFFFFL;
+
+    // Tile score by code: 3^(rank) for tiles >= 3, 0 for empty/1/2
+    private static final int[] TILE_SCORE = new int[16];
+    static {
+        for (int code = 3; code < 16; code++) {
+            TILE_SCORE[code] = (int) Math.pow(3, code - 2);
+        }
+    }
+
+    private BitBoard() {
+    }
+
+    // ============== ENCODING ==============
+
+    public static int codeOf(int value) {
+        if (value == 12288) return MAX_CODE;
+        return NTupleNetwork.encodeTile(value);
+    }
+
+    public static int valueOf(int code) {
+        if (code < 3) return code;
+        return 3 << (code - 3);
+    }
+
+    // Rank as used by Tile.getRank / Game: 0 for empty, 1 and 2; 1 for "3", 2 for "6", ...
+    public static int rankOf(int code) {
+        return code < 3 ? 0 : code - 2;
+    }
+
+    public static int tileScore(int code) {
+        return TILE_SCORE[code];
+    }
+
+    // ============== CELL ACCESS ==============
+
+    public static int get(long board, int idx) {
+        return (int) (board >>> (idx << 2)) & 0xF;
+    }
+
+    public static int get(long board, int r, int c) {
+        return get(board, r * 4 + c);
+    }
+
+    public static long set(long board, int idx, int code) {
+        int shift = idx << 2;
+        return (board & ~(0xFL << shift)) | ((long) code << shift);
+    }
+
+    public static long set(long board, int r, int c, int code) {
+        return set(board, r * 4 + c, code);
+    }
+
+    public static int valueAt(long board, int idx) {
+        return valueOf(get(board, idx));
+    }
+
+    public static int getRow(long board, int r) {
+        return (int) (board >>> (r << 4)) & 0xFFFF;
+    }
+
+    public static long setRow(long board, int r, int row) {
+        int shift = r << 4;
+        return (board & ~(ROW_MASK << shift)) | ((long) row << shift);
+    }
+
+    // ============== CONVERSION (UI boundary only) ==============
+
+    public static long fromTiles(Tile[][] tiles) {
+        long board = 0L;
+        for (int r = 0; r < 4; r++) {
+            for (int c = 0; c < 4; c++) {
+                board |= (long) codeOf(tiles[r][c].value) << ((r * 4 + c) << 2);
+            }
+        }
+        return board;
+    }
+
+    public static Tile[][] toTiles(long board) {
+        Tile[][] tiles = new Tile[4][4];
+        for (int r = 0; r < 4; r++) {
+            for (int c = 0; c < 4; c++) {
+                tiles[r][c] = new Tile(valueAt(board, r * 4 + c));
+            }
+        }
+        return tiles;
+    }
+
+    // ============== SYMMETRIES ==============
+
+    // Transpose: (r, c) -> (c, r)
+    public static long transpose(long x) {
+        long a1 = x & 0xF0F00F0FF0F00F0FL;
+        long a2 = x & 0x0000F0F00000F0F0L;
+        long a3 = x & 0x0F0F00000F0F0000L;
+        long a = a1 | (a2 << 12) | (a3 >>> 12);
+        long b1 = a & 0xFF00FF0000FF00FFL;
+        long b2 = a & 0x00FF00FF00000000L;
+        long b3 = a & 0x00000000FF00FF00L;
+        return b1 | (b2 >>> 24) | (b3 << 24);
+    }
+
+    // Mirror horizontal: (r, c) -> (r, 3 - c)
+    public static long mirrorRows(long x) {
+        return ((x & 0x000F000F000F000FL) << 12)
+             | ((x & 0x00F000F000F000F0L) << 4)
+             | ((x & 0x0F000F000F000F00L) >>> 4)
+             | ((x & 0xF000F000F000F000L) >>> 12);
+    }
+
+    // Mirror vertical: (r, c) -> (3 - r, c)
+    public static long mirrorColumns(long x) {
+        return (x << 48)
+             | ((x & 0x00000000FFFF0000L) << 16)
+             | ((x >>> 16) & 0x00000000FFFF0000L)
+             | (x >>> 48);
+    }
+
+    // Rotate 90° clockwise: (r, c) -> (c, 3 - r), same convention as the old Game.rotateBoard
+    public static long rotateClockwise(long x) {
+        return mirrorRows(transpose(x));
+    }
+
+    /**
+     * Canonical form: the smallest (as a signed long) of the 8 rotations / mirrors.
+     * Boards that are symmetric to each other have the same canonical board.
+     */
+    public static long canonical(long x) {
+        long h = mirrorRows(x);
+        long v = mirrorColumns(x);
+        long hv = mirrorRows(v); // 180°
+        long min = Math.min(Math.min(x, h), Math.min(v, hv));
+        // Transposing the four above gives the other four (90° / 270°, both diagonals)
+        long tmin = Math.min(Math.min(transpose(x), transpose(h)), Math.min(transpose(v), transpose(hv)));
+        return Math.min(min, tmin);
+    }
+
+    // Clockwise rotations that turn a move in dir into a LEFT move (undo with 4 - n)
+    public static int rotationsToLeft(Direction dir) {
+        switch (dir) {
+            case LEFT: return 0;
+            case DOWN: return 1;
+            case RIGHT: return 2;
+            case UP: return 3;
+        }
+        return 0;
+    }
+
+    public static long rotate(long x, int times) {
+        switch (times & 3) {
+            case 1: return mirrorRows(transpose(x));
+            case 2: return mirrorRows(mirrorColumns(x));
+            case 3: return transpose(mirrorRows(x));
+            default: return x;
+        }
+    }
+
+    // ============== SHIFT (Threes rule: one step, 1+2=3, equal tiles >= 3 double) ==============
+
+    /**
+     * Shift a packed 16-bit row one step to the left.
+     * Returns the same row if nothing can move.
+     * Reference implementation: hot paths go through the precomputed MoveTable.
+     */
+    public static int shiftRowLeft(int row) {
+        for (int c = 0; c < 3; c++) {
+            int target = (row >>> (c << 2)) & 0xF;
+            int source = (row >>> ((c + 1) << 2)) & 0xF;
+            if (source == 0) continue;
+
+            int merged;
+            if (target == 0) {
+                merged = source;
+            } else if (target + source == 3) {
+                merged = 3;
+            } else if (target >= 3 && target == source && target < MAX_CODE) {
+                merged = target + 1;
+            } else {
+                continue;
+            }
+
+            int low = row & ((1 << (c << 2)) - 1);
+            int high = row >>> ((c + 2) << 2);
+            return low | (merged << (c << 2)) | (high << ((c + 1) << 2));
+        }
+        return row;
+    }
+
+    public static long shiftLeft(long board) {
+        return MoveTable.shiftLeft(board);
+    }
+
+    // ============== AGGREGATES ==============
+
+    public static int rowScore(int row) {
+        return TILE_SCORE[row & 0xF] + TILE_SCORE[(row >>> 4) & 0xF]
+             + TILE_SCORE[(row >>> 8) & 0xF] + TILE_SCORE[(row >>> 12) & 0xF];
+    }
+
+    public static int score(long board) {
+        int total = 0;
+        for (int i = 0; i < 16; i++) {
+            total += TILE_SCORE[get(board, i)];
+        }
+        return total;
+    }
+
+    public static int maxCode(long board) {
+        int max = 0;
+        for (int i = 0; i < 16; i++) {
+            int code = get(board, i);
+            if (code > max) max = code;
+        }
+        return max;
+    }
+
+    public static int countEmpty(long board) {
+        // Fold each nibble onto its low bit, then count the nonzero cells
+        long x = board | (board >>> 1);
+        x |= x >>> 2;
+        return 16 - Long.bitCount(x & 0x1111111111111111L);
+    }
+}
@@ -0,0 +1,98 @@
+package com.example.threesclone;
+
+/**
+ * Cache of NTupleNetwork.predict keyed by the canonical board (see BitBoard.canonical),
+ * so all 8 rotations / mirrors of a position share one entry.
+ *
+ * The snake network gives symmetric boards the same prediction up to summation order
+ * (~1e-12); the cache always returns predict(canonical), so every variant gets exactly
+ * the same value. Only predict is cached: the PBRS potentials are not symmetric.
+ * Networks whose tuples are not closed under the symmetries (isSymmetric() == false)
+ * are passed through uncached.
+ *
+ * Direct-mapped, always-replace, flat primitive arrays. Not thread-safe: one per thread.
+ */
+public final class CanonicalCache {
+
+    public static final int DEFAULT_LOG2_ENTRIES = 16; // 65,536 entries (~1.1 MB)
+
+    private final NTupleNetwork brain;
+    private final boolean symmetric;
+    private final long[] keys;
+    private final double[] values;
+    private final boolean[] used;
+    private final int mask;
+
+    // Stats
+    private long hits;
+    private long misses;
+
+    public CanonicalCache(NTupleNetwork brain) {
+        this(brain, DEFAULT_LOG2_ENTRIES);
+    }
+
+    public CanonicalCache(NTupleNetwork brain, int log2Entries) {
+        if (log2Entries < 1 || log2Entries > 26) {
+            throw new IllegalArgumentException("log2Entries out of range: " + log2Entries);
+        }
+        this.brain = brain;
+        this.symmetric = brain.isSymmetric();
+        int entries = 1 << log2Entries;
+        keys = new long[entries];
+        values = new double[entries];
+        used = new boolean[entries];
+        mask = entries - 1;
+    }
+
+    // predict(board) through the cache
+    public double predict(long board) {
+        if (!symmetric) return brain.predict(board);
+        long key = BitBoard.canonical(board);
+        long h = key * 0x9E3779B97F4A7C15L;
+        int slot = (int) (h ^ (h >>> 29)) & mask;
+        if (used[slot] && keys[slot] == key) {
+            hits++;
+            return values[slot];
+        }
+        misses++;
+        double value = brain.predict(key);
+        keys[slot] = key;
+        values[slot] = value;
+        used[slot] = true;
+        return value;
+    }
+
+    // Same leaf value as NTupleNetwork.getTotalValue, with the prediction cached
+    public double totalValue(long board) {
+        return predict(board) + brain.getCompositePotential(board);
+    }
+
+    public NTupleNetwork getBrain() {
+        return brain;
+    }
+
+    public void clear() {
+        java.util.Arrays.fill(used, false);
+        resetStats();
+    }
+
+    // ============== STATS ==============
+
+    public long getHits() {
+        return hits;
+    }
+
+    public long getMisses() {
+        return misses;
+    }
+
+    public double getHitRate() {
+        long probes = hits + misses;
+        return probes > 0 ? (double) hits / probes : 0.0;
+    }
+
+    public void resetStats() {
+        hits = 0;
+        misses = 0;
+    }
+}
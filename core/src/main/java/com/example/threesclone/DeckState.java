@@ -0,0 +1,114 @@
+package com.example.threesclone;
+
+/**
+ * Everything the next hint depends on besides the board, packed in one {@code int}:
+ * what is left of the two Game decks and whether the special deck is in play yet.
+ *
+ * Layout:
+ * - bits [0, 9)   : 1s, 2s and 3s left in the number deck, 3 bits each (0..NUMBER_COPIES)
+ * - bit  9        : bonus card still in the special deck
+ * - bits [10, 15) : blank cards left in the special deck (0..SPECIAL_BLANKS)
+ * - bits [15, 20) : moves played, saturating at BONUS_AFTER_MOVES + 1
+ *
+ * An int is copied, compared and hashed for free, so chance nodes can branch on it without
+ * allocating (it also fits next to the move and hint in a TranspositionTable aux key).
+ * Empty decks stay empty here; like PseudoList, they refill on the next draw.
+ */
+public final class DeckState {
+
+    // Same deck rules as Game (Game reads them from here)
+    public static final int NUMBER_COPIES = 4;      // copies of 1, 2 and 3 per number deck
+    public static final int SPECIAL_BLANKS = 20;    // blank cards next to the one bonus card
+    public static final int BONUS_AFTER_MOVES = 21; // special deck is drawn once numMove > 21
+
+    private static final int COUNT_BITS = 3;
+    private static final int COUNT_MASK = (1 << COUNT_BITS) - 1;
+    private static final int BONUS_SHIFT = 9;
+    private static final int BLANKS_SHIFT = 10;
+    private static final int BLANKS_MASK = 0x1F;
+    private static final int MOVES_SHIFT = 15;
+    private static final int MOVES_MASK = 0x1F;
+    private static final int NUMBERS_MASK = (1 << BONUS_SHIFT) - 1;
+    private static final int SPECIAL_MASK = (1 | (BLANKS_MASK << 1)) << BONUS_SHIFT;
+
+    public static final int FULL_NUMBERS = numbers(NUMBER_COPIES, NUMBER_COPIES, NUMBER_COPIES);
+    public static final int FULL_SPECIAL = (1 << BONUS_SHIFT) | (SPECIAL_BLANKS << BLANKS_SHIFT);
+
+    // Both decks full, no move played
+    public static final int NEW_DECKS = FULL_NUMBERS | FULL_SPECIAL;
+
+    private DeckState() {
+    }
+
+    // ============== PACKING ==============
+
+    public static int of(int ones, int twos, int threes, int bonus, int blanks, int moves) {
+        return numbers(ones, twos, threes)
+             | (bonus << BONUS_SHIFT)
+             | (blanks << BLANKS_SHIFT)
+             | (Math.min(moves, BONUS_AFTER_MOVES + 1) << MOVES_SHIFT);
+    }
+
+    private static int numbers(int ones, int twos, int threes) {
+        return ones | (twos << COUNT_BITS) | (threes << (2 * COUNT_BITS));
+    }
+
+    // Copies of value (1, 2 or 3) left in the number deck
+    public static int count(int deck, int value) {
+        return (deck >>> ((value - 1) * COUNT_BITS)) & COUNT_MASK;
+    }
+
+    public static int numbersLeft(int deck) {
+        return count(deck, 1) + count(deck, 2) + count(deck, 3);
+    }
+
+    public static int bonusLeft(int deck) {
+        return (deck >>> BONUS_SHIFT) & 1;
+    }
+
+    public static int blanksLeft(int deck) {
+        return (deck >>> BLANKS_SHIFT) & BLANKS_MASK;
+    }
+
+    public static int moves(int deck) {
+        return (deck >>> MOVES_SHIFT) & MOVES_MASK;
+    }
+
+    // ============== TRANSITIONS ==============
+
+    // One more move played; the hint drawn after it uses the special deck past move 21
+    public static int afterMove(int deck) {
+        return moves(deck) > BONUS_AFTER_MOVES ? deck : deck + (1 << MOVES_SHIFT);
+    }
+
+    public static boolean specialActive(int deck) {
+        return moves(deck) > BONUS_AFTER_MOVES;
+    }
+
+    // Refill whichever deck the next draw would find empty
+    public static int refillNumbers(int deck) {
+        return (deck & NUMBERS_MASK) == 0 ? deck | FULL_NUMBERS : deck;
+    }
+
+    public static int refillSpecial(int deck) {
+        return (deck & SPECIAL_MASK) == 0 ? deck | FULL_SPECIAL : deck;
+    }
+
+    // Callers refill first: the drawn card must be in the deck
+    public static int drawNumber(int deck, int value) {
+        return deck - (1 << ((value - 1) * COUNT_BITS));
+    }
+
+    public static int drawBonus(int deck) {
+        return deck & ~(1 << BONUS_SHIFT);
+    }
+
+    public static int drawBlank(int deck) {
+        return deck - (1 << BLANKS_SHIFT);
+    }
+
+    public static String toString(int deck) {
+        return "1s=" + count(deck, 1) + " 2s=" + count(deck, 2) + " 3s=" + count(deck, 3)
+             + " bonus=" + bonusLeft(deck) + " blanks=" + blanksLeft(deck) + " moves=" + moves(deck);
+    }
+}
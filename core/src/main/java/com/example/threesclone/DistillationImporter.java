@@ -0,0 +1,364 @@
+package com.example.threesclone;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Knowledge distillation from PC agent logs: one position per line,
+ *   v1,v2,...,v16|G
+ * (16 tile values row by row, 0 = empty, then the agent's return G), and every position
+ * moves V(s) = predict + potential towards G by alpha / tupleCount per active tuple.
+ *
+ * The file is never loaded: it is cut into one byte range per thread, and each thread reads
+ * its range through a FileChannel in chunkBytes pieces and parses the bytes in place (no
+ * String per line). Threads update the shared tables without locks, as ParallelTrainer's
+ * HOGWILD mode. Malformed lines are counted and skipped.
+ *
+ * CLI: ./gradlew :core:distill --args="--log ppo.txt --model brain.dat --out brain.dat --epochs 2"
+ */
+public final class DistillationImporter {
+
+    private final NTupleNetwork brain;
+
+    // Settings
+    public int threads = Runtime.getRuntime().availableProcessors();
+    public int chunkBytes = 4 << 20;
+    public long progressIntervalMillis = 2000;
+
+    public interface Progress {
+        // Called on the importing thread every progressIntervalMillis
+        void onProgress(long bytesDone, long bytesTotal, long lines);
+    }
+
+    public DistillationImporter(NTupleNetwork brain) {
+        brain.requireTrainable();
+        this.brain = brain;
+    }
+
+    // ============== IMPORT ==============
+
+    public Report importLog(File log) throws IOException, InterruptedException {
+        return importLog(log, null);
+    }
+
+    /** One pass over the log. @param progress may be null */
+    public Report importLog(File log, Progress progress) throws IOException, InterruptedException {
+        long size = log.length();
+        int workers = (int) Math.max(1, Math.min(threads, size / Math.max(1, chunkBytes) + 1));
+        AtomicLong bytesDone = new AtomicLong();
+        AtomicLong linesDone = new AtomicLong();
+
+        ExecutorService pool = Executors.newFixedThreadPool(workers);
+        long start = System.nanoTime();
+        List<Future<Worker>> futures = new ArrayList<>();
+        try (FileChannel channel = FileChannel.open(log.toPath(), StandardOpenOption.READ)) {
+            for (int w = 0; w < workers; w++) {
+                Worker worker = new Worker(channel, size * w / workers, size * (w + 1) / workers,
+                    bytesDone, linesDone);
+                futures.add(pool.submit(() -> {
+                    worker.run();
+                    return worker;
+                }));
+            }
+
+            long lines = 0, malformed = 0;
+            double errorSum = 0.0;
+            for (Future<Worker> f : futures) {
+                Worker done = await(f, progress, bytesDone, linesDone, size);
+                lines += done.lines;
+                malformed += done.malformed;
+                errorSum += done.errorSum;
+            }
+            brain.bumpTrainingVersion();
+            return new Report(lines, malformed, size, System.nanoTime() - start, workers,
+                lines > 0 ? errorSum / lines : 0.0);
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    private Worker await(Future<Worker> f, Progress progress, AtomicLong bytesDone, AtomicLong linesDone,
+                         long size) throws IOException, InterruptedException {
+        while (true) {
+            try {
+                return progress == null ? f.get() : f.get(progressIntervalMillis, TimeUnit.MILLISECONDS);
+            } catch (TimeoutException e) {
+                progress.onProgress(bytesDone.get(), size, linesDone.get());
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof IOException) throw (IOException) e.getCause();
+                throw new IllegalStateException("Distillation worker failed", e.getCause());
+            }
+        }
+    }
+
+    // ============== WORKER (one byte range) ==============
+
+    // A line belongs to the range holding its first byte; the last one may run past end
+    private final class Worker {
+        private final FileChannel channel;
+        private final long start, end;
+        private final AtomicLong bytesDone, linesDone;
+        private final double step = brain.alpha / brain.tupleCount();
+
+        long lines, malformed;
+        double errorSum;
+
+        Worker(FileChannel channel, long start, long end, AtomicLong bytesDone, AtomicLong linesDone) {
+            this.channel = channel;
+            this.start = start;
+            this.end = end;
+            this.bytesDone = bytesDone;
+            this.linesDone = linesDone;
+        }
+
+        void run() throws IOException {
+            byte[] buf = new byte[chunkBytes];
+            ByteBuffer wrap = ByteBuffer.wrap(buf);
+            // Start one byte early: if that byte is '\n' our first line starts exactly at start
+            long bufFileStart = start > 0 ? start - 1 : 0;
+            long readPos = bufFileStart;
+            boolean skipping = start > 0; // until the first line break (line owned by the previous range)
+            int filled = 0;
+            long reportedLines = 0;
+
+            while (true) {
+                wrap.limit(buf.length).position(filled);
+                int n = channel.read(wrap, readPos); // positional: channel shared by all workers
+                boolean eof = n < 0;
+                if (n > 0) {
+                    readPos += n;
+                    filled += n;
+                }
+
+                int lineStart = 0;
+                boolean past = false;
+                for (int i = 0; i < filled; i++) {
+                    if (buf[i] != '\n') continue;
+                    if (skipping) {
+                        skipping = false;
+                    } else if (bufFileStart + lineStart >= end) {
+                        past = true;
+                        break;
+                    } else {
+                        line(buf, lineStart, i);
+                    }
+                    lineStart = i + 1;
+                }
+                if (!past && eof && !skipping && lineStart < filled && bufFileStart + lineStart < end) {
+                    line(buf, lineStart, filled); // last line without '\n'
+                    lineStart = filled;
+                }
+
+                long consumed = Math.min(bufFileStart + lineStart, end) - Math.max(bufFileStart, start);
+                if (consumed > 0) bytesDone.addAndGet(consumed);
+                linesDone.addAndGet(lines - reportedLines);
+                reportedLines = lines;
+                if (past || eof || bufFileStart + lineStart >= end && !skipping) break;
+
+                int tail = filled - lineStart;
+                if (tail == buf.length) { // one line longer than a chunk: drop it
+                    if (!skipping) malformed++;
+                    skipping = true;
+                    lineStart = filled;
+                    tail = 0;
+                }
+                System.arraycopy(buf, lineStart, buf, 0, tail);
+                bufFileStart += lineStart;
+                filled = tail;
+            }
+        }
+
+        // Parse bytes [from, to) and train on the position
+        private void line(byte[] b, int from, int to) {
+            if (to > from && b[to - 1] == '\r') to--;
+            if (to == from || b[from] == '#') return; // blank line / comment
+
+            long board = BitBoard.EMPTY;
+            int p = from;
+            for (int cell = 0; cell < 16; cell++) {
+                int value = 0;
+                int digits = 0;
+                while (p < to && b[p] >= '0' && b[p] <= '9' && digits < 6) {
+                    value = value * 10 + (b[p++] - '0');
+                    digits++;
+                }
+                char sep = cell < 15 ? ',' : '|';
+                if (digits == 0 || p >= to || b[p] != sep || value > 12288) {
+                    malformed++;
+                    return;
+                }
+                p++;
+                int code = BitBoard.codeOf(value);
+                if (BitBoard.valueOf(code) != value) { // not a Threes tile (e.g. 5)
+                    malformed++;
+                    return;
+                }
+                board = BitBoard.set(board, cell, code);
+            }
+
+            double target = parseDouble(b, p, to);
+            if (Double.isNaN(target)) {
+                malformed++;
+                return;
+            }
+
+            double error = target - brain.getTotalValue(board);
+            brain.update(board, step * error);
+            errorSum += Math.abs(error);
+            lines++;
+        }
+    }
+
+    // [-]digits[.digits][e[-]digits] from bytes, NaN if malformed. Correctly rounded up to
+    // 15 significant digits and |exponent| <= 22; longer mantissas may be off by an ulp
+    static double parseDouble(byte[] b, int p, int to) {
+        while (p < to && b[p] == ' ') p++;
+        while (to > p && b[to - 1] == ' ') to--;
+        boolean negative = p < to && b[p] == '-';
+        if (negative || p < to && b[p] == '+') p++;
+
+        long mantissa = 0;
+        int digits = 0, exponent = 0;
+        boolean seenDot = false;
+        for (; p < to; p++) {
+            byte c = b[p];
+            if (c >= '0' && c <= '9') {
+                if (mantissa < 100_000_000_000_000_000L) {
+                    mantissa = mantissa * 10 + (c - '0');
+                    if (seenDot) exponent--;
+                } else if (!seenDot) {
+                    exponent++; // digits beyond long precision
+                }
+                digits++;
+            } else if (c == '.' && !seenDot) {
+                seenDot = true;
+            } else {
+                break;
+            }
+        }
+        if (digits == 0) return Double.NaN;
+
+        if (p < to && (b[p] == 'e' || b[p] == 'E')) {
+            p++;
+            boolean negExp = p < to && b[p] == '-';
+            if (negExp || p < to && b[p] == '+') p++;
+            int e = 0, expDigits = 0;
+            while (p < to && b[p] >= '0' && b[p] <= '9') {
+                e = Math.min(e * 10 + (b[p++] - '0'), 10_000);
+                expDigits++;
+            }
+            if (expDigits == 0) return Double.NaN;
+            exponent += negExp ? -e : e;
+        }
+        if (p != to) return Double.NaN;
+
+        double value = exponent >= 0 ? mantissa * Math.pow(10, exponent) : mantissa / Math.pow(10, -exponent);
+        return negative ? -value : value;
+    }
+
+    // ============== REPORT ==============
+
+    public static final class Report {
+        public final long lines;     // positions trained
+        public final long malformed; // lines skipped
+        public final long bytes;
+        public final long elapsedNanos;
+        public final int threads;
+        public final double meanError; // mean |G - V| before each update
+
+        Report(long lines, long malformed, long bytes, long elapsedNanos, int threads, double meanError) {
+            this.lines = lines;
+            this.malformed = malformed;
+            this.bytes = bytes;
+            this.elapsedNanos = elapsedNanos;
+            this.threads = threads;
+            this.meanError = meanError;
+        }
+
+        public double linesPerSecond() {
+            return lines / (elapsedNanos / 1e9);
+        }
+
+        public double megabytesPerSecond() {
+            return bytes / 1e6 / (elapsedNanos / 1e9);
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%d positions (%d malformed) in %.1f s on %d threads: %.0f lines/s, %.1f MB/s, mean |error| %.1f",
+                lines, malformed, elapsedNanos / 1e9, threads, linesPerSecond(), megabytesPerSecond(), meanError);
+        }
+    }
+
+    // ============== CLI ==============
+
+    public static void main(String[] args) throws Exception {
+        String logPath = null;
+        String model = null;
+        String out = null;
+        int epochs = 1;
+        Integer threads = null;
+        Double alpha = null;
+        for (int i = 0; i < args.length; i++) {
+            String arg = args[i];
+            String value = i + 1 < args.length ? args[i + 1] : null;
+            switch (arg) {
+                case "--log": logPath = value; i++; break;
+                case "--model": model = value; i++; break;
+                case "--out": out = value; i++; break;
+                case "--epochs": epochs = Integer.parseInt(value); i++; break;
+                case "--threads": threads = Integer.parseInt(value); i++; break;
+                case "--alpha": alpha = Double.parseDouble(value); i++; break;
+                default:
+                    System.err.println("Usage: DistillationImporter --log <file> [--model brain.dat]"
+                        + " [--out brain.dat] [--epochs N] [--threads N] [--alpha A]");
+                    System.exit(2);
+            }
+        }
+        if (logPath == null) {
+            System.err.println("--log is required");
+            System.exit(2);
+        }
+
+        NTupleNetwork brain;
+        if (model != null) {
+            brain = NTupleNetwork.forLoading();
+            try (InputStream is = new FileInputStream(model)) {
+                brain.loadFromBinary(is);
+            }
+        } else {
+            brain = new NTupleNetwork();
+        }
+        if (alpha != null) brain.alpha = alpha;
+
+        DistillationImporter importer = new DistillationImporter(brain);
+        if (threads != null) importer.threads = threads;
+        File log = new File(logPath);
+        for (int epoch = 1; epoch <= epochs; epoch++) {
+            int e = epoch;
+            Report report = importer.importLog(log, (done, total, lines) ->
+                System.err.printf("epoch %d: %.1f%% (%d positions)%n", e, 100.0 * done / total, lines));
+            System.out.println("epoch " + epoch + ": " + report);
+        }
+
+        if (out != null) {
+            File target = new File(out);
+            AtomicFiles.write(target, brain::exportToBinary);
+            System.err.println("Saved " + target);
+        }
+    }
+}
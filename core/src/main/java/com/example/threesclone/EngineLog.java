@@ -0,0 +1,64 @@
+package com.example.threesclone;
+
+/**
+ * Pluggable logger for the engine, with the same shape as android.util.Log.
+ * The app installs an android.util.Log backed instance; JVM runs default to stderr.
+ */
+public abstract class EngineLog {
+
+    public static final int DEBUG = 3;
+    public static final int INFO = 4;
+    public static final int WARN = 5;
+    public static final int ERROR = 6;
+
+    // Drops everything
+    public static final EngineLog SILENT = new EngineLog() {
+        @Override
+        protected void write(int priority, String tag, String message, Throwable error) {
+        }
+    };
+
+    // WARN and ERROR to System.err
+    public static final EngineLog STDERR = new EngineLog() {
+        @Override
+        protected void write(int priority, String tag, String message, Throwable error) {
+            if (priority < WARN) return;
+            System.err.println((priority == ERROR ? "E/" : "W/") + tag + ": " + message);
+            if (error != null) error.printStackTrace();
+        }
+    };
+
+    private static volatile EngineLog current = STDERR;
+
+    public static void install(EngineLog log) {
+        current = log != null ? log : SILENT;
+    }
+
+    public static EngineLog current() {
+        return current;
+    }
+
+    protected abstract void write(int priority, String tag, String message, Throwable error);
+
+    // ============== LOG CALLS ==============
+
+    public static void d(String tag, String message) {
+        current.write(DEBUG, tag, message, null);
+    }
+
+    public static void i(String tag, String message) {
+        current.write(INFO, tag, message, null);
+    }
+
+    public static void w(String tag, String message) {
+        current.write(WARN, tag, message, null);
+    }
+
+    public static void w(String tag, String message, Throwable error) {
+        current.write(WARN, tag, message, error);
+    }
+
+    public static void e(String tag, String message, Throwable error) {
+        current.write(ERROR, tag, message, error);
+    }
+}
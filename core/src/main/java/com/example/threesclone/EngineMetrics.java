@@ -0,0 +1,316 @@
+package com.example.threesclone;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Always-on engine metrics: counters and latency histograms for the AI entry points.
+ *
+ * Recording goes to a per-thread Recorder (plain long arrays, no locks, no allocation);
+ * snapshot() merges all recorders. Recorders of finished threads are folded into a retired
+ * total, so pool threads coming and going do not pile up. Counts from threads still
+ * running may be a few events behind in a snapshot.
+ *
+ * Histograms are log-linear (HdrHistogram style): exact below 16, then 16 buckets per
+ * power of two, so any recorded value is reported within ~6%. Values are capped at 2^40
+ * (about 18 minutes in nanoseconds).
+ *
+ * Hot paths stay cheap: entry points pay two System.nanoTime calls, and leaf predictions
+ * in the search are timed 1 in PREDICT_SAMPLE_INTERVAL.
+ */
+public final class EngineMetrics {
+
+    // Latency histograms, in nanoseconds
+    public enum Latency { EVALUATE_MOVE, BEST_MOVE, PREDICT, MODEL_LOAD }
+
+    public enum Counter {
+        MOVES,                // Game.move calls that moved
+        DECISIONS,            // root searches actually run (4 Q-values)
+        SEARCH_NODES,         // Expectimax nodes over all searches (leaves included)
+        Q_CACHE_HITS,         // Q-values reused for the same position
+        Q_CACHE_MISSES,
+        TT_HITS,              // TranspositionTable probes
+        TT_MISSES,
+        SYMMETRY_CACHE_HITS,  // CanonicalCache probes
+        SYMMETRY_CACHE_MISSES
+    }
+
+    public static final int PREDICT_SAMPLE_INTERVAL = 256; // power of two
+
+    // Master switch; recording is a no-op while false
+    public static volatile boolean enabled = true;
+
+    private static final int SUB_BITS = 4;
+    private static final int SUB_COUNT = 1 << SUB_BITS;
+    private static final int MAX_BITS = 40;
+    static final int BUCKETS = (MAX_BITS - SUB_BITS + 1) << SUB_BITS;
+
+    // Histogram slots: one per Latency, plus search nodes per decision
+    private static final int NODES_PER_DECISION = Latency.values().length;
+    private static final int HISTOGRAMS = NODES_PER_DECISION + 1;
+
+    private static final List<Recorder> recorders = new ArrayList<>();
+    private static final Recorder retired = new Recorder(null);
+    private static final ThreadLocal<Recorder> LOCAL = ThreadLocal.withInitial(EngineMetrics::register);
+
+    private EngineMetrics() {
+    }
+
+    // ============== RECORDING ==============
+
+    /** Start of a timed section: pass the result to stop(). 0 when disabled. */
+    public static long start() {
+        return enabled ? System.nanoTime() : 0L;
+    }
+
+    public static void stop(Latency latency, long startNanos) {
+        if (startNanos == 0L || !enabled) return;
+        LOCAL.get().record(latency.ordinal(), System.nanoTime() - startNanos);
+    }
+
+    public static void record(Latency latency, long nanos) {
+        if (enabled) LOCAL.get().record(latency.ordinal(), nanos);
+    }
+
+    public static void increment(Counter counter) {
+        if (enabled) LOCAL.get().counters[counter.ordinal()]++;
+    }
+
+    public static void add(Counter counter, long n) {
+        if (enabled && n != 0) LOCAL.get().counters[counter.ordinal()] += n;
+    }
+
+    // One finished root search and the nodes it visited
+    public static void recordDecision(long nodes) {
+        if (!enabled) return;
+        Recorder r = LOCAL.get();
+        r.counters[Counter.DECISIONS.ordinal()]++;
+        r.counters[Counter.SEARCH_NODES.ordinal()] += nodes;
+        r.record(NODES_PER_DECISION, nodes);
+    }
+
+    // ============== SNAPSHOT ==============
+
+    public static Snapshot snapshot() {
+        Recorder total = new Recorder(null);
+        synchronized (recorders) {
+            retireFinished();
+            total.addFrom(retired);
+            for (Recorder r : recorders) total.addFrom(r);
+        }
+        return new Snapshot(total);
+    }
+
+    /** Zero everything. Events recorded by other threads during the reset may be lost. */
+    public static void reset() {
+        synchronized (recorders) {
+            retired.clear();
+            for (Recorder r : recorders) r.clear();
+        }
+    }
+
+    private static Recorder register() {
+        Recorder r = new Recorder(Thread.currentThread());
+        synchronized (recorders) {
+            retireFinished();
+            recorders.add(r);
+        }
+        return r;
+    }
+
+    // Caller holds the recorders lock
+    private static void retireFinished() {
+        for (Iterator<Recorder> it = recorders.iterator(); it.hasNext(); ) {
+            Recorder r = it.next();
+            if (!r.owner.isAlive()) {
+                retired.addFrom(r);
+                it.remove();
+            }
+        }
+    }
+
+    // ============== BUCKETS ==============
+
+    static int bucketOf(long value) {
+        if (value < SUB_COUNT) return value < 0 ? 0 : (int) value;
+        if (value >= (1L << MAX_BITS)) return BUCKETS - 1;
+        int exp = 63 - Long.numberOfLeadingZeros(value); // >= SUB_BITS
+        int sub = (int) (value >>> (exp - SUB_BITS)) & (SUB_COUNT - 1);
+        return ((exp - SUB_BITS + 1) << SUB_BITS) + sub;
+    }
+
+    // Largest value that lands in the bucket
+    static long bucketHigh(int bucket) {
+        if (bucket < SUB_COUNT) return bucket;
+        int exp = (bucket >>> SUB_BITS) + SUB_BITS - 1;
+        long low = (long) (SUB_COUNT + (bucket & (SUB_COUNT - 1))) << (exp - SUB_BITS);
+        return low + (1L << (exp - SUB_BITS)) - 1;
+    }
+
+    // One thread's buffer; only the owner writes (snapshot reads may be slightly stale)
+    private static final class Recorder {
+        final Thread owner;
+        final long[] counters = new long[Counter.values().length];
+        final long[][] buckets = new long[HISTOGRAMS][BUCKETS];
+        final long[] sums = new long[HISTOGRAMS];
+        final long[] max = new long[HISTOGRAMS];
+
+        Recorder(Thread owner) {
+            this.owner = owner;
+        }
+
+        void record(int histogram, long value) {
+            buckets[histogram][bucketOf(value)]++;
+            sums[histogram] += value;
+            if (value > max[histogram]) max[histogram] = value;
+        }
+
+        void addFrom(Recorder other) {
+            for (int i = 0; i < counters.length; i++) counters[i] += other.counters[i];
+            for (int h = 0; h < HISTOGRAMS; h++) {
+                long[] from = other.buckets[h];
+                long[] to = buckets[h];
+                for (int b = 0; b < BUCKETS; b++) to[b] += from[b];
+                sums[h] += other.sums[h];
+                max[h] = Math.max(max[h], other.max[h]);
+            }
+        }
+
+        void clear() {
+            java.util.Arrays.fill(counters, 0L);
+            for (long[] b : buckets) java.util.Arrays.fill(b, 0L);
+            java.util.Arrays.fill(sums, 0L);
+            java.util.Arrays.fill(max, 0L);
+        }
+    }
+
+    // ============== EXPORT ==============
+
+    /** Summary of one histogram. Percentiles are bucket upper bounds (within ~6%). */
+    public static final class Histogram {
+        public final long count;
+        public final long max;
+        public final double mean;
+        private final long[] buckets;
+
+        Histogram(long[] buckets, long sum, long max) {
+            long n = 0;
+            for (long c : buckets) n += c;
+            this.count = n;
+            this.max = max;
+            this.mean = n > 0 ? (double) sum / n : 0.0;
+            this.buckets = buckets;
+        }
+
+        // Value at quantile q in [0, 1]
+        public long percentile(double q) {
+            if (count == 0) return 0;
+            long rank = Math.max(1, (long) Math.ceil(q * count));
+            long seen = 0;
+            for (int b = 0; b < buckets.length; b++) {
+                seen += buckets[b];
+                if (seen >= rank) return Math.min(bucketHigh(b), max);
+            }
+            return max;
+        }
+    }
+
+    /** Merged metrics at one point in time. */
+    public static final class Snapshot {
+        private final long[] counters;
+        private final Histogram[] latencies = new Histogram[Latency.values().length];
+        public final Histogram nodesPerDecision;
+
+        Snapshot(Recorder total) {
+            counters = total.counters.clone();
+            for (Latency l : Latency.values()) {
+                int h = l.ordinal();
+                latencies[h] = new Histogram(total.buckets[h], total.sums[h], total.max[h]);
+            }
+            nodesPerDecision = new Histogram(total.buckets[NODES_PER_DECISION],
+                total.sums[NODES_PER_DECISION], total.max[NODES_PER_DECISION]);
+        }
+
+        public long get(Counter counter) {
+            return counters[counter.ordinal()];
+        }
+
+        public Histogram get(Latency latency) {
+            return latencies[latency.ordinal()];
+        }
+
+        public double evaluationsPerMove() {
+            long decisions = get(Counter.DECISIONS);
+            return decisions > 0 ? (double) get(Counter.SEARCH_NODES) / decisions : 0.0;
+        }
+
+        public double qCacheHitRate() {
+            return ratio(get(Counter.Q_CACHE_HITS), get(Counter.Q_CACHE_MISSES));
+        }
+
+        public double transpositionHitRate() {
+            return ratio(get(Counter.TT_HITS), get(Counter.TT_MISSES));
+        }
+
+        public double symmetryCacheHitRate() {
+            return ratio(get(Counter.SYMMETRY_CACHE_HITS), get(Counter.SYMMETRY_CACHE_MISSES));
+        }
+
+        private static double ratio(long hits, long misses) {
+            long probes = hits + misses;
+            return probes > 0 ? (double) hits / probes : 0.0;
+        }
+
+        public String toJson() {
+            StringBuilder sb = new StringBuilder(1024);
+            sb.append("{\"counters\":{");
+            for (Counter c : Counter.values()) {
+                if (c.ordinal() > 0) sb.append(',');
+                sb.append('"').append(c.name().toLowerCase(Locale.ROOT)).append("\":").append(get(c));
+            }
+            sb.append("},\"latency_ns\":{");
+            for (Latency l : Latency.values()) {
+                if (l.ordinal() > 0) sb.append(',');
+                sb.append('"').append(l.name().toLowerCase(Locale.ROOT)).append("\":");
+                appendJson(sb, get(l));
+            }
+            sb.append("},\"nodes_per_decision\":");
+            appendJson(sb, nodesPerDecision);
+            sb.append(String.format(Locale.ROOT,
+                ",\"evaluations_per_move\":%.1f,\"q_cache_hit_rate\":%.4f,"
+                    + "\"tt_hit_rate\":%.4f,\"symmetry_cache_hit_rate\":%.4f}",
+                evaluationsPerMove(), qCacheHitRate(), transpositionHitRate(), symmetryCacheHitRate()));
+            return sb.toString();
+        }
+
+        private static void appendJson(StringBuilder sb, Histogram h) {
+            sb.append(String.format(Locale.ROOT,
+                "{\"count\":%d,\"mean\":%.1f,\"p50\":%d,\"p90\":%d,\"p99\":%d,\"p999\":%d,\"max\":%d}",
+                h.count, h.mean, h.percentile(0.5), h.percentile(0.9), h.percentile(0.99),
+                h.percentile(0.999), h.max));
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder sb = new StringBuilder(1024);
+            sb.append(String.format(Locale.ROOT, "%-14s %9s %10s %10s %10s %10s %10s%n",
+                "latency (us)", "count", "mean", "p50", "p99", "p99.9", "max"));
+            for (Latency l : Latency.values()) {
+                Histogram h = get(l);
+                sb.append(String.format(Locale.ROOT, "%-14s %9d %10.1f %10.1f %10.1f %10.1f %10.1f%n",
+                    l.name().toLowerCase(Locale.ROOT), h.count, h.mean / 1e3, h.percentile(0.5) / 1e3,
+                    h.percentile(0.99) / 1e3, h.percentile(0.999) / 1e3, h.max / 1e3));
+            }
+            sb.append(String.format(Locale.ROOT,
+                "decisions %d, evaluations/move %.1f (p50 %d, p99 %d), moves %d%n",
+                get(Counter.DECISIONS), evaluationsPerMove(), nodesPerDecision.percentile(0.5),
+                nodesPerDecision.percentile(0.99), get(Counter.MOVES)));
+            sb.append(String.format(Locale.ROOT,
+                "hit rates: q-cache %.1f%%, transposition %.1f%%, symmetry %.1f%%",
+                100 * qCacheHitRate(), 100 * transpositionHitRate(), 100 * symmetryCacheHitRate()));
+            return sb.toString();
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package com.example.threesclone;
+
+import java.util.Arrays;
+
+/**
+ * One game as primitive arrays: board(0) is the start position, step i goes from board(i)
+ * to board(i + 1) and earned reward(i) points. Boards are packed BitBoards (8 bytes),
+ * so a long game of 2000 moves costs ~24 KB.
+ */
+public final class EpisodeBuffer {
+
+    private long[] boards;
+    private int[] rewards;
+    private int steps;
+    private boolean terminal; // ended in game over (value of the last board is 0)
+
+    public EpisodeBuffer() {
+        this(256);
+    }
+
+    public EpisodeBuffer(int initialSteps) {
+        boards = new long[initialSteps + 1];
+        rewards = new int[initialSteps];
+    }
+
+    public void start(long board) {
+        boards[0] = board;
+        steps = 0;
+        terminal = false;
+    }
+
+    public void add(int reward, long nextBoard) {
+        if (steps == rewards.length) {
+            rewards = Arrays.copyOf(rewards, steps * 2);
+            boards = Arrays.copyOf(boards, steps * 2 + 1);
+        }
+        rewards[steps] = reward;
+        boards[++steps] = nextBoard;
+    }
+
+    public void markTerminal() {
+        terminal = true;
+    }
+
+    public int size() {
+        return steps;
+    }
+
+    public boolean isTerminal() {
+        return terminal;
+    }
+
+    public long board(int i) {
+        return boards[i];
+    }
+
+    public int reward(int i) {
+        return rewards[i];
+    }
+
+    // Trimmed copy, safe to hand to another thread while this buffer keeps recording
+    public EpisodeBuffer copy() {
+        EpisodeBuffer c = new EpisodeBuffer(Math.max(1, steps));
+        System.arraycopy(boards, 0, c.boards, 0, steps + 1);
+        System.arraycopy(rewards, 0, c.rewards, 0, steps);
+        c.steps = steps;
+        c.terminal = terminal;
+        return c;
+    }
+}
@@ -0,0 +1,469 @@
+package com.example.threesclone;
+
+/**
+ * Multi-ply Expectimax search over packed boards (see BitBoard).
+ *
+ * Node types:
+ * - MAX node    : player to move, next tile (future) is known from the hint
+ * - CHANCE node : afterstate of a move; the known tile spawns at [row][3] of a moved row
+ *                 (uniform over moved rows, uniform over bonus ranks like getActualSpawnValue)
+ * - DRAW node   : next future tile is drawn like Game.getNextValue, with exact probabilities
+ *                 from the DeckState: after move 21 the special deck first, a bonus card
+ *                 giving a hint ranked by the board's highest tile, else the number deck
+ *
+ * Depth counts moves: depth 1 is the classic one-ply Q = R + gamma * avg(V) evaluation,
+ * depth 2 also looks at the best reply for every spawn, and so on.
+ * Leaves use NTupleNetwork.getTotalValue (prediction + potential).
+ *
+ * Afterstates (chance nodes) are cached in an optional TranspositionTable, keyed by the
+ * rotated afterstate plus everything else the value depends on (move, moved rows, hint, deck).
+ * Leaf predictions can also go through an optional CanonicalCache shared by all 8
+ * symmetric variants of a position (values then differ from the plain search by ~1e-12).
+ *
+ * Metrics: cache hits / misses of each search and a sample of leaf prediction times go to
+ * EngineMetrics on the searching thread.
+ *
+ * Budgets: when the node budget or the time budget runs out, remaining MAX nodes are
+ * evaluated as leaves instead of being expanded, so a search always returns a value.
+ * searchBestMove instead deepens iteratively and keeps only results that finished.
+ *
+ * Not thread-safe: use one instance per thread.
+ */
+public final class ExpectimaxSearch {
+
+    // Marker for an illegal move (same convention as Game.evaluateMove)
+    public static final double NO_MOVE = -Double.MAX_VALUE;
+
+    // How often (in nodes) we look at the clock
+    private static final int TIME_CHECK_INTERVAL = 256;
+    private static final int PREDICT_SAMPLE_MASK = EngineMetrics.PREDICT_SAMPLE_INTERVAL - 1;
+
+    // Board cell (original orientation) of spawn row r when the move rotated the board rot times
+    private static final int[][] SPAWN_CELL = new int[4][4];
+    static {
+        for (int rot = 0; rot < 4; rot++) {
+            for (int row = 0; row < 4; row++) {
+                long marker = BitBoard.rotate(BitBoard.set(BitBoard.EMPTY, row, 3, 0xF), (4 - rot) & 3);
+                SPAWN_CELL[rot][row] = Long.numberOfTrailingZeros(marker) >>> 2;
+            }
+        }
+    }
+
+    private final NTupleNetwork brain;
+    private TranspositionTable table; // optional
+    private CanonicalCache predictCache; // optional, replaces the incremental leaf path
+
+    // Incremental predict cache for the leaf children of one afterstate; regrown when
+    // the brain's tuple layout changes (e.g. a model loaded into it after construction)
+    private int[] leafIndices;
+    private double[] leafPartial;
+
+    private int depth = 1;
+    private long nodeBudget = 0;      // 0 = unlimited
+    private long timeBudgetNanos = 0; // 0 = unlimited
+
+    // Per-search state
+    private long nodes;
+    private long nextTimeCheck;
+    private long deadline;
+    private boolean budgetExceeded;
+    private long tableHits, tableMisses, cacheHits, cacheMisses; // at search start
+    private int completedDepth;
+
+    // Iterative deepening scratch (root moves by Direction.ordinal())
+    private final double[] iterationQ = new double[4];
+    private final int[] moveOrder = new int[4];
+
+    public ExpectimaxSearch(NTupleNetwork brain) {
+        this.brain = brain;
+        this.leafIndices = new int[brain.tupleCount()];
+        this.leafPartial = new double[brain.tupleCount()];
+    }
+
+    // ============== CONFIG ==============
+
+    public void setDepth(int depth) {
+        this.depth = Math.max(1, depth);
+    }
+
+    public int getDepth() {
+        return depth;
+    }
+
+    public void setNodeBudget(long nodeBudget) {
+        this.nodeBudget = Math.max(0, nodeBudget);
+    }
+
+    public void setTimeBudgetMillis(long millis) {
+        this.timeBudgetNanos = Math.max(0, millis) * 1_000_000L;
+    }
+
+    public void setTranspositionTable(TranspositionTable table) {
+        this.table = table;
+    }
+
+    public TranspositionTable getTranspositionTable() {
+        return table;
+    }
+
+    public void setPredictCache(CanonicalCache cache) {
+        if (cache != null && cache.getBrain() != brain) {
+            throw new IllegalArgumentException("Cache belongs to another brain");
+        }
+        this.predictCache = cache;
+    }
+
+    public CanonicalCache getPredictCache() {
+        return predictCache;
+    }
+
+    // ============== STATS (last search) ==============
+
+    public long getNodeCount() {
+        return nodes;
+    }
+
+    public boolean isBudgetExceeded() {
+        return budgetExceeded;
+    }
+
+    // Deepest iteration searchBestMove finished for all moves
+    public int getCompletedDepth() {
+        return completedDepth;
+    }
+
+    // ============== ROOT ==============
+
+    /**
+     * Q(s, dir) for one move, with its own budget.
+     * @param future the known next tile (Game.futureValue)
+     * @param deck   remaining decks and move count, see DeckState
+     * @return Q, or NO_MOVE if dir is illegal
+     */
+    public double evaluateMove(long board, Direction dir, int future, int deck) {
+        startSearch();
+        double q = moveValue(board, BitBoard.rotationsToLeft(dir), future, deck, depth);
+        finishSearch();
+        return q;
+    }
+
+    /**
+     * Q(s, dir) for all four moves sharing one budget, indexed by Direction.ordinal().
+     */
+    public void evaluateMoves(long board, int future, int deck, double[] out) {
+        startSearch();
+        Direction[] dirs = Direction.values();
+        for (int i = 0; i < dirs.length; i++) {
+            out[i] = moveValue(board, BitBoard.rotationsToLeft(dirs[i]), future, deck, depth);
+        }
+        finishSearch();
+    }
+
+    /**
+     * Value of one spawn outcome of a root afterstate (board after the spawn, original
+     * orientation), searched depthLeft more moves. Used by ParallelSearch to split the root.
+     * @param deadlineNanos absolute System.nanoTime() deadline shared by all workers, 0 = none
+     */
+    public double evaluateSpawnChild(long child, int deck, int depthLeft, long deadlineNanos) {
+        startSearch();
+        if (deadlineNanos != 0) deadline = deadlineNanos;
+        double value = depthLeft == 0 ? leaf(child) : drawNode(child, deck, depthLeft);
+        finishSearch();
+        return value;
+    }
+
+    // ============== ITERATIVE DEEPENING ==============
+
+    /**
+     * Best root move within the node / time budget: depth 1, 2, ... up to maxDepth, one
+     * budget for all iterations. Each iteration tries the root moves best-first by the Q of
+     * the previous one, and an iteration is not started when its first move alone is not
+     * expected to fit in the time left (from the last iteration's time and node growth).
+     *
+     * out receives the Q-values of the deepest iteration that finished for all moves (depth 1
+     * always does). If the budget runs out mid-iteration after the previous best move was
+     * searched at the new depth, the best of the moves finished at that depth wins instead.
+     * With neither a node nor a time budget every iteration runs, up to maxDepth: callers
+     * without a budget should pass a small maxDepth.
+     * @return index into Direction.values(), or -1 if no move is legal
+     */
+    public int searchBestMove(long board, int future, int deck, int maxDepth, double[] out) {
+        startSearch();
+        Direction[] dirs = Direction.values();
+        long iterationStart = System.nanoTime();
+        for (int i = 0; i < dirs.length; i++) {
+            out[i] = moveValue(board, BitBoard.rotationsToLeft(dirs[i]), future, deck, 1);
+        }
+        completedDepth = 1;
+        int best = bestIndex(out);
+        int legal = 0;
+        for (double q : out) if (q != NO_MOVE) legal++;
+
+        long lastNanos = System.nanoTime() - iterationStart;
+        long lastNodes = nodes;
+        double growth = 0.0; // node ratio between the last two iterations, 0 = unknown
+        for (int d = 2; d <= maxDepth && best >= 0 && !budgetExceeded; d++) {
+            if (deadline != 0 && growth > 0.0) {
+                double firstMoveNanos = lastNanos * growth / legal;
+                if (System.nanoTime() + firstMoveNanos > deadline) break;
+            }
+
+            orderMoves(out);
+            iterationStart = System.nanoTime();
+            long iterationNodes = nodes;
+            int finished = 0;
+            for (int k = 0; k < dirs.length; k++) {
+                int i = moveOrder[k];
+                if (out[i] == NO_MOVE) {
+                    iterationQ[i] = NO_MOVE;
+                    continue;
+                }
+                double q = moveValue(board, BitBoard.rotationsToLeft(dirs[i]), future, deck, d);
+                if (budgetExceeded) break;
+                iterationQ[i] = q;
+                finished |= 1 << i;
+            }
+
+            if (!budgetExceeded) {
+                System.arraycopy(iterationQ, 0, out, 0, dirs.length);
+                completedDepth = d;
+                best = bestIndex(out);
+                long iterationNodeCount = nodes - iterationNodes;
+                growth = (double) iterationNodeCount / Math.max(1, lastNodes);
+                lastNodes = iterationNodeCount;
+                lastNanos = System.nanoTime() - iterationStart;
+            } else if ((finished & (1 << best)) != 0) {
+                // Cut short: moves finished at depth d are comparable with each other
+                for (int i = 0; i < dirs.length; i++) {
+                    if ((finished & (1 << i)) != 0 && iterationQ[i] > iterationQ[best]) best = i;
+                }
+            }
+        }
+        finishSearch();
+        return best;
+    }
+
+    // First index of the largest legal Q (same tie-break as Game.getBestMove), -1 if none
+    private static int bestIndex(double[] q) {
+        int best = -1;
+        double bestValue = NO_MOVE;
+        for (int i = 0; i < q.length; i++) {
+            if (q[i] > bestValue) {
+                bestValue = q[i];
+                best = i;
+            }
+        }
+        return best;
+    }
+
+    // moveOrder = indices by descending q (stable, illegal moves last)
+    private void orderMoves(double[] q) {
+        for (int i = 0; i < moveOrder.length; i++) {
+            int m = i;
+            int j = i;
+            while (j > 0 && q[moveOrder[j - 1]] < q[m]) {
+                moveOrder[j] = moveOrder[j - 1];
+                j--;
+            }
+            moveOrder[j] = m;
+        }
+    }
+
+    private void startSearch() {
+        nodes = 0;
+        budgetExceeded = false;
+        nextTimeCheck = TIME_CHECK_INTERVAL;
+        deadline = timeBudgetNanos > 0 ? System.nanoTime() + timeBudgetNanos : 0;
+        tableHits = table != null ? table.getHits() : 0;
+        tableMisses = table != null ? table.getMisses() : 0;
+        cacheHits = predictCache != null ? predictCache.getHits() : 0;
+        cacheMisses = predictCache != null ? predictCache.getMisses() : 0;
+    }
+
+    private void finishSearch() {
+        if (table != null) {
+            EngineMetrics.add(EngineMetrics.Counter.TT_HITS, Math.max(0, table.getHits() - tableHits));
+            EngineMetrics.add(EngineMetrics.Counter.TT_MISSES, Math.max(0, table.getMisses() - tableMisses));
+        }
+        if (predictCache != null) {
+            EngineMetrics.add(EngineMetrics.Counter.SYMMETRY_CACHE_HITS, Math.max(0, predictCache.getHits() - cacheHits));
+            EngineMetrics.add(EngineMetrics.Counter.SYMMETRY_CACHE_MISSES, Math.max(0, predictCache.getMisses() - cacheMisses));
+        }
+    }
+
+    // ============== NODES ==============
+
+    private double maxNode(long board, int future, int deck, int depthLeft) {
+        if (outOfBudget()) return leaf(board);
+        nodes++;
+
+        double best = NO_MOVE;
+        for (int rot = 0; rot < 4; rot++) {
+            double q = moveValue(board, rot, future, deck, depthLeft);
+            if (q > best) best = q;
+        }
+        // No legal move: game over, nothing more to earn
+        return best == NO_MOVE ? 0.0 : best;
+    }
+
+    // Q(s, a) = R + gamma * E[V(s')], with a given as clockwise rotations to LEFT
+    private double moveValue(long board, int rot, int future, int deck, int depthLeft) {
+        long rotated = BitBoard.rotate(board, rot);
+        long shifted = 0L;
+        int movedRows = 0;
+        int gain = 0;
+        for (int r = 0; r < 4; r++) {
+            long entry = MoveTable.entry(BitBoard.getRow(rotated, r));
+            if (MoveTable.moved(entry)) {
+                movedRows |= 1 << r;
+                gain += MoveTable.gain(entry);
+            }
+            shifted |= (long) MoveTable.shiftedRow(entry) << (r << 4);
+        }
+        if (movedRows == 0) return NO_MOVE;
+
+        double expectedV = chanceNode(shifted, movedRows, rot, future, deck, depthLeft - 1);
+        return gain + brain.gamma * expectedV;
+    }
+
+    // Afterstate (still rotated to LEFT): spawn the known tile on one of the moved rows
+    private double chanceNode(long shifted, int movedRows, int rot, int future, int deck, int depthLeft) {
+        int futureCode = BitBoard.codeOf(future);
+        int minCode = minSpawnCode(futureCode);
+
+        // The decks only matter if we draw again below this node
+        int auxKey = rot | (movedRows << 2) | (futureCode << 6) | ((depthLeft == 0 ? 0 : deck) << 10);
+        if (table != null) {
+            double cached = table.probe(shifted, auxKey, depthLeft);
+            if (!Double.isNaN(cached)) return cached;
+        }
+
+        int unrotate = (4 - rot) & 3;
+        double total = 0.0;
+        int count = 0;
+        if (depthLeft == 0) {
+            // Leaves differ from the afterstate by one spawned cell: predict incrementally
+            long afterstate = BitBoard.rotate(shifted, unrotate);
+            if (predictCache == null) {
+                int tuples = brain.tupleCount();
+                if (leafIndices.length < tuples) {
+                    leafIndices = new int[tuples];
+                    leafPartial = new double[tuples];
+                }
+                brain.prepareIncremental(afterstate, leafIndices, leafPartial);
+            }
+            for (int row = 0; row < 4; row++) {
+                if ((movedRows & (1 << row)) == 0) continue;
+                int cell = SPAWN_CELL[rot][row];
+                for (int code = minCode; code <= futureCode; code++) {
+                    total += leaf(afterstate, cell, code);
+                    count++;
+                }
+            }
+        } else {
+            for (int row = 0; row < 4; row++) {
+                if ((movedRows & (1 << row)) == 0) continue;
+                for (int code = minCode; code <= futureCode; code++) {
+                    long child = BitBoard.rotate(BitBoard.set(shifted, row, 3, code), unrotate);
+                    total += drawNode(child, deck, depthLeft);
+                    count++;
+                }
+            }
+        }
+        double expected = total / count;
+
+        // Values cut short by the budget are not exact for this depth: don't cache them
+        if (table != null && !budgetExceeded) {
+            table.store(shifted, auxKey, depthLeft, expected);
+        }
+        return expected;
+    }
+
+    // Smallest code the hinted tile can actually spawn as.
+    // Bonus tile: actual rank is uniform in [max(2, rank - 2), rank]
+    static int minSpawnCode(int futureCode) {
+        return futureCode > 3 ? Math.max(4, futureCode - 2) : futureCode;
+    }
+
+    // The next hint is drawn (Game.getNextValue) before the player moves again
+    private double drawNode(long board, int deck, int depthLeft) {
+        deck = DeckState.afterMove(deck);
+        if (!DeckState.specialActive(deck)) return numberDraw(board, deck, depthLeft);
+
+        deck = DeckState.refillSpecial(deck);
+        int bonus = DeckState.bonusLeft(deck);
+        int blanks = DeckState.blanksLeft(deck);
+        double total = bonus + blanks;
+        double value = 0.0;
+        if (blanks > 0) {
+            value += (blanks / total) * numberDraw(board, DeckState.drawBlank(deck), depthLeft);
+        }
+        if (bonus > 0) {
+            value += (bonus / total) * bonusDraw(board, DeckState.drawBonus(deck), depthLeft);
+        }
+        return value;
+    }
+
+    // Plain hint from the number deck, exact deck probabilities
+    private double numberDraw(long board, int deck, int depthLeft) {
+        deck = DeckState.refillNumbers(deck); // PseudoList refills when empty
+
+        int total = DeckState.numbersLeft(deck);
+        double value = 0.0;
+        for (int v = 1; v <= 3; v++) {
+            int n = DeckState.count(deck, v);
+            if (n == 0) continue;
+            value += ((double) n / total) * maxNode(board, v, DeckState.drawNumber(deck, v), depthLeft);
+        }
+        return value;
+    }
+
+    // Bonus card: rank max(highest - 3, 0); below 2 it falls back to the number deck,
+    // 2 and 3 are fixed, higher is uniform over ranks [4, num] (ranks as in Game: 1 = "3")
+    private double bonusDraw(long board, int deck, int depthLeft) {
+        int num = Math.max(BitBoard.rankOf(BitBoard.maxCode(board)) - 3, 0);
+        if (num < 2) return numberDraw(board, deck, depthLeft);
+        if (num < 4) return maxNode(board, BitBoard.valueOf(num + 2), deck, depthLeft);
+
+        double value = 0.0;
+        for (int rank = 4; rank <= num; rank++) {
+            value += maxNode(board, BitBoard.valueOf(rank + 2), deck, depthLeft);
+        }
+        return value / (num - 3);
+    }
+
+    private double leaf(long board) {
+        nodes++;
+        long t0 = samplePredict();
+        double predicted = predictCache != null ? predictCache.predict(board) : brain.predict(board);
+        if (t0 != 0) EngineMetrics.stop(EngineMetrics.Latency.PREDICT, t0);
+        return predicted + brain.getCompositePotential(board);
+    }
+
+    // Same value as leaf(BitBoard.set(afterstate, cell, code)), after prepareIncremental(afterstate)
+    private double leaf(long afterstate, int cell, int code) {
+        nodes++;
+        long child = BitBoard.set(afterstate, cell, code);
+        long t0 = samplePredict();
+        double predicted = predictCache != null ? predictCache.predict(child)
+            : brain.predictWithChange(afterstate, leafIndices, leafPartial, cell, code);
+        if (t0 != 0) EngineMetrics.stop(EngineMetrics.Latency.PREDICT, t0);
+        return predicted + brain.getCompositePotential(child);
+    }
+
+    // Clock start for about one leaf in PREDICT_SAMPLE_INTERVAL, else 0
+    private long samplePredict() {
+        return (nodes & PREDICT_SAMPLE_MASK) == 0 ? EngineMetrics.start() : 0L;
+    }
+
+    private boolean outOfBudget() {
+        if (budgetExceeded) return true;
+        if (nodeBudget > 0 && nodes >= nodeBudget) {
+            budgetExceeded = true;
+        } else if (deadline != 0 && nodes >= nextTimeCheck) {
+            nextTimeCheck = nodes + TIME_CHECK_INTERVAL;
+            budgetExceeded = System.nanoTime() >= deadline;
+        }
+        return budgetExceeded;
+    }
+}
@@ -0,0 +1,48 @@
+package com.example.threesclone;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * brain.dat in a plain directory (desktop / server runs). Flat-model caches go next to it.
+ */
+public class FileModelSource implements ModelSource {
+
+    public static final String MODEL_FILE = "brain.dat";
+
+    private final File dir;
+    private final File model;
+
+    public FileModelSource(File dir) {
+        this(dir, new File(dir, MODEL_FILE));
+    }
+
+    public FileModelSource(File dir, File model) {
+        this.dir = dir;
+        this.model = model;
+    }
+
+    @Override
+    public InputStream openModel() throws IOException {
+        return new FileInputStream(model);
+    }
+
+    @Override
+    public OutputStream createModel() throws IOException {
+        return new FileOutputStream(model);
+    }
+
+    @Override
+    public File modelFile() {
+        return model;
+    }
+
+    @Override
+    public File cacheDir() {
+        return dir;
+    }
+}
@@ -0,0 +1,232 @@
+package com.example.threesclone;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Flat binary model file ("brain.bin"), loaded with FileChannel.map instead of being decoded.
+ *
+ * Layout (little-endian):
+ * - Header      : "TCNB", version, bytes per weight (8 = f64, 4 = f32, 2 = i16),
+ *                 tuple count, table count, alpha, gamma, w_empty, w_snake, w_merge,
+ *                 w_disorder, total_episodes, best_top1_avg, best_overall_avg, best_bot10_avg
+ * - Tuples      : per tuple: weight index, cell count, cell indices
+ * - Directory   : per table: file offset (long), weight count (int), pad, i16 scale (double)
+ * - Tables      : raw weights, every table starts on a 4 KB page boundary
+ *
+ * The mapped pages are shared with the OS page cache: nothing is copied onto the heap and
+ * predict reads the buffers directly. Convert once from MessagePack with convert().
+ */
+public final class FlatModel {
+
+    public static final int MAGIC = 0x424E4354; // "TCNB" read as a little-endian int
+    public static final int VERSION = 1;
+    public static final int PAGE_SIZE = 4096;
+
+    private static final int HEADER_BYTES = 104;
+    private static final int DIRECTORY_ENTRY_BYTES = 24;
+    private static final int WRITE_CHUNK = 1 << 16;
+
+    private FlatModel() {
+    }
+
+    // ============== WRITE ==============
+
+    /**
+     * Write the network in its current storage precision.
+     * Goes through AtomicFiles, so a crash never leaves half a model behind.
+     */
+    public static void write(NTupleNetwork net, File file) throws IOException {
+        WeightPrecision precision = net.getPrecision();
+        int numTables = net.numTables();
+
+        // 1. Header + tuples + directory, padded to the first page
+        int tupleBytes = 0;
+        for (NTupleNetwork.TupleConfig t : net.tuples) tupleBytes += 8 + 4 * t.indices.length;
+        long offset = align(HEADER_BYTES + tupleBytes + (long) numTables * DIRECTORY_ENTRY_BYTES);
+
+        ByteBuffer head = ByteBuffer.allocate((int) offset).order(ByteOrder.LITTLE_ENDIAN);
+        head.putInt(MAGIC).putInt(VERSION).putInt(precision.bytesPerWeight)
+            .putInt(net.tuples.size()).putInt(numTables).putInt(0);
+        head.putDouble(net.alpha).putDouble(net.gamma)
+            .putDouble(net.wEmpty).putDouble(net.wSnake).putDouble(net.wMerge).putDouble(net.wDisorder);
+        head.putLong(net.totalEpisodes)
+            .putDouble(net.bestTop1Avg).putDouble(net.bestOverallAvg).putDouble(net.bestBot10Avg);
+        for (NTupleNetwork.TupleConfig t : net.tuples) {
+            head.putInt(t.weightIndex).putInt(t.indices.length);
+            for (int idx : t.indices) head.putInt(idx);
+        }
+        long[] tableOffsets = new long[numTables];
+        for (int t = 0; t < numTables; t++) {
+            int size = net.tableSize(t);
+            tableOffsets[t] = offset;
+            head.putLong(offset).putInt(size).putInt(0).putDouble(net.tableScale(t));
+            offset = align(offset + (long) size * precision.bytesPerWeight);
+        }
+
+        head.flip();
+        long end = offset;
+        AtomicFiles.write(file, out -> writeTables(out.getChannel(), net, head, tableOffsets, end));
+    }
+
+    private static void writeTables(FileChannel ch, NTupleNetwork net, ByteBuffer head, long[] tableOffsets,
+                                    long end) throws IOException {
+        WeightPrecision precision = net.getPrecision();
+        writeFully(ch, head);
+
+        // 2. Tables, each on its own page
+        ByteBuffer chunk = ByteBuffer.allocate(WRITE_CHUNK).order(ByteOrder.LITTLE_ENDIAN);
+        for (int t = 0; t < tableOffsets.length; t++) {
+            ch.position(tableOffsets[t]);
+
+            double scale = net.tableScale(t);
+            for (int i = 0, size = net.tableSize(t); i < size; i++) {
+                if (chunk.remaining() < 8) {
+                    chunk.flip();
+                    writeFully(ch, chunk);
+                    chunk.clear();
+                }
+                double w = net.weightAt(t, i);
+                switch (precision) {
+                    case F32: chunk.putFloat((float) w); break;
+                    case I16: chunk.putShort((short) Math.round(w / scale)); break;
+                    default: chunk.putDouble(w); break;
+                }
+            }
+            chunk.flip();
+            writeFully(ch, chunk);
+            chunk.clear();
+        }
+        // Pad the last table to a full page
+        if (ch.size() < end) {
+            ch.position(end - 1);
+            writeFully(ch, ByteBuffer.allocate(1));
+        }
+    }
+
+    /**
+     * One-time conversion: brain.dat (MessagePack / legacy) -> flat file in the given precision.
+     * @return drift of the stored precision vs. the f64 source
+     */
+    public static PrecisionDrift convert(File source, File target, WeightPrecision precision) throws Exception {
+        NTupleNetwork net = NTupleNetwork.forLoading();
+        PrecisionDrift drift;
+        try (InputStream is = new FileInputStream(source)) {
+            drift = net.loadFromBinary(is, precision);
+        }
+        if (net.numTables() == 0) throw new IOException("Empty model: " + source);
+        write(net, target);
+        return drift;
+    }
+
+    // ============== MAP ==============
+
+    /**
+     * Map a flat file into the network. The weights stay in the file; the previous
+     * tables of the network are dropped.
+     */
+    public static void map(NTupleNetwork net, File file) throws IOException {
+        MappedByteBuffer map;
+        try (FileChannel ch = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            // The mapping stays valid after the channel is closed
+            map = ch.map(FileChannel.MapMode.READ_ONLY, 0, ch.size());
+        }
+        ByteBuffer in = map.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+        if (in.remaining() < HEADER_BYTES || in.getInt() != MAGIC) {
+            throw new IOException("Not a flat model: " + file);
+        }
+        int version = in.getInt();
+        if (version != VERSION) throw new IOException("Unsupported flat model version " + version);
+        WeightPrecision precision = precisionOf(in.getInt());
+        int numTuples = in.getInt();
+        int numTables = in.getInt();
+        in.getInt();
+        if (numTuples < 0 || numTuples > 1000 || numTables <= 0 || numTables > 1000) {
+            throw new IOException("Corrupt flat model header");
+        }
+
+        double alpha = in.getDouble(), gamma = in.getDouble();
+        double wEmpty = in.getDouble(), wSnake = in.getDouble();
+        double wMerge = in.getDouble(), wDisorder = in.getDouble();
+        long totalEpisodes = in.getLong();
+        double bestTop1 = in.getDouble(), bestOverall = in.getDouble(), bestBot10 = in.getDouble();
+
+        NTupleNetwork.TupleConfig[] tuples = new NTupleNetwork.TupleConfig[numTuples];
+        long[] minSize = new long[numTables]; // every tuple index must land inside its table
+        for (int i = 0; i < numTuples; i++) {
+            int weightIndex = in.getInt();
+            int len = in.getInt();
+            if (weightIndex < 0 || weightIndex >= numTables || len <= 0 || len > 16) {
+                throw new IOException("Corrupt tuple " + i);
+            }
+            int[] indices = new int[len];
+            for (int k = 0; k < len; k++) {
+                indices[k] = in.getInt();
+                if (indices[k] < 0 || indices[k] > 15) throw new IOException("Corrupt tuple " + i);
+            }
+            tuples[i] = new NTupleNetwork.TupleConfig(indices, weightIndex);
+            minSize[weightIndex] = Math.max(minSize[weightIndex], NTupleNetwork.indexSpace(len));
+        }
+
+        Buffer[] tables = new Buffer[numTables];
+        double[] scales = new double[numTables];
+        for (int t = 0; t < numTables; t++) {
+            long offset = in.getLong();
+            int size = in.getInt();
+            in.getInt();
+            scales[t] = in.getDouble();
+            long bytes = (long) size * precision.bytesPerWeight;
+            if (offset % PAGE_SIZE != 0 || size < minSize[t] || offset + bytes > map.capacity()) {
+                throw new IOException("Corrupt table " + t);
+            }
+            // slice() resets the byte order: set it on the slice, then view it as weights
+            ByteBuffer raw = map.duplicate();
+            raw.position((int) offset).limit((int) (offset + bytes));
+            raw = raw.slice().order(ByteOrder.LITTLE_ENDIAN);
+            switch (precision) {
+                case F32: tables[t] = raw.asFloatBuffer(); break;
+                case I16: tables[t] = raw.asShortBuffer(); break;
+                default: tables[t] = raw.asDoubleBuffer(); break;
+            }
+        }
+
+        net.tuples.clear();
+        java.util.Collections.addAll(net.tuples, tuples);
+        net.alpha = alpha;
+        net.gamma = gamma;
+        net.wEmpty = wEmpty;
+        net.wSnake = wSnake;
+        net.wMerge = wMerge;
+        net.wDisorder = wDisorder;
+        net.totalEpisodes = totalEpisodes;
+        net.bestTop1Avg = bestTop1;
+        net.bestOverallAvg = bestOverall;
+        net.bestBot10Avg = bestBot10;
+        net.useMappedTables(precision, tables, scales);
+    }
+
+    // ============== HELPERS ==============
+
+    private static WeightPrecision precisionOf(int bytesPerWeight) throws IOException {
+        for (WeightPrecision p : WeightPrecision.values()) {
+            if (p.bytesPerWeight == bytesPerWeight) return p;
+        }
+        throw new IOException("Unknown weight size " + bytesPerWeight);
+    }
+
+    private static long align(long offset) {
+        return (offset + PAGE_SIZE - 1) & -PAGE_SIZE;
+    }
+
+    private static void writeFully(FileChannel ch, ByteBuffer buf) throws IOException {
+        while (buf.hasRemaining()) ch.write(buf);
+    }
+}
@@ -0,0 +1,767 @@
+package com.example.threesclone;
+
+import java.io.*;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+public class Game {
+    // Packed board (see BitBoard). Tile[][] is only built for the UI via getBoard()
+    private long board = BitBoard.EMPTY;
+    public boolean gameOver = false;
+    public int score = 0;
+    public int numMove = 0;
+
+    // Hint system
+    public int futureValue = 0;
+    public List<Integer> hints = new ArrayList<>();
+
+    private PseudoList numbers;
+    private PseudoList special;
+    private final GameRandom rng;
+    private final int[] startCells = new int[16];
+
+    // AI Brain (read-only unless a trainer is attached)
+    public NTupleNetwork brain;
+    private WeightPrecision brainPrecision = WeightPrecision.F64;
+    public PrecisionDrift brainDrift; // drift vs. f64 of the last brain.dat conversion, null if none ran
+    private final ModelSource models;
+
+    // Training: every game is recorded; with a trainer it is learned from at game over
+    private final EpisodeBuffer episode = new EpisodeBuffer();
+    private NTupleTrainer trainer;
+    public boolean trainOnGameOver = true;
+    private long seenTrainingVersion;
+    private TrajectoryLog.Writer recorder; // optional move log (null = off)
+    private int recordedMoves;             // moves of the current game given to the recorder
+    
+    // Evaluation Mode: ALWAYS EXPECTIMAX (Q = R + gamma * V)
+    public double gamma = 0.995; // Default if brain not loaded
+
+    // Search settings (Expectimax depth in moves; budgets: 0 = unlimited)
+    public int searchDepth = 1;
+    public long searchNodeBudget = 0;
+    public long searchTimeBudgetMillis = 0;
+    public boolean parallelSearch = true; // split the root over all cores (depth >= 2)
+    public boolean symmetryCache = false; // share leaf predictions across the 8 symmetric boards
+    public int maxSearchDepth = 8;        // deepest iteration of getBestMove(timeBudgetMillis)
+    private ExpectimaxSearch search;
+    private ParallelSearch parallel;      // created on first use
+    private final TranspositionTable transpositionTable = new TranspositionTable();
+    private CanonicalCache predictCache;  // created with the brain
+
+    // Q-values of the current position, shared by getBestMove and getMoveConfidence
+    private final double[] qValues = new double[4];
+    private long qBoard, qNodeBudget, qTimeBudget;
+    private int qFuture, qNumMove, qDepth;
+    private boolean qSafe, qSym, qParallel, qValid;
+    private final double[] timedQValues = new double[4];
+    private int lastSearchDepth;
+
+    // Consts
+    private static final String LOG_TAG = "AI_LOAD";
+    private static final int K_NUMBER_RANDOMNESS = DeckState.NUMBER_COPIES;
+    private static final int K_SPECIAL_RARENESS = DeckState.SPECIAL_BLANKS;
+    private static final int K_START_SPAWN_NUMBERS = 9;
+    private static final List<Integer> DEFAULT_HINTS = java.util.Arrays.asList(1, 2, 3);
+
+    public Game(ModelSource models) {
+        this(models, GameRandom.unseeded());
+    }
+
+    // All randomness (decks, start tiles, spawn rows, bonus ranks) comes from rng:
+    // same seed, same games. Give every thread its own stream (GameRandom.split)
+    public Game(ModelSource models, GameRandom rng) {
+        this.models = models;
+        this.rng = rng;
+        loadBrain(); // Load saved brain if exists
+        initGame();
+    }
+
+    // Headless: share an already loaded brain, nothing is read from disk
+    public Game(NTupleNetwork brain, GameRandom rng) {
+        this.models = ModelSource.none();
+        this.rng = rng;
+        setBrain(brain);
+        initGame();
+    }
+
+    public void initGame() {
+        endRecordedGame(false); // a game abandoned by a reset
+        score = 0;
+        numMove = 0;
+        gameOver = false;
+        gameOver = false;
+
+        // Init Decks (built once, refilled in place for every new game)
+        if (numbers == null) {
+            numbers = new PseudoList(K_NUMBER_RANDOMNESS, rng);
+            numbers.add(1); numbers.add(2); numbers.add(3);
+
+            special = new PseudoList(1, rng);
+            special.add(1);
+            for(int i=0; i<K_SPECIAL_RARENESS; i++) special.add(0);
+        }
+        numbers.generateList(); numbers.shuffle();
+        special.generateList(); special.shuffle();
+
+        // Init Empty Board
+        board = BitBoard.EMPTY;
+
+        // Spawn initial tiles on distinct random cells (partial Fisher-Yates)
+        for(int i=0; i<16; i++) startCells[i] = i;
+        for(int i=0; i<K_START_SPAWN_NUMBERS; i++) {
+            int j = i + rng.nextInt(16 - i);
+            int idx = startCells[j];
+            startCells[j] = startCells[i];
+            startCells[i] = idx;
+            board = BitBoard.set(board, idx, BitBoard.codeOf(numbers.getNext()));
+        }
+
+        // Setup initial future
+        futureValue = getNextValue();
+        hints = predictFuture();
+        episode.start(board);
+    }
+
+    // --- Board Access (UI boundary) ---
+    public Tile[][] getBoard() {
+        return BitBoard.toTiles(board);
+    }
+
+    public long getBoardBits() {
+        return board;
+    }
+
+    // --- Core Logic Move ---
+    public boolean move(Direction dir) {
+        if (gameOver) return false;
+        if (!canMove(dir)) return false;
+
+        int scoreBefore = score; // Lưu điểm trước khi đi
+        int rot = getRotationsNeeded(dir);
+
+        // 1. Rotate to align with LEFT
+        long rotated = BitBoard.rotate(board, rot);
+
+        // 2. Shift Left Logic
+        long shifted = shiftRows(rotated, sim);
+        int movedRows = sim.movedRows;
+
+        // 3. Spawn Logic
+        if (movedRows != 0) {
+            int targetRow = nthMovedRow(movedRows, rng.nextInt(Integer.bitCount(movedRows)));
+            int valToSpawn = getActualSpawnValue();
+            shifted = BitBoard.set(shifted, targetRow, 3, BitBoard.codeOf(valToSpawn));
+            long boardBefore = board;
+
+            // Rotate back để hình ảnh bàn cờ đúng chiều
+            board = BitBoard.rotate(shifted, 4 - rot);
+
+            numMove++;
+            EngineMetrics.increment(EngineMetrics.Counter.MOVES);
+            futureValue = getNextValue();
+            hints = predictFuture();
+            calculateScore(); // Cập nhật điểm số mới
+            
+            // --- GHI LỊCH SỬ ---
+            int rewardThisStep = score - scoreBefore; // Điểm vừa kiếm được
+            episode.add(rewardThisStep, board);
+            if (recorder != null) {
+                // Spawn cell in board coordinates: rotate the marker back with the board
+                int cell = Long.numberOfTrailingZeros(BitBoard.rotate(BitBoard.set(0L, targetRow, 3, 0xF), 4 - rot)) >> 2;
+                recorder.record(boardBefore, dir, cell, BitBoard.codeOf(valToSpawn), rewardThisStep);
+                recordedMoves++;
+            }
+            
+            checkGameOver();
+            if (gameOver) {
+                episode.markTerminal();
+                if (trainer != null && trainOnGameOver) trainer.submit(episode);
+                endRecordedGame(true);
+            }
+            return true;
+        }
+        // Nếu không move được thì board giữ nguyên (chỉ xoay bản sao)
+        return false;
+    }
+
+    // Index of the k-th moved row (rows are a bitmask, lowest row first)
+    private static int nthMovedRow(int movedRows, int k) {
+        for (int r = 0; r < 4; r++) {
+            if ((movedRows & (1 << r)) != 0 && k-- == 0) return r;
+        }
+        return -1;
+    }
+
+    public boolean canMove(Direction dir) {
+        return MoveTable.canMoveLeft(BitBoard.rotate(board, getRotationsNeeded(dir)));
+    }
+
+    private int getRotationsNeeded(Direction dir) {
+        return BitBoard.rotationsToLeft(dir);
+    }
+
+    // --- Hint & Spawn Logic ---
+    private int getNextValue() {
+        boolean isBonus = false;
+        if (numMove > DeckState.BONUS_AFTER_MOVES) {
+            int val = special.getNext();
+            if (val == 1) isBonus = true;
+        }
+        if (isBonus) {
+            int maxRank = getHighestRank();
+            int num = Math.max(maxRank - 3, 0);
+            if (num < 2) { } 
+            else {
+                if (num < 4) return getValueFromRank(num);
+                else {
+                    int r = 4 + rng.nextInt(num - 4 + 1);
+                    return getValueFromRank(r);
+                }
+            }
+        }
+        return numbers.getNext();
+    }
+
+    public List<Integer> predictFuture() {
+        List<Integer> list = new ArrayList<>();
+        if (futureValue <= 3) {
+            list.add(futureValue);
+        } else {
+            int rank = getRankFromValue(futureValue);
+            int num = Math.min(rank - 1, 3);
+            for (int i = 0; i < num; i++) {
+                int rIdx = (rank - 1) - i;
+                if (rIdx < 1) rIdx = 1;
+                list.add(getValueFromRank(rIdx + 1));
+            }
+            Collections.sort(list);
+        }
+        return list;
+    }
+
+    private int getActualSpawnValue() {
+        if (futureValue > 3) {
+            int rank = getRankFromValue(futureValue);
+            int minR = Math.max(2, rank - 2);
+            int actualRank = minR + rng.nextInt(rank - minR + 1);
+            return getValueFromRank(actualRank);
+        }
+        return futureValue;
+    }
+
+    // --- Utils ---
+    private int getHighestRank() {
+        return BitBoard.rankOf(BitBoard.maxCode(board));
+    }
+    private int getValueFromRank(int rank) { return 3 * (int)Math.pow(2, rank - 1); }
+    private int getRankFromValue(int val) {
+        if (val <= 2) return 0;
+        return (int) (Math.log(val / 3.0) / Math.log(2)) + 1;
+    }
+    private void calculateScore() {
+        score = BitBoard.score(board);
+    }
+
+    // --- AI Logic & PBRS ---
+
+    /**
+     * Calculate Shaping Reward using PBRS formula
+     * F(s,s') = gamma * TotalValue(s') - TotalValue(s)
+     */
+    public double calculateMoveReward(double phiOld, double phiNew) {
+        double gamma = (brain != null) ? brain.gamma : 0.995;
+        return (gamma * phiNew) - phiOld;
+    }
+    
+    /**
+     * Calculate Move Quality for a given board state
+     * Q(s,a) = Base Reward + gamma * TotalValue(s')
+     * This is what we display to teach the player
+     */
+    public double getMoveQuality(double scoreGain, Tile[][] newBoard) {
+        return getMoveQuality(scoreGain, BitBoard.fromTiles(newBoard));
+    }
+
+    public double getMoveQuality(double scoreGain, long newBoard) {
+        if (brain == null) return scoreGain;
+        double gamma = brain.gamma;
+        double futureValue = brain.getTotalValue(newBoard);
+        return scoreGain + (gamma * futureValue);
+    }
+
+    // --- EXPECTIMAX MOVE EVALUATION (Fair AI - No Peeking) ---
+    
+    // Result holder for simulation (reused, Game is single-threaded)
+    private static class SimulationResult {
+        double totalScoreGain = 0.0;
+        int movedRows = 0; // bitmask, bit r set if row r moved
+    }
+
+    private final SimulationResult sim = new SimulationResult();
+
+    // Shift every row of an (already rotated) board to the LEFT: one MoveTable lookup per row
+    private static long shiftRows(long rotated, SimulationResult result) {
+        long shifted = 0L;
+        result.totalScoreGain = 0.0;
+        result.movedRows = 0;
+        for (int r = 0; r < 4; r++) {
+            long entry = MoveTable.entry(BitBoard.getRow(rotated, r));
+            if (MoveTable.moved(entry)) {
+                result.totalScoreGain += MoveTable.gain(entry);
+                result.movedRows |= 1 << r;
+            }
+            shifted |= (long) MoveTable.shiftedRow(entry) << (r << 4);
+        }
+        return shifted;
+    }
+    
+    /**
+     * Evaluate a move using Expectimax.
+     * Formula: Q(s,a) = Immediate Reward (R) + gamma * Expected Future Value (V)
+     * @param dir Direction to evaluate
+     * @return Move Quality (Q), or -Double.MAX_VALUE if move is invalid
+     */
+    // Toggle for Minimax (Safe) vs Expectimax (Avg)
+    public boolean useSafeMinimax = false;
+
+    public double evaluateMove(Direction dir) {
+        if (brain == null) return 0.0;
+        if (useSafeMinimax) {
+            return evaluateMoveSafe(dir);
+        } else {
+            return evaluateMoveExpectimax(dir);
+        }
+    }
+
+    /**
+     * Minimax Safe Policy: Q = R + gamma * min(V_outcomes)
+     * Robustness against worst-case spawn.
+     * Uses brain.predict() directly (No Potential), as requested.
+     */
+    public double evaluateMoveSafe(Direction dir) {
+        long t0 = EngineMetrics.start();
+        try {
+            return safeQuality(dir);
+        } finally {
+            EngineMetrics.stop(EngineMetrics.Latency.EVALUATE_MOVE, t0);
+        }
+    }
+
+    private double safeQuality(Direction dir) {
+        if (!canMove(dir)) return -Double.MAX_VALUE;
+        
+        int rot = getRotationsNeeded(dir);
+        long tempBoard = shiftRows(BitBoard.rotate(board, rot), sim);
+        if (sim.movedRows == 0) return -Double.MAX_VALUE;
+        
+        double R = sim.totalScoreGain;
+        double currentGamma = brain.gamma;
+        
+        List<Integer> possibleValues = hints.isEmpty() ? DEFAULT_HINTS : hints;
+            
+        double minQuality = Double.MAX_VALUE;
+        boolean hasOutcomes = false;
+
+        for (int row = 0; row < 4; row++) {
+            if ((sim.movedRows & (1 << row)) == 0) continue;
+            for (int h = 0; h < possibleValues.size(); h++) {
+                long evalBoard = BitBoard.set(tempBoard, row, 3, BitBoard.codeOf(possibleValues.get(h)));
+                long finalBoard = BitBoard.rotate(evalBoard, 4 - rot);
+                
+                // CORE LOGIC: min( R + gamma * V_predict )
+                // Note: Using predict() directly to exclude Potential, per safe policy requirements
+                double futureV = brain.predict(finalBoard);
+                double quality = R + (currentGamma * futureV);
+                
+                if (quality < minQuality) {
+                    minQuality = quality;
+                }
+                hasOutcomes = true;
+            }
+        }
+        
+        return hasOutcomes ? minQuality : -Double.MAX_VALUE;
+    }
+
+    /**
+     * Expectimax: Q = R + gamma * E[V_outcomes], searched searchDepth moves deep.
+     * searchDepth = 1 is the original one-ply average over (moved rows x hints).
+     * Leaves use getV() (potential + predict).
+     */
+    public double evaluateMoveExpectimax(Direction dir) {
+        if (!canMove(dir)) return -Double.MAX_VALUE;
+        long t0 = EngineMetrics.start();
+        double q = configuredSearch().evaluateMove(board, dir, futureValue, getDeckState());
+        EngineMetrics.stop(EngineMetrics.Latency.EVALUATE_MOVE, t0);
+        return q;
+    }
+    
+    public Direction getBestMove() {
+        Direction bestDir = null;
+        double bestValue = -Double.MAX_VALUE;
+        
+        long t0 = EngineMetrics.start();
+        double[] qValues = computeQValues();
+        EngineMetrics.stop(EngineMetrics.Latency.BEST_MOVE, t0);
+        for (Direction dir : Direction.values()) {
+            double value = qValues[dir.ordinal()];
+            if (value > bestValue) {
+                bestValue = value;
+                bestDir = dir;
+            }
+        }
+        return bestDir;
+    }
+
+    /**
+     * Strongest move found within timeBudgetMillis (UI frame or autoplay budget): iterative
+     * deepening from depth 1 up to maxSearchDepth, also bounded by searchNodeBudget.
+     * Single-threaded; depth 1 always completes, even past the budget.
+     * A budget <= 0 has no deadline to stop at, so it searches depth 1 only.
+     * Safe minimax has no deeper search and falls back to getBestMove().
+     */
+    public Direction getBestMove(long timeBudgetMillis) {
+        if (brain == null || useSafeMinimax) return getBestMove();
+        syncTrainingVersion();
+
+        long t0 = EngineMetrics.start();
+        configuredSearch().setTimeBudgetMillis(timeBudgetMillis);
+        int maxDepth = timeBudgetMillis > 0 ? maxSearchDepth : 1;
+        int best = search.searchBestMove(board, futureValue, getDeckState(), maxDepth, timedQValues);
+        lastSearchDepth = search.getCompletedDepth();
+        EngineMetrics.recordDecision(search.getNodeCount());
+        EngineMetrics.stop(EngineMetrics.Latency.BEST_MOVE, t0);
+        return best < 0 ? null : Direction.values()[best];
+    }
+
+    // Depth fully searched by the last getBestMove(timeBudgetMillis)
+    public int getLastSearchDepth() {
+        return lastSearchDepth;
+    }
+
+    // Q for all 4 directions (indexed by ordinal), copy for the UI
+    public double[] getQValues() {
+        return computeQValues().clone();
+    }
+
+    // Evaluate the 4 root moves once per position; reused until the board or settings change
+    private double[] computeQValues() {
+        syncTrainingVersion();
+        if (qValid && qBoard == board && qFuture == futureValue && qNumMove == numMove
+                && qDepth == searchDepth && qSafe == useSafeMinimax && qSym == symmetryCache
+                && qNodeBudget == searchNodeBudget && qTimeBudget == searchTimeBudgetMillis
+                && qParallel == parallelSearch) {
+            EngineMetrics.increment(EngineMetrics.Counter.Q_CACHE_HITS);
+            return qValues;
+        }
+        EngineMetrics.increment(EngineMetrics.Counter.Q_CACHE_MISSES);
+
+        if (useSafeMinimax || brain == null) {
+            for (Direction dir : Direction.values()) qValues[dir.ordinal()] = evaluateMove(dir);
+        } else if (parallelSearch && searchDepth >= ParallelSearch.MIN_PARALLEL_DEPTH) {
+            configuredParallelSearch().evaluateMoves(board, futureValue, getDeckState(), qValues);
+            EngineMetrics.recordDecision(parallel.getNodeCount());
+        } else {
+            // One budget for the whole decision
+            configuredSearch().evaluateMoves(board, futureValue, getDeckState(), qValues);
+            EngineMetrics.recordDecision(search.getNodeCount());
+        }
+
+        qBoard = board;
+        qFuture = futureValue;
+        qNumMove = numMove;
+        qDepth = searchDepth;
+        qSafe = useSafeMinimax;
+        qSym = symmetryCache;
+        qNodeBudget = searchNodeBudget;
+        qTimeBudget = searchTimeBudgetMillis;
+        qParallel = parallelSearch;
+        qValid = true;
+        return qValues;
+    }
+
+    private void syncTrainingVersion() {
+        if (brain != null && brain.getTrainingVersion() != seenTrainingVersion) {
+            seenTrainingVersion = brain.getTrainingVersion();
+            dropSearchCaches(); // weights moved under the cached values
+        }
+    }
+
+    private ParallelSearch configuredParallelSearch() {
+        if (parallel == null) parallel = new ParallelSearch(brain);
+        parallel.setDepth(searchDepth);
+        parallel.setNodeBudget(searchNodeBudget);
+        parallel.setTimeBudgetMillis(searchTimeBudgetMillis);
+        parallel.setSymmetryCache(symmetryCache);
+        return parallel;
+    }
+
+    private ExpectimaxSearch configuredSearch() {
+        search.setDepth(searchDepth);
+        search.setNodeBudget(searchNodeBudget);
+        search.setTimeBudgetMillis(searchTimeBudgetMillis);
+        if (symmetryCache && predictCache == null) predictCache = new CanonicalCache(brain);
+        search.setPredictCache(symmetryCache ? predictCache : null);
+        return search;
+    }
+
+    // What the next hints are drawn from: deck contents and move count, packed (see DeckState)
+    public int getDeckState() {
+        return DeckState.of(numbers.count(1), numbers.count(2), numbers.count(3),
+                special.count(1), special.count(0), numMove);
+    }
+    
+    public String getEvalModeName() {
+        return "📊 EXPECTIMAX (R+γV)";
+    }
+
+    // GỌI HÀM NÀY KHI BẤM NÚT "TRAIN"
+    // GỌI HÀM NÀY KHI BẤM NÚT "TRAIN" - Chỉ train User Brain
+    // --- Brain Management (Read-Only) ---
+    
+    public void loadBrain() {
+        long t0 = EngineMetrics.start();
+        try {
+            loadBrainNow();
+        } finally {
+            EngineMetrics.stop(EngineMetrics.Latency.MODEL_LOAD, t0);
+        }
+    }
+
+    private void loadBrainNow() {
+        // Fast path: map the flat model (converted once from brain.dat)
+        try {
+            brain = loadFlatBrain();
+            if (brain != null) {
+                onBrainChanged();
+                return;
+            }
+        } catch (Exception e) {
+            // Fall back to decoding brain.dat
+            EngineLog.w(LOG_TAG, "Flat model unavailable: " + e.getMessage());
+        }
+        try (InputStream is = models.openModel()) {
+            // Priority: Load externally provided brain file (brain.dat)
+            brain = NTupleNetwork.forLoading();
+            brainDrift = brain.loadFromBinary(is, brainPrecision);
+            if (brain.numTables() == 0) brain = new NTupleNetwork(); // Empty brain.dat
+        } catch (FileNotFoundException e) {
+            brain = new NTupleNetwork(); // Create empty brain if no file found
+            brainDrift = null;
+        } catch (Exception e) {
+            EngineLog.e(LOG_TAG, "brain.dat could not be loaded", e);
+            brain = new NTupleNetwork();
+            brainDrift = null;
+        }
+        onBrainChanged();
+    }
+
+    // brain-f64.bin / brain-f32.bin / brain-i16.bin next to brain.dat, rebuilt when brain.dat is newer
+    private NTupleNetwork loadFlatBrain() throws Exception {
+        File dir = models.cacheDir();
+        File source = models.modelFile();
+        if (dir == null || source == null) return null;
+        File flat = new File(dir, "brain-" + brainPrecision.name().toLowerCase(java.util.Locale.ROOT) + ".bin");
+        if (source.exists() && (!flat.exists() || flat.lastModified() < source.lastModified())) {
+            brainDrift = FlatModel.convert(source, flat, brainPrecision);
+        } else {
+            brainDrift = null;
+        }
+        if (!flat.exists()) return null;
+
+        NTupleNetwork net = NTupleNetwork.forLoading();
+        net.loadFromFlat(flat);
+        return net;
+    }
+
+    /**
+     * Keep the brain's weights as f64, f32 or int16 (2-4x less memory).
+     * Converts the loaded brain in place; later loadBrain() calls use the same precision.
+     * A memory-mapped brain (the default with a cache dir) is copied to heap, so F64 / F32
+     * make it trainable: call this before attaching an NTupleTrainer.
+     * @return prediction drift vs. the previous precision
+     */
+    public PrecisionDrift setBrainPrecision(WeightPrecision precision) {
+        brainPrecision = precision;
+        brainDrift = brain.setPrecision(precision);
+        onBrainChanged();
+        return brainDrift;
+    }
+
+    // Use an already loaded network (shared by many games in bulk runs, benchmarks).
+    // Read-only use is thread-safe, so one brain can serve games on different threads.
+    public void setBrain(NTupleNetwork network) {
+        brain = network;
+        brainPrecision = network.getPrecision();
+        brainDrift = null;
+        onBrainChanged();
+    }
+
+    public WeightPrecision getBrainPrecision() {
+        return brainPrecision;
+    }
+
+    private void onBrainChanged() {
+        // Cached afterstate values belong to the previous brain
+        dropSearchCaches();
+        if (trainer != null && trainer.getBrain() != brain) trainer = null;
+        predictCache = null;
+        search = new ExpectimaxSearch(brain);
+        search.setTranspositionTable(transpositionTable);
+    }
+
+    private void dropSearchCaches() {
+        transpositionTable.clear();
+        if (predictCache != null) predictCache.clear();
+        qValid = false;
+        if (parallel != null) {
+            parallel.shutdown();
+            parallel = null;
+        }
+    }
+
+    // --- Training ---
+
+    /**
+     * Attach a trainer for the current brain (null = read-only again). With trainOnGameOver
+     * every finished game is queued on the trainer's background thread. A mapped brain
+     * needs setBrainPrecision(F64 or F32) first.
+     */
+    public void setTrainer(NTupleTrainer trainer) {
+        if (trainer != null && trainer.getBrain() != brain) {
+            throw new IllegalArgumentException("Trainer belongs to another brain");
+        }
+        this.trainer = trainer;
+    }
+
+    public NTupleTrainer getTrainer() {
+        return trainer;
+    }
+
+    // The game so far (start board, then one board + reward per move)
+    public EpisodeBuffer getEpisode() {
+        return episode;
+    }
+
+    // Queue the game so far (e.g. an unfinished one) for training; null without a trainer
+    public java.util.concurrent.Future<Double> trainOnEpisode() {
+        if (trainer == null || episode.size() == 0) return null;
+        return trainer.submit(episode);
+    }
+
+    // --- Recording ---
+
+    /**
+     * Log every move of every game from now on (null = stop). The game in progress is logged
+     * from its next move; the caller owns the writer and closes it.
+     */
+    public void setRecorder(TrajectoryLog.Writer writer) {
+        endRecordedGame(false);
+        recorder = writer;
+        recordedMoves = 0;
+    }
+
+    private void endRecordedGame(boolean terminal) {
+        if (recorder == null || recordedMoves == 0) return;
+        try {
+            recorder.endGame(board, score, terminal);
+        } catch (IOException e) {
+            EngineLog.e(LOG_TAG, "Trajectory log failed, recording stopped", e);
+            recorder = null;
+        }
+        recordedMoves = 0;
+    }
+
+    // Hit / miss counters of the search cache
+    public TranspositionTable getTranspositionTable() {
+        return transpositionTable;
+    }
+
+    // Hit / miss counters of the symmetry cache (null until symmetryCache was used)
+    public CanonicalCache getPredictCache() {
+        return predictCache;
+    }
+    
+    // Writes the current weights (a trainer may still be updating them). A brain.dat on disk
+    // is replaced atomically, so a crash mid-save keeps the previous model
+    public void saveBrain() {
+        File file = models.modelFile();
+        try {
+            if (file != null) {
+                AtomicFiles.write(file, brain::exportToBinary);
+                return;
+            }
+            try (OutputStream os = models.createModel()) {
+                brain.exportToBinary(os);
+            }
+        } catch (Exception e) {
+            EngineLog.e(LOG_TAG, "brain.dat could not be saved", e);
+        }
+    }
+
+    private void checkGameOver() {
+        if (canMove(Direction.UP) || canMove(Direction.DOWN) ||
+            canMove(Direction.LEFT) || canMove(Direction.RIGHT)) {
+            gameOver = false;
+        } else {
+            gameOver = true;
+        }
+    }
+
+    public double getMoveConfidence(Direction chosenDir) {
+        double maxQ = -Double.MAX_VALUE;
+        double minQ = Double.MAX_VALUE;
+
+        // 1. Tính Q cho 4 hướng (dùng lại kết quả của getBestMove nếu cùng thế cờ)
+        double[] qValues = computeQValues();
+        for (int i = 0; i < 4; i++) {
+            if (qValues[i] != -Double.MAX_VALUE) {
+                if (qValues[i] > maxQ) maxQ = qValues[i];
+                if (qValues[i] < minQ) minQ = qValues[i];
+            }
+        }
+
+        // 2. Tính xem hướng đã chọn chiếm bao nhiêu % trong tổng "độ tốt"
+        double chosenQ = qValues[chosenDir.ordinal()];
+        if (chosenQ == -Double.MAX_VALUE) return 0.0;
+
+        double sumDiff = 0.0;
+        for (double q : qValues) {
+            if (q != -Double.MAX_VALUE) sumDiff += (q - minQ + 1);
+        }
+
+        return (sumDiff > 0) ? (chosenQ - minQ + 1) / sumDiff : 0.0;
+    }
+
+    // --- BỔ SUNG LOGIC POTENTIAL (EMPTY & SNAKE) ---
+    // Các hàm này đã được chuyển sang NTupleNetwork
+    // Giữ lại để backward compatibility nếu cần
+
+    public double calculateEmpty(Tile[][] boardState) {
+        return brain != null ? brain.calculateEmpty(boardState) : 0.0;
+    }
+
+    public double calculateSnake(Tile[][] boardState) {
+        return brain != null ? brain.calculateSnake(boardState) : 0.0;
+    }
+
+    /**
+     * HÀM TỔNG HỢP V(s): Sử dụng công thức từ Rust
+     * V(s) = Brain Prediction + Composite Potential
+     * Composite Potential = (w_empty * phi_empty) + (w_snake * phi_snake) 
+     *                     + (w_merge * phi_merge) - (w_disorder * phi_disorder)
+     */
+    public double getV(Tile[][] boardState) {
+        if (brain == null) return 0.0;
+        
+        // Delegate to NTupleNetwork which has the complete formula
+        return brain.getTotalValue(boardState);
+    }
+
+    public double getV(long boardState) {
+        if (brain == null) return 0.0;
+        return brain.getTotalValue(boardState);
+    }
+}
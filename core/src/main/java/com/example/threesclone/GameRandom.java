@@ -0,0 +1,64 @@
+package com.example.threesclone;
+
+import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * The randomness a game needs: uniform ints below a bound (deck shuffles, start cells,
+ * spawn rows, bonus ranks). Small on purpose so decks and games can run on any generator:
+ * Xoshiro256 by default, a java.util.Random for old seeded runs.
+ *
+ * Streams: split() hands out an independent generator, so every worker (or game) owns
+ * its stream - reproducible from one seed and never contended between threads.
+ */
+public interface GameRandom {
+
+    // Uniform in [0, bound), bound > 0
+    int nextInt(int bound);
+
+    long nextLong();
+
+    // New independent stream; advances this one
+    default GameRandom split() {
+        return new Xoshiro256(nextLong());
+    }
+
+    static GameRandom seeded(long seed) {
+        return new Xoshiro256(seed);
+    }
+
+    // Unpredictable seed (new games in the app)
+    static GameRandom unseeded() {
+        return new Xoshiro256(ThreadLocalRandom.current().nextLong());
+    }
+
+    // Same draws as the Random (Collections.shuffle / nextInt sequences are unchanged)
+    static GameRandom of(Random random) {
+        return new GameRandom() {
+            @Override
+            public int nextInt(int bound) {
+                return random.nextInt(bound);
+            }
+
+            @Override
+            public long nextLong() {
+                return random.nextLong();
+            }
+        };
+    }
+
+    // Per-thread generator, for decks without their own
+    static GameRandom shared() {
+        return new GameRandom() {
+            @Override
+            public int nextInt(int bound) {
+                return ThreadLocalRandom.current().nextInt(bound);
+            }
+
+            @Override
+            public long nextLong() {
+                return ThreadLocalRandom.current().nextLong();
+            }
+        };
+    }
+}
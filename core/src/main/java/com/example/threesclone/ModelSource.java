@@ -0,0 +1,54 @@
+package com.example.threesclone;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * Where Game reads (and saves) brain.dat. Keeps the engine free of android.content.Context:
+ * the app passes an AndroidModelSource, JVM tools a FileModelSource.
+ */
+public interface ModelSource {
+
+    /**
+     * brain.dat for reading.
+     * @throws FileNotFoundException when there is no model yet
+     */
+    InputStream openModel() throws IOException;
+
+    // brain.dat for writing (Game.saveBrain, which replaces modelFile() atomically when it has one)
+    OutputStream createModel() throws IOException;
+
+    // brain.dat as a plain file, or null if it has none (then the flat-model cache is skipped)
+    File modelFile();
+
+    // Directory for derived files (brain-<precision>.bin), or null for no cache
+    File cacheDir();
+
+    // No model: Game starts with an empty brain
+    static ModelSource none() {
+        return new ModelSource() {
+            @Override
+            public InputStream openModel() throws IOException {
+                throw new FileNotFoundException("No model source");
+            }
+
+            @Override
+            public OutputStream createModel() throws IOException {
+                throw new IOException("No model source");
+            }
+
+            @Override
+            public File modelFile() {
+                return null;
+            }
+
+            @Override
+            public File cacheDir() {
+                return null;
+            }
+        };
+    }
+}
@@ -0,0 +1,84 @@
+package com.example.threesclone;
+
+/**
+ * Precomputed row transitions for the Threes shift rule.
+ *
+ * Every 16-bit packed row (4 cells x 4-bit codes, see BitBoard) maps to one entry:
+ * - bits  0..15 : row after shifting LEFT by one step
+ * - bit   16    : 1 if the row moved
+ * - bits 32..63 : score gain of the shift (score(new row) - score(old row))
+ *
+ * Move execution, legality and reward then cost one lookup per row.
+ * Other directions rotate the board to LEFT first (BitBoard.rotate).
+ */
+public final class MoveTable {
+
+    private static final int ROWS = 1 << 16;
+    private static final long MOVED_BIT = 1L << 16;
+
+    private static final long[] LEFT = new long[ROWS];
+    static {
+        for (int row = 0; row < ROWS; row++) {
+            int shifted = BitBoard.shiftRowLeft(row);
+            long entry = shifted;
+            if (shifted != row) {
+                entry |= MOVED_BIT;
+                entry |= (long) (BitBoard.rowScore(shifted) - BitBoard.rowScore(row)) << 32;
+            }
+            LEFT[row] = entry;
+        }
+    }
+
+    private MoveTable() {
+    }
+
+    // ============== PER-ROW ACCESS ==============
+
+    public static long entry(int row) {
+        return LEFT[row];
+    }
+
+    public static int shiftedRow(long entry) {
+        return (int) entry & 0xFFFF;
+    }
+
+    public static boolean moved(long entry) {
+        return (entry & MOVED_BIT) != 0;
+    }
+
+    public static int gain(long entry) {
+        return (int) (entry >> 32);
+    }
+
+    // ============== WHOLE BOARD (LEFT) ==============
+
+    public static long shiftLeft(long board) {
+        return (long) shiftedRow(LEFT[(int) board & 0xFFFF])
+             | (long) shiftedRow(LEFT[(int) (board >>> 16) & 0xFFFF]) << 16
+             | (long) shiftedRow(LEFT[(int) (board >>> 32) & 0xFFFF]) << 32
+             | (long) shiftedRow(LEFT[(int) (board >>> 48) & 0xFFFF]) << 48;
+    }
+
+    // Bitmask of rows that move when shifting LEFT (bit r = row r)
+    public static int movedRows(long board) {
+        return (int) ((LEFT[(int) board & 0xFFFF] >>> 16) & 1)
+             | (int) ((LEFT[(int) (board >>> 16) & 0xFFFF] >>> 15) & 2)
+             | (int) ((LEFT[(int) (board >>> 32) & 0xFFFF] >>> 14) & 4)
+             | (int) ((LEFT[(int) (board >>> 48) & 0xFFFF] >>> 13) & 8);
+    }
+
+    // Total score gain of shifting the board LEFT
+    public static int gainLeft(long board) {
+        return gain(LEFT[(int) board & 0xFFFF])
+             + gain(LEFT[(int) (board >>> 16) & 0xFFFF])
+             + gain(LEFT[(int) (board >>> 32) & 0xFFFF])
+             + gain(LEFT[(int) (board >>> 48) & 0xFFFF]);
+    }
+
+    public static boolean canMoveLeft(long board) {
+        return ((LEFT[(int) board & 0xFFFF]
+               | LEFT[(int) (board >>> 16) & 0xFFFF]
+               | LEFT[(int) (board >>> 32) & 0xFFFF]
+               | LEFT[(int) (board >>> 48) & 0xFFFF]) & MOVED_BIT) != 0;
+    }
+}
@@ -0,0 +1,264 @@
+package com.example.threesclone;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Minimal streaming MessagePack reader for model files.
+ *
+ * Reads through one fixed buffer straight from the InputStream (the file is never held in
+ * memory as a whole). Weight arrays go through readDoubles, which decodes whole runs of
+ * float64 elements (0xcb + 8 bytes) out of the buffer at once.
+ * Also reads the little-endian ints / doubles of the legacy binary format.
+ */
+final class MsgPackReader {
+
+    private static final int DEFAULT_BUFFER = 1 << 16;
+    private static final int FLOAT64 = 0xcb;
+
+    private final InputStream in;
+    private final byte[] buf;
+    private final ByteBuffer be;  // big-endian view of buf (MessagePack)
+    private final ByteBuffer le;  // little-endian view of buf (legacy format)
+    private int pos;
+    private int limit;
+
+    MsgPackReader(InputStream in) {
+        this(in, DEFAULT_BUFFER);
+    }
+
+    MsgPackReader(InputStream in, int bufferSize) {
+        this.in = in;
+        this.buf = new byte[Math.max(64, bufferSize)];
+        this.be = ByteBuffer.wrap(buf);
+        this.le = ByteBuffer.wrap(buf).order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    // ============== BUFFER ==============
+
+    // Next byte without consuming it, -1 at end of stream
+    int peek() throws IOException {
+        if (!fill(1)) return -1;
+        return buf[pos] & 0xFF;
+    }
+
+    // Little-endian int offset bytes ahead, without consuming; 0 if the stream ends first
+    int peekIntLE(int offset) throws IOException {
+        if (!fill(offset + 4)) return 0;
+        return le.getInt(pos + offset);
+    }
+
+    // Make sure n bytes are buffered; false if the stream ends first
+    private boolean fill(int n) throws IOException {
+        if (limit - pos >= n) return true;
+        System.arraycopy(buf, pos, buf, 0, limit - pos);
+        limit -= pos;
+        pos = 0;
+        while (limit < n) {
+            int read = in.read(buf, limit, buf.length - limit);
+            if (read < 0) return false;
+            limit += read;
+        }
+        return true;
+    }
+
+    private void require(int n) throws IOException {
+        if (!fill(n)) throw new EOFException("Unexpected end of model file");
+    }
+
+    private int readByte() throws IOException {
+        require(1);
+        return buf[pos++] & 0xFF;
+    }
+
+    private int readShortBE() throws IOException {
+        require(2);
+        int v = be.getShort(pos) & 0xFFFF;
+        pos += 2;
+        return v;
+    }
+
+    private long readIntBE() throws IOException {
+        require(4);
+        long v = be.getInt(pos) & 0xFFFFFFFFL;
+        pos += 4;
+        return v;
+    }
+
+    private long readLongBE() throws IOException {
+        require(8);
+        long v = be.getLong(pos);
+        pos += 8;
+        return v;
+    }
+
+    private void skipBytes(long n) throws IOException {
+        long buffered = Math.min(n, limit - pos);
+        pos += (int) buffered;
+        n -= buffered;
+        while (n > 0) {
+            int chunk = (int) Math.min(n, buf.length);
+            require(chunk);
+            pos += chunk;
+            n -= chunk;
+        }
+    }
+
+    // ============== MESSAGEPACK ==============
+
+    int readMapHeader() throws IOException {
+        int tag = readByte();
+        if ((tag & 0xF0) == 0x80) return tag & 0x0F;
+        if (tag == 0xde) return readShortBE();
+        if (tag == 0xdf) return checkedLength(readIntBE());
+        throw typeError("map", tag);
+    }
+
+    int readArrayHeader() throws IOException {
+        int tag = readByte();
+        if ((tag & 0xF0) == 0x90) return tag & 0x0F;
+        if (tag == 0xdc) return readShortBE();
+        if (tag == 0xdd) return checkedLength(readIntBE());
+        throw typeError("array", tag);
+    }
+
+    String readString() throws IOException {
+        int tag = readByte();
+        int len;
+        if ((tag & 0xE0) == 0xa0) len = tag & 0x1F;
+        else if (tag == 0xd9) len = readByte();
+        else if (tag == 0xda) len = readShortBE();
+        else if (tag == 0xdb) len = checkedLength(readIntBE());
+        else throw typeError("string", tag);
+
+        if (len > buf.length) throw new IOException("String too long: " + len);
+        require(len);
+        String s = new String(buf, pos, len, StandardCharsets.UTF_8);
+        pos += len;
+        return s;
+    }
+
+    long readLong() throws IOException {
+        int tag = readByte();
+        if (tag <= 0x7f) return tag;
+        if (tag >= 0xe0) return (byte) tag;
+        switch (tag) {
+            case 0xcc: return readByte();
+            case 0xcd: return readShortBE();
+            case 0xce: return readIntBE();
+            case 0xcf: return readLongBE();
+            case 0xd0: return (byte) readByte();
+            case 0xd1: return (short) readShortBE();
+            case 0xd2: return (int) readIntBE();
+            case 0xd3: return readLongBE();
+            default: throw typeError("integer", tag);
+        }
+    }
+
+    // Floats, plus integers (a trainer may write 0 as an int)
+    double readDouble() throws IOException {
+        int tag = peek();
+        if (tag == FLOAT64) {
+            pos++;
+            return Double.longBitsToDouble(readLongBE());
+        }
+        if (tag == 0xca) {
+            pos++;
+            return Float.intBitsToFloat((int) readIntBE());
+        }
+        return readLong();
+    }
+
+    /**
+     * Read n array elements into dst (after readArrayHeader).
+     * Runs of float64 are decoded straight from the buffer; anything else takes the slow path.
+     */
+    void readDoubles(double[] dst, int n) throws IOException {
+        int i = 0;
+        while (i < n) {
+            if (!fill(9) || buf[pos] != (byte) FLOAT64) {
+                dst[i++] = readDouble();
+                continue;
+            }
+            int end = Math.min(n, i + (limit - pos) / 9);
+            int p = pos;
+            while (i < end && buf[p] == (byte) FLOAT64) {
+                dst[i++] = be.getDouble(p + 1);
+                p += 9;
+            }
+            pos = p;
+        }
+    }
+
+    void skipValue() throws IOException {
+        long remaining = 1;
+        while (remaining-- > 0) {
+            int tag = readByte();
+            if (tag <= 0x7f || tag >= 0xe0) continue;                     // fixint
+            if ((tag & 0xF0) == 0x80) { remaining += 2L * (tag & 0x0F); continue; } // fixmap
+            if ((tag & 0xF0) == 0x90) { remaining += tag & 0x0F; continue; }        // fixarray
+            if ((tag & 0xE0) == 0xa0) { skipBytes(tag & 0x1F); continue; }          // fixstr
+            switch (tag) {
+                case 0xc0: case 0xc2: case 0xc3: break;                       // nil, bool
+                case 0xc4: case 0xd9: skipBytes(readByte()); break;           // bin8, str8
+                case 0xc5: case 0xda: skipBytes(readShortBE()); break;        // bin16, str16
+                case 0xc6: case 0xdb: skipBytes(readIntBE()); break;          // bin32, str32
+                case 0xc7: skipBytes(readByte() + 1); break;                  // ext8
+                case 0xc8: skipBytes(readShortBE() + 1); break;               // ext16
+                case 0xc9: skipBytes(readIntBE() + 1); break;                 // ext32
+                case 0xca: case 0xce: case 0xd2: skipBytes(4); break;
+                case 0xcb: case 0xcf: case 0xd3: skipBytes(8); break;
+                case 0xcc: case 0xd0: skipBytes(1); break;
+                case 0xcd: case 0xd1: skipBytes(2); break;
+                case 0xd4: skipBytes(2); break;                               // fixext 1..16
+                case 0xd5: skipBytes(3); break;
+                case 0xd6: skipBytes(5); break;
+                case 0xd7: skipBytes(9); break;
+                case 0xd8: skipBytes(17); break;
+                case 0xdc: remaining += readShortBE(); break;
+                case 0xdd: remaining += readIntBE(); break;
+                case 0xde: remaining += 2L * readShortBE(); break;
+                case 0xdf: remaining += 2L * readIntBE(); break;
+                default: throw typeError("value", tag);
+            }
+        }
+    }
+
+    // ============== LEGACY (little-endian) ==============
+
+    int readIntLE() throws IOException {
+        require(4);
+        int v = le.getInt(pos);
+        pos += 4;
+        return v;
+    }
+
+    void readDoublesLE(double[] dst, int n) throws IOException {
+        int i = 0;
+        while (i < n) {
+            require(8);
+            int end = Math.min(n, i + (limit - pos) / 8);
+            int p = pos;
+            while (i < end) {
+                dst[i++] = le.getDouble(p);
+                p += 8;
+            }
+            pos = p;
+        }
+    }
+
+    // ============== ERRORS ==============
+
+    private static int checkedLength(long len) throws IOException {
+        if (len > Integer.MAX_VALUE) throw new IOException("Length too large: " + len);
+        return (int) len;
+    }
+
+    private static IOException typeError(String expected, int tag) {
+        return new IOException(String.format("Expected %s, found MessagePack tag 0x%02x", expected, tag));
+    }
+}
@@ -0,0 +1,1373 @@
+package com.example.threesclone;
+
+import java.io.InputStream;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * N-Tuple Network for value approximation.
+ * SHARED SNAKE ARCHITECTURE - Compatible with Rust MessagePack format.
+ * 
+ * Key concepts:
+ * - 12 Snake Window positions (sliding 5-cell window on S-shaped path)
+ * - Each window has 8 symmetry variants (4 rotations × 2 mirrors)
+ * - All 8 variants SHARE the same weight table (weight sharing)
+ * - Total: 96 tuples, but only 12 weight tables
+ * 
+ * UPGRADED: All neural network computations use double (f64) precision
+ *
+ * Storage precision (see WeightPrecision): the 12 tables are kept as f64 in the weights
+ * list by default. setPrecision(F32 / I16) moves them into float / short tables
+ * (2-4x less memory) and empties the weights list. loadFromFlat maps a FlatModel file
+ * instead: predict then reads the page-cache backed buffers, with no copy on the heap.
+ *
+ * Thread safety: predict / getTotalValue only read the flattened lookup built by
+ * rebuildLookup() and never write instance state, so any number of threads may
+ * evaluate one shared network at the same time, with zero allocation per call.
+ * Training (update, NTupleTrainer, ParallelTrainer) writes the heap tables in place,
+ * without locks by default: concurrent predicts may read a mix of old and new weights.
+ */
+public class NTupleNetwork implements Serializable {
+    private static final long serialVersionUID = 5L; // Bumped version for f64 upgrade
+
+    // Max value code 0-14 (covers up to tile 6144)
+    private static final int MAX_VAL_CODE = 15;
+    private static final int TUPLE_SIZE = 5;
+    private static final int TABLE_SIZE = (int) Math.pow(MAX_VAL_CODE, TUPLE_SIZE); // 759375
+
+    // Sanity limits of the legacy binary format (table count, weights per table)
+    private static final int LEGACY_MAX_TABLES = 1000;
+    private static final int LEGACY_MAX_TABLE_SIZE = 1000000;
+    
+    // Pre-computed encoding map for fast lookup
+    private static final int[] ENCODE_MAP = new int[6145];
+    static {
+        ENCODE_MAP[0] = 0;
+        ENCODE_MAP[1] = 1;
+        ENCODE_MAP[2] = 2;
+        for (int v = 3; v <= 6144; v++) {
+            if (v % 3 == 0) {
+                ENCODE_MAP[v] = Math.min((int)(Math.log(v / 3.0) / Math.log(2)) + 3, 14);
+            }
+        }
+    }
+    
+    // Flattened lookup (rebuilt from tuples/weights, read-only during predict)
+    private transient int numTuples;
+    private transient int[] tupleShifts;   // bit shift of every tuple cell in a BitBoard, tuple after tuple
+    private transient int[] tupleOffsets;  // tuple t uses tupleShifts[tupleOffsets[t] .. tupleOffsets[t + 1])
+    private transient int[] tupleTables;   // weight table of tuple t
+    private transient double[][] tables;   // same arrays as the weights list
+    private transient int[] cellOffsets;   // tuples covering cell c: cellTuples[cellOffsets[c] .. cellOffsets[c + 1])
+    private transient int[] cellTuples;    // tuple ids, ascending
+    private transient int[] cellSteps;     // index change of that tuple per +1 on the cell's code
+    private transient boolean symmetric;   // tuples closed under the 8 board symmetries (see isSymmetric)
+    
+    // Reduced-precision storage (only one of f64 / f32 / i16 is populated)
+    private WeightPrecision precision = WeightPrecision.F64;
+    private float[][] tablesF32;
+    private short[][] tablesI16;
+    private double[] scalesI16;            // w = q * scale, one scale per table (also for mapped I16)
+    
+    // Memory-mapped storage (FlatModel): one read-only buffer per table, in the file's precision
+    private transient java.nio.DoubleBuffer[] mappedF64;
+    private transient java.nio.FloatBuffer[] mappedF32;
+    private transient java.nio.ShortBuffer[] mappedI16;
+    private transient boolean mapped;
+    
+    // Snake path (S-shaped traversal of 4x4 board)
+    private static final int[] SNAKE_PATH = {0, 1, 2, 3, 7, 6, 5, 4, 8, 9, 10, 11, 15, 14, 13, 12};
+    
+    /**
+     * TupleConfig - matches Rust struct
+     * indices: positions on board (e.g., [0,1,2,3,7])
+     * weightIndex: which weight table to use
+     */
+    public static class TupleConfig {
+        public int[] indices;
+        public int weightIndex;
+        
+        public TupleConfig(int[] indices, int weightIndex) {
+            this.indices = indices;
+            this.weightIndex = weightIndex;
+        }
+    }
+    
+    // Network structure - UPGRADED TO DOUBLE (f64)
+    public List<TupleConfig> tuples = new ArrayList<>();  // 96 snake variants
+    public List<double[]> weights = new ArrayList<>();    // Only 12 weight tables (f64, empty in F32/I16 mode)
+    public double alpha = 0.1;
+    public double gamma = 0.995;
+    
+    // Potential weights (loaded from MessagePack, used for PBRS) - UPGRADED TO DOUBLE
+    public double wEmpty = 0.0;
+    public double wSnake = 0.0;
+    public double wMerge = 0.0;
+    public double wDisorder = 0.0;
+    
+    // Training stats (loaded from Rust, for display/info only)
+    public long totalEpisodes = 0;
+    public double bestTop1Avg = 0.0;
+    public double bestOverallAvg = 0.0;
+    public double bestBot10Avg = 0.0;
+
+    public NTupleNetwork() {
+        this(true);
+    }
+
+    private NTupleNetwork(boolean allocateTables) {
+        addSharedSnake(allocateTables);
+        rebuildLookup();
+    }
+
+    /**
+     * Snake layout without weight tables, for a loader to fill (skips ~73 MB of zeros
+     * that the load would throw away). predict is unusable until a load succeeds.
+     */
+    public static NTupleNetwork forLoading() {
+        return new NTupleNetwork(false);
+    }
+    
+    /**
+     * Flatten tuples/weights into primitive arrays for predict().
+     * Called by every loader; call it yourself after editing the tuples or weights lists
+     * (writing into an existing weight table needs no rebuild).
+     */
+    public void rebuildLookup() {
+        int n = tuples.size();
+        int cells = 0;
+        for (TupleConfig tuple : tuples) cells += tuple.indices.length;
+
+        int[] shifts = new int[cells];
+        int[] offsets = new int[n + 1];
+        int[] tableOf = new int[n];
+        int p = 0;
+        for (int t = 0; t < n; t++) {
+            TupleConfig tuple = tuples.get(t);
+            offsets[t] = p;
+            for (int pos : tuple.indices) shifts[p++] = pos << 2;
+            tableOf[t] = tuple.weightIndex;
+        }
+        offsets[n] = p;
+
+        // Reverse map for incremental evaluation: cell -> covering tuples
+        int[] cellStart = new int[17];
+        for (int t = 0; t < n; t++) {
+            for (int pos : tuples.get(t).indices) cellStart[pos + 1]++;
+        }
+        for (int c = 0; c < 16; c++) cellStart[c + 1] += cellStart[c];
+        int[] fill = cellStart.clone();
+        int[] coverTuples = new int[cells];
+        int[] coverSteps = new int[cells];
+        for (int t = 0; t < n; t++) {
+            int[] indices = tuples.get(t).indices;
+            int step = 1;
+            for (int k = indices.length - 1; k >= 0; k--) {
+                int q = fill[indices[k]]++;
+                coverTuples[q] = t;
+                coverSteps[q] = step;
+                step *= MAX_VAL_CODE;
+            }
+        }
+
+        tupleShifts = shifts;
+        tupleOffsets = offsets;
+        tupleTables = tableOf;
+        cellOffsets = cellStart;
+        cellTuples = coverTuples;
+        cellSteps = coverSteps;
+        tables = weights.toArray(new double[0][]);
+        numTuples = n;
+        symmetric = tuplesClosedUnderSymmetry();
+
+        // Loaders fill the f64 list: that becomes the storage again
+        if (!weights.isEmpty()) {
+            precision = WeightPrecision.F64;
+            tablesF32 = null;
+            tablesI16 = null;
+            scalesI16 = null;
+            dropMapped();
+        }
+    }
+
+    private void readObject(java.io.ObjectInputStream in) throws java.io.IOException, ClassNotFoundException {
+        in.defaultReadObject();
+        rebuildLookup();
+    }
+
+    // ============== SNAKE GENERATION (Match Rust exactly) ==============
+
+    private void addSharedSnake(boolean allocateTables) {
+        // Sliding window of 5 cells on snake path
+        for (int i = 0; i <= SNAKE_PATH.length - TUPLE_SIZE; i++) {
+            // 1. Create weight table (Master) - NOW DOUBLE
+            if (allocateTables) weights.add(new double[TABLE_SIZE]);
+            int currentWeightId = i;
+            
+            // 2. Extract base indices from snake path
+            int[] baseIndices = new int[TUPLE_SIZE];
+            for (int j = 0; j < TUPLE_SIZE; j++) {
+                baseIndices[j] = SNAKE_PATH[i + j];
+            }
+            
+            // 3. Generate 8 symmetry variants (Slaves) pointing to same Master
+            addSymmetriesShared(baseIndices, currentWeightId);
+        }
+    }
+    
+    private void addSymmetriesShared(int[] baseTuple, int weightId) {
+        List<int[]> variants = new ArrayList<>();
+        int[] currentTuple = baseTuple.clone();
+        
+        // Generate 4 rotations (0°, 90°, 180°, 270°)
+        for (int rot = 0; rot < 4; rot++) {
+            // 1. Add current rotation
+            variants.add(currentTuple.clone());
+            
+            // 2. Add mirrored version of current rotation
+            int[] mirrored = new int[currentTuple.length];
+            for (int i = 0; i < currentTuple.length; i++) {
+                mirrored[i] = mirror(currentTuple[i]);
+            }
+            variants.add(mirrored);
+            
+            // 3. Rotate 90° for next iteration
+            int[] rotated = new int[currentTuple.length];
+            for (int i = 0; i < currentTuple.length; i++) {
+                rotated[i] = rotate90(currentTuple[i]);
+            }
+            currentTuple = rotated;
+        }
+        
+        // Deduplicate (some symmetric patterns produce duplicates)
+        List<int[]> unique = new ArrayList<>();
+        for (int[] v : variants) {
+            boolean isDuplicate = false;
+            for (int[] u : unique) {
+                if (arraysEqual(v, u)) {
+                    isDuplicate = true;
+                    break;
+                }
+            }
+            if (!isDuplicate) {
+                unique.add(v);
+            }
+        }
+        
+        // Add to tuples list
+        for (int[] v : unique) {
+            tuples.add(new TupleConfig(v, weightId));
+        }
+    }
+    
+    // Rotate 90° clockwise: (row, col) -> (col, 3 - row)
+    private int rotate90(int idx) {
+        int r = idx / 4;
+        int c = idx % 4;
+        return c * 4 + (3 - r);
+    }
+    
+    // Mirror horizontal: (row, col) -> (row, 3 - col)
+    private int mirror(int idx) {
+        int r = idx / 4;
+        int c = idx % 4;
+        return r * 4 + (3 - c);
+    }
+    
+    /**
+     * True if every rotation / mirror of every tuple is itself a tuple of the same table
+     * (the shared snake layout): predict is then invariant under the 8 board symmetries,
+     * up to summation order. See CanonicalCache.
+     */
+    public boolean isSymmetric() {
+        return symmetric;
+    }
+
+    private boolean tuplesClosedUnderSymmetry() {
+        java.util.Set<String> present = new java.util.HashSet<>();
+        for (TupleConfig t : tuples) present.add(t.weightIndex + ":" + java.util.Arrays.toString(t.indices));
+        for (TupleConfig t : tuples) {
+            int[] rotated = new int[t.indices.length];
+            int[] mirrored = new int[t.indices.length];
+            for (int i = 0; i < t.indices.length; i++) {
+                rotated[i] = rotate90(t.indices[i]);
+                mirrored[i] = mirror(t.indices[i]);
+            }
+            // Rotation and mirror generate all 8 symmetries
+            if (!present.contains(t.weightIndex + ":" + java.util.Arrays.toString(rotated))
+                    || !present.contains(t.weightIndex + ":" + java.util.Arrays.toString(mirrored))) {
+                return false;
+            }
+        }
+        return !tuples.isEmpty();
+    }
+
+    private boolean arraysEqual(int[] a, int[] b) {
+        if (a.length != b.length) return false;
+        for (int i = 0; i < a.length; i++) {
+            if (a[i] != b[i]) return false;
+        }
+        return true;
+    }
+
+    // ============== ENCODING ==============
+
+    public static int encodeTile(int value) {
+        if (value > 6144) return 14;
+        if (value < 0) return 0;
+        return ENCODE_MAP[value];
+    }
+
+    // ============== PREDICT (with weight sharing) - RETURNS DOUBLE ==============
+
+    public double predict(Tile[][] board) {
+        return predict(BitBoard.fromTiles(board));
+    }
+    
+    // Packed BitBoard: the hot path. Thread-safe, allocation-free
+    public double predict(long board) {
+        board = foldCode15(board);
+
+        if (mapped) {
+            switch (precision) {
+                case F32: return predictMappedF32(board);
+                case I16: return predictMappedI16(board);
+                default: return predictMappedF64(board);
+            }
+        }
+        switch (precision) {
+            case F32: return predictF32(board);
+            case I16: return predictI16(board);
+            default: return predictF64(board);
+        }
+    }
+
+    // Code 15 (12288) shares the 6144 slot, same as encodeTile
+    private static long foldCode15(long board) {
+        return board - (board & (board >>> 1) & (board >>> 2) & (board >>> 3) & 0x1111111111111111L);
+    }
+
+    // Index of tuple t into its weight table
+    // Table entries a tuple of this many cells can index (codes 0..14 per cell)
+    static long indexSpace(int cells) {
+        long n = 1;
+        for (int i = 0; i < cells; i++) n *= MAX_VAL_CODE;
+        return n;
+    }
+
+    private int tupleIndex(long board, int t) {
+        int[] shifts = tupleShifts;
+        int index = 0;
+        for (int p = tupleOffsets[t], end = tupleOffsets[t + 1]; p < end; p++) {
+            index = index * MAX_VAL_CODE + ((int) (board >>> shifts[p]) & 0xF);
+        }
+        return index;
+    }
+
+    private double predictF64(long board) {
+        int[] tableOf = tupleTables;
+        double[][] w = tables;
+        double sum = 0.0;
+        for (int t = 0, n = numTuples; t < n; t++) {
+            // Read from SHARED weight table
+            sum += w[tableOf[t]][tupleIndex(board, t)];
+        }
+        return sum;
+    }
+
+    private double predictF32(long board) {
+        int[] tableOf = tupleTables;
+        float[][] w = tablesF32;
+        double sum = 0.0;
+        for (int t = 0, n = numTuples; t < n; t++) {
+            sum += w[tableOf[t]][tupleIndex(board, t)];
+        }
+        return sum;
+    }
+
+    private double predictI16(long board) {
+        int[] tableOf = tupleTables;
+        short[][] w = tablesI16;
+        double[] scales = scalesI16;
+        double sum = 0.0;
+        for (int t = 0, n = numTuples; t < n; t++) {
+            int table = tableOf[t];
+            sum += w[table][tupleIndex(board, t)] * scales[table];
+        }
+        return sum;
+    }
+
+    // Mapped tables: absolute gets never move the buffer position, so this is thread-safe too
+    private double predictMappedF64(long board) {
+        int[] tableOf = tupleTables;
+        java.nio.DoubleBuffer[] w = mappedF64;
+        double sum = 0.0;
+        for (int t = 0, n = numTuples; t < n; t++) {
+            sum += w[tableOf[t]].get(tupleIndex(board, t));
+        }
+        return sum;
+    }
+
+    private double predictMappedF32(long board) {
+        int[] tableOf = tupleTables;
+        java.nio.FloatBuffer[] w = mappedF32;
+        double sum = 0.0;
+        for (int t = 0, n = numTuples; t < n; t++) {
+            sum += w[tableOf[t]].get(tupleIndex(board, t));
+        }
+        return sum;
+    }
+
+    private double predictMappedI16(long board) {
+        int[] tableOf = tupleTables;
+        java.nio.ShortBuffer[] w = mappedI16;
+        double[] scales = scalesI16;
+        double sum = 0.0;
+        for (int t = 0, n = numTuples; t < n; t++) {
+            int table = tableOf[t];
+            sum += w[table].get(tupleIndex(board, t)) * scales[table];
+        }
+        return sum;
+    }
+
+    // ============== INCREMENTAL PREDICT (single-cell change) ==============
+    //
+    // A chance child differs from its afterstate by one spawned tile. prepareIncremental
+    // caches the tuple indices and weights of the afterstate once; predictWithChange then
+    // only looks up the tuples covering the changed cell (30 of 96 in the snake layout)
+    // and re-adds the cached weights in predict's order, so results stay bit-identical.
+
+    public int tupleCount() {
+        return numTuples;
+    }
+
+    /**
+     * Cache the per-tuple indices and weights of a base board.
+     * @param indices  out, length >= tupleCount()
+     * @param partial  out, length >= tupleCount()
+     * @return predict(board)
+     */
+    public double prepareIncremental(long board, int[] indices, double[] partial) {
+        board = foldCode15(board);
+        int[] tableOf = tupleTables;
+        double sum = 0.0;
+        for (int t = 0, n = numTuples; t < n; t++) {
+            int index = tupleIndex(board, t);
+            double w = tupleWeight(tableOf[t], index);
+            indices[t] = index;
+            partial[t] = w;
+            sum += w;
+        }
+        return sum;
+    }
+
+    /**
+     * predict(BitBoard.set(board, cell, code)) using the cache of board.
+     * Thread-safe as long as each thread owns its indices / partial arrays.
+     */
+    public double predictWithChange(long board, int[] indices, double[] partial, int cell, int code) {
+        int oldCode = BitBoard.get(foldCode15(board), cell);
+        int delta = Math.min(code, MAX_VAL_CODE - 1) - oldCode;
+
+        int[] tableOf = tupleTables;
+        int[] covered = cellTuples;
+        int[] steps = cellSteps;
+        int k = cellOffsets[cell];
+        int end = cellOffsets[cell + 1];
+        int n = numTuples;
+        int next = k < end ? covered[k] : n;
+        double sum = 0.0;
+        for (int t = 0; t < n; t++) {
+            if (t == next) {
+                sum += tupleWeight(tableOf[t], indices[t] + delta * steps[k]);
+                k++;
+                next = k < end ? covered[k] : n;
+            } else {
+                sum += partial[t];
+            }
+        }
+        return sum;
+    }
+
+    // One weight exactly as the predict* loops read it
+    private double tupleWeight(int table, int index) {
+        if (mapped) {
+            switch (precision) {
+                case F32: return mappedF32[table].get(index);
+                case I16: return mappedI16[table].get(index) * scalesI16[table];
+                default: return mappedF64[table].get(index);
+            }
+        }
+        switch (precision) {
+            case F32: return tablesF32[table][index];
+            case I16: return tablesI16[table][index] * scalesI16[table];
+            default: return tables[table][index];
+        }
+    }
+
+    // Overload for flat board array of tile values
+    public double predict(int[] board16) {
+        long board = 0L;
+        for (int i = 0; i < 16; i++) {
+            board |= (long) BitBoard.codeOf(board16[i]) << (i << 2);
+        }
+        return predict(board);
+    }
+
+    // ============== BATCH PREDICT (structure of arrays) ==============
+    //
+    // Boards go through in blocks: for each tuple, the indices of the whole block are computed
+    // in one tight loop and then gathered from that tuple's table in a second one. The
+    // independent loads overlap their cache misses, and consecutive tuples share a table.
+    // Each board still sums its tuples in predict's order, so out[i] == predict(boards[i]).
+
+    private static final int BATCH_BLOCK = 256;
+
+    public void predictBatch(long[] boards, double[] out) {
+        predictBatch(boards, 0, boards.length, out, 0);
+    }
+
+    /**
+     * out[outOffset + i] = predict(boards[from + i]) for i in [0, count).
+     * Thread-safe; allocates one small scratch block per call.
+     */
+    public void predictBatch(long[] boards, int from, int count, double[] out, int outOffset) {
+        int block = Math.min(count, BATCH_BLOCK);
+        long[] folded = new long[block];
+        int[] index = new int[block];
+        int[] tableOf = tupleTables;
+        int[] shifts = tupleShifts;
+
+        for (int start = 0; start < count; start += BATCH_BLOCK) {
+            int n = Math.min(BATCH_BLOCK, count - start);
+            int base = outOffset + start;
+            for (int b = 0; b < n; b++) {
+                folded[b] = foldCode15(boards[from + start + b]);
+                out[base + b] = 0.0;
+            }
+
+            for (int t = 0, tuples = numTuples; t < tuples; t++) {
+                // Pass 1: indices of tuple t for the whole block
+                int p0 = tupleOffsets[t];
+                int p1 = tupleOffsets[t + 1];
+                for (int b = 0; b < n; b++) {
+                    long board = folded[b];
+                    int idx = 0;
+                    for (int p = p0; p < p1; p++) {
+                        idx = idx * MAX_VAL_CODE + ((int) (board >>> shifts[p]) & 0xF);
+                    }
+                    index[b] = idx;
+                }
+                // Pass 2: gather from its table
+                gatherAdd(tableOf[t], index, n, out, base);
+            }
+        }
+    }
+
+    // out[base + b] += weight(table, index[b]), exactly as tupleWeight reads it
+    private void gatherAdd(int table, int[] index, int n, double[] out, int base) {
+        if (mapped) {
+            switch (precision) {
+                case F32: {
+                    java.nio.FloatBuffer w = mappedF32[table];
+                    for (int b = 0; b < n; b++) out[base + b] += w.get(index[b]);
+                    return;
+                }
+                case I16: {
+                    java.nio.ShortBuffer w = mappedI16[table];
+                    double scale = scalesI16[table];
+                    for (int b = 0; b < n; b++) out[base + b] += w.get(index[b]) * scale;
+                    return;
+                }
+                default: {
+                    java.nio.DoubleBuffer w = mappedF64[table];
+                    for (int b = 0; b < n; b++) out[base + b] += w.get(index[b]);
+                    return;
+                }
+            }
+        }
+        switch (precision) {
+            case F32: {
+                float[] w = tablesF32[table];
+                for (int b = 0; b < n; b++) out[base + b] += w[index[b]];
+                return;
+            }
+            case I16: {
+                short[] w = tablesI16[table];
+                double scale = scalesI16[table];
+                for (int b = 0; b < n; b++) out[base + b] += w[index[b]] * scale;
+                return;
+            }
+            default: {
+                double[] w = tables[table];
+                for (int b = 0; b < n; b++) out[base + b] += w[index[b]];
+            }
+        }
+    }
+
+    // ============== WEIGHT STORAGE (F64 / F32 / I16) ==============
+
+    public WeightPrecision getPrecision() {
+        return precision;
+    }
+
+    public boolean isMapped() {
+        return mapped;
+    }
+
+    public int numTables() {
+        if (mapped) return scalesI16.length;
+        switch (precision) {
+            case F32: return tablesF32.length;
+            case I16: return tablesI16.length;
+            default: return weights.size();
+        }
+    }
+
+    public int tableSize(int table) {
+        if (mapped) {
+            switch (precision) {
+                case F32: return mappedF32[table].capacity();
+                case I16: return mappedI16[table].capacity();
+                default: return mappedF64[table].capacity();
+            }
+        }
+        switch (precision) {
+            case F32: return tablesF32[table].length;
+            case I16: return tablesI16[table].length;
+            default: return weights.get(table).length;
+        }
+    }
+
+    // Weight value as seen by predict (dequantized for I16)
+    public double weightAt(int table, int index) {
+        if (mapped) {
+            switch (precision) {
+                case F32: return mappedF32[table].get(index);
+                case I16: return mappedI16[table].get(index) * scalesI16[table];
+                default: return mappedF64[table].get(index);
+            }
+        }
+        switch (precision) {
+            case F32: return tablesF32[table][index];
+            case I16: return tablesI16[table][index] * scalesI16[table];
+            default: return weights.get(table)[index];
+        }
+    }
+
+    // I16 quantization step of a table (1.0 for F64 / F32)
+    public double tableScale(int table) {
+        return precision == WeightPrecision.I16 ? scalesI16[table] : 1.0;
+    }
+
+    // Heap used by the weight tables (0 when mapped: the pages belong to the file cache)
+    public long weightBytes() {
+        if (mapped) return 0;
+        long count = 0;
+        for (int t = 0, n = numTables(); t < n; t++) count += tableSize(t);
+        return count * precision.bytesPerWeight;
+    }
+
+    /**
+     * Convert the weight tables to another storage precision, in place. A mapped model is
+     * copied into heap tables even at its own precision, so setPrecision(F64 / F32) is how
+     * a mapped brain becomes trainable. Not safe while other threads are predicting.
+     * @return prediction drift of the converted tables vs. the current ones,
+     *         measured on PrecisionDrift.probeBoards
+     */
+    public PrecisionDrift setPrecision(WeightPrecision target) {
+        long[] probes = PrecisionDrift.probeBoards(PrecisionDrift.DEFAULT_PROBES);
+        double[] before = new double[probes.length];
+        for (int i = 0; i < probes.length; i++) before[i] = predict(probes[i]);
+
+        if (target != precision || mapped) {
+            int n = numTables();
+            switch (target) {
+                case F64: {
+                    List<double[]> out = new ArrayList<>();
+                    for (int t = 0; t < n; t++) {
+                        double[] table = new double[tableSize(t)];
+                        for (int i = 0; i < table.length; i++) table[i] = weightAt(t, i);
+                        out.add(table);
+                    }
+                    dropStorage();
+                    weights.addAll(out);
+                    break;
+                }
+                case F32: {
+                    float[][] out = new float[n][];
+                    for (int t = 0; t < n; t++) {
+                        out[t] = new float[tableSize(t)];
+                        for (int i = 0; i < out[t].length; i++) out[t][i] = (float) weightAt(t, i);
+                    }
+                    dropStorage();
+                    tablesF32 = out;
+                    break;
+                }
+                case I16: {
+                    short[][] out = new short[n][];
+                    double[] scales = new double[n];
+                    for (int t = 0; t < n; t++) {
+                        int size = tableSize(t);
+                        double maxAbs = 0.0;
+                        for (int i = 0; i < size; i++) maxAbs = Math.max(maxAbs, Math.abs(weightAt(t, i)));
+                        scales[t] = maxAbs > 0.0 ? maxAbs / Short.MAX_VALUE : 1.0;
+                        out[t] = new short[size];
+                        for (int i = 0; i < size; i++) {
+                            out[t][i] = (short) Math.round(weightAt(t, i) / scales[t]);
+                        }
+                    }
+                    dropStorage();
+                    tablesI16 = out;
+                    scalesI16 = scales;
+                    break;
+                }
+            }
+            precision = target;
+            rebuildLookup();
+        }
+
+        double[] after = new double[probes.length];
+        for (int i = 0; i < probes.length; i++) after[i] = predict(probes[i]);
+        return PrecisionDrift.compare(target, before, after);
+    }
+
+    private void dropStorage() {
+        weights.clear();
+        tablesF32 = null;
+        tablesI16 = null;
+        scalesI16 = null;
+        dropMapped();
+    }
+
+    private void dropMapped() {
+        mapped = false;
+        mappedF64 = null;
+        mappedF32 = null;
+        mappedI16 = null;
+    }
+
+    // Called by FlatModel.map once the tuples and metadata are in place
+    void useMappedTables(WeightPrecision target, java.nio.Buffer[] buffers, double[] scales) {
+        dropStorage();
+        int n = buffers.length;
+        switch (target) {
+            case F32:
+                mappedF32 = new java.nio.FloatBuffer[n];
+                for (int t = 0; t < n; t++) mappedF32[t] = (java.nio.FloatBuffer) buffers[t];
+                break;
+            case I16:
+                mappedI16 = new java.nio.ShortBuffer[n];
+                for (int t = 0; t < n; t++) mappedI16[t] = (java.nio.ShortBuffer) buffers[t];
+                break;
+            default:
+                mappedF64 = new java.nio.DoubleBuffer[n];
+                for (int t = 0; t < n; t++) mappedF64[t] = (java.nio.DoubleBuffer) buffers[t];
+                break;
+        }
+        scalesI16 = scales;
+        precision = target;
+        mapped = true;
+        rebuildLookup();
+    }
+
+    // ============== TRAINING (in-place updates, see NTupleTrainer) ==============
+
+    private transient volatile long trainingVersion; // bumped after every trained batch of updates
+
+    // Only heap f64 / f32 tables can be written; I16 and mapped models are read-only
+    public boolean isTrainable() {
+        return !mapped && (precision == WeightPrecision.F64 || precision == WeightPrecision.F32);
+    }
+
+    // Guard for the trainers / importers that take this network
+    void requireTrainable() {
+        if (!isTrainable()) {
+            throw new IllegalArgumentException("Training needs heap F64 or F32 weights, got "
+                + precision + (mapped ? " (mapped)" : ""));
+        }
+    }
+
+    /**
+     * Add delta to the weight of every tuple (all 8 symmetric variants) active on board,
+     * i.e. one gradient step of predict scaled by the caller.
+     */
+    public void update(long board, double delta) {
+        if (!isTrainable()) {
+            throw new IllegalStateException("Weights are read-only (" + precision + (mapped ? ", mapped)" : ")"));
+        }
+        board = foldCode15(board);
+        int[] tableOf = tupleTables;
+        if (precision == WeightPrecision.F32) {
+            float[][] w = tablesF32;
+            for (int t = 0, n = numTuples; t < n; t++) w[tableOf[t]][tupleIndex(board, t)] += (float) delta;
+        } else {
+            double[][] w = tables;
+            for (int t = 0, n = numTuples; t < n; t++) w[tableOf[t]][tupleIndex(board, t)] += delta;
+        }
+    }
+
+    // Changes whenever training touched the weights (cached search values are stale then)
+    public long getTrainingVersion() {
+        return trainingVersion;
+    }
+
+    synchronized void bumpTrainingVersion() { // trainer threads may finish together
+        trainingVersion++;
+    }
+
+    // (table, index) of every tuple active on board, for writers other than update()
+    void activeWeights(long board, int[] tableOut, int[] indexOut) {
+        board = foldCode15(board);
+        int[] tableOf = tupleTables;
+        for (int t = 0, n = numTuples; t < n; t++) {
+            tableOut[t] = tableOf[t];
+            indexOut[t] = tupleIndex(board, t);
+        }
+    }
+
+    // Heap tables of a trainable network (the one matching getPrecision() is non-null)
+    double[] tableF64(int table) {
+        return precision == WeightPrecision.F64 && !mapped ? tables[table] : null;
+    }
+
+    float[] tableF32(int table) {
+        return precision == WeightPrecision.F32 && !mapped ? tablesF32[table] : null;
+    }
+
+    // ============== POTENTIAL FUNCTIONS (PBRS) - ALL DOUBLE ==============
+    
+    // Snake weight pattern - matches Rust SNAKE_WEIGHTS exactly
+    // Pattern ZigZag: 4^15 -> 4^0 in S-shape
+    //   Row 0: 4^15 -> 4^12 (highest priority)
+    //   Row 1: 4^8 -> 4^11 (reversed)
+    //   Row 2: 4^7 -> 4^4
+    //   Row 3: 4^0 -> 4^3 (lowest)
+
+    // Lookup tables, built once from BitBoard.rankOf / getDisorderPenalty / canMerge below.
+    // Ranks are the integer BitBoard.rankOf (log2(v / 3) + 1 without Math.log, so no libm
+    // rounding), every snake term rank * 4^k is an integer and the 16-cell sum stays exact
+    // below 2^53: adding per-row partials in any order gives the same double as the
+    // cell-by-cell loop. Disorder terms (pow(diff, 2.5)) are not integers, so they keep the
+    // old order.
+    // Row lane (cell c at bits 4c) -> 64*r0 + 16*r1 + 4*r2 + r3 and r0 + 4*r1 + 16*r2 + 64*r3
+    private static final short[] SNAKE_DESC = new short[1 << 16];
+    private static final short[] SNAKE_ASC = new short[1 << 16];
+    // Row lane -> number of mergeable horizontal pairs
+    private static final byte[] ROW_MERGES = new byte[1 << 16];
+    // (code << 4 | neighbor code) -> disorder penalty, 0 when either cell is empty
+    private static final double[] DISORDER_PAIR = new double[256];
+
+    static {
+        for (int row = 0; row < (1 << 16); row++) {
+            int r0 = BitBoard.rankOf(row & 0xF), r1 = BitBoard.rankOf((row >>> 4) & 0xF);
+            int r2 = BitBoard.rankOf((row >>> 8) & 0xF), r3 = BitBoard.rankOf((row >>> 12) & 0xF);
+            SNAKE_DESC[row] = (short) (64 * r0 + 16 * r1 + 4 * r2 + r3);
+            SNAKE_ASC[row] = (short) (r0 + 4 * r1 + 16 * r2 + 64 * r3);
+            int merges = 0;
+            for (int c = 0; c < 3; c++) {
+                int a = BitBoard.valueOf((row >>> (c << 2)) & 0xF);
+                int b = BitBoard.valueOf((row >>> ((c + 1) << 2)) & 0xF);
+                if (canMerge(a, b)) merges++;
+            }
+            ROW_MERGES[row] = (byte) merges;
+        }
+        for (int a = 1; a < 16; a++) {
+            for (int b = 1; b < 16; b++) {
+                DISORDER_PAIR[(a << 4) | b] = getDisorderPenalty(BitBoard.rankOf(a), BitBoard.rankOf(b));
+            }
+        }
+    }
+    
+    // Calculate empty cell count
+    public double calculateEmpty(Tile[][] board) {
+        return calculateEmpty(BitBoard.fromTiles(board));
+    }
+
+    public double calculateEmpty(long board) {
+        return (double) BitBoard.countEmpty(board);
+    }
+    
+    // Calculate snake score (best of 4 corners)
+    public double calculateSnake(Tile[][] board) {
+        return calculateSnake(BitBoard.fromTiles(board));
+    }
+
+    public double calculateSnake(long board) {
+        int row0 = BitBoard.getRow(board, 0), row1 = BitBoard.getRow(board, 1);
+        int row2 = BitBoard.getRow(board, 2), row3 = BitBoard.getRow(board, 3);
+        long d0 = SNAKE_DESC[row0], d1 = SNAKE_DESC[row1], d2 = SNAKE_DESC[row2], d3 = SNAKE_DESC[row3];
+        long a0 = SNAKE_ASC[row0], a1 = SNAKE_ASC[row1], a2 = SNAKE_ASC[row2], a3 = SNAKE_ASC[row3];
+
+        // Weight rows are 4^12 * desc, 4^8 * asc, 4^4 * desc, asc (see the pattern above)
+        // 1. Top-Left (Normal)
+        long maxScore = (d0 << 24) + (a1 << 16) + (d2 << 8) + a3;
+        // 2. Top-Right (Mirror Horizontal): reversed rows swap desc / asc
+        maxScore = Math.max(maxScore, (a0 << 24) + (d1 << 16) + (a2 << 8) + d3);
+        // 3. Bottom-Left (Mirror Vertical)
+        maxScore = Math.max(maxScore, (d3 << 24) + (a2 << 16) + (d1 << 8) + a0);
+        // 4. Bottom-Right (Mirror Both)
+        maxScore = Math.max(maxScore, (a3 << 24) + (d2 << 16) + (a1 << 8) + d0);
+
+        return (double) maxScore;
+    }
+    
+    // ============== MERGE POTENTIAL ==============
+    
+    /**
+     * Calculate merge potential - how many adjacent tiles can merge
+     * Higher is better (more merge opportunities)
+     */
+    public double calculateMergePotential(Tile[][] board) {
+        return calculateMergePotential(BitBoard.fromTiles(board));
+    }
+
+    public double calculateMergePotential(long board) {
+        // Vertical pairs are the horizontal pairs of the transposed board
+        long t = BitBoard.transpose(board);
+        int merges = ROW_MERGES[BitBoard.getRow(board, 0)] + ROW_MERGES[BitBoard.getRow(board, 1)]
+                   + ROW_MERGES[BitBoard.getRow(board, 2)] + ROW_MERGES[BitBoard.getRow(board, 3)]
+                   + ROW_MERGES[BitBoard.getRow(t, 0)] + ROW_MERGES[BitBoard.getRow(t, 1)]
+                   + ROW_MERGES[BitBoard.getRow(t, 2)] + ROW_MERGES[BitBoard.getRow(t, 3)];
+        return (double) merges; // Higher is better
+    }
+    
+    /**
+     * Check if two tiles can merge according to Threes rules
+     */
+    private static boolean canMerge(int a, int b) {
+        if (a == 0 || b == 0) return false;
+        if ((a == 1 && b == 2) || (a == 2 && b == 1)) return true;
+        if (a > 2 && a == b) return true;
+        return false;
+    }
+    
+    // ============== DISORDER PENALTY ==============
+    
+    /**
+     * Calculate disorder penalty - how chaotic the board is
+     * Higher is worse (big tiles next to small tiles)
+     */
+    public double calculateDisorder(Tile[][] board) {
+        return calculateDisorder(BitBoard.fromTiles(board));
+    }
+
+    public double calculateDisorder(long board) {
+        // Same summation order as the cell loop (right, then down); empty cells add +0.0
+        double penalty = 0.0;
+        for (int r = 0; r < 4; r++) {
+            int row = BitBoard.getRow(board, r);
+            int next = r < 3 ? BitBoard.getRow(board, r + 1) : 0;
+            for (int c = 0; c < 4; c++) {
+                int pair = (row >>> (c << 2) & 0xF) << 4;
+                if (c < 3) penalty += DISORDER_PAIR[pair | (row >>> ((c + 1) << 2) & 0xF)];
+                if (r < 3) penalty += DISORDER_PAIR[pair | (next >>> (c << 2) & 0xF)];
+            }
+        }
+        return penalty; // Higher is worse
+    }
+    
+    // Both cells non-empty (empty neighbors add 0)
+    private static double getDisorderPenalty(int rankCurr, int rankN) {
+        double diff = Math.abs(rankCurr - rankN);
+        // If diff > 1, apply exponential penalty
+        if (diff > 1.0) {
+            return Math.pow(diff, 2.5);
+        }
+        return 0.0;
+    }
+    
+    // ============== COMPOSITE POTENTIAL ==============
+    
+    /**
+     * Get composite potential (using loaded weights)
+     * Formula from Rust:
+     * (w_empty * phi_empty) + (w_snake * phi_snake) + (w_merge * phi_merge) - (w_disorder * phi_disorder)
+     */
+    public double getCompositePotential(Tile[][] board) {
+        return getCompositePotential(BitBoard.fromTiles(board));
+    }
+
+    public double getCompositePotential(long board) {
+        double phiEmpty = calculateEmpty(board);
+        double phiSnake = calculateSnake(board) / 1073741824.0; // Normalized like Rust
+        double phiMerge = calculateMergePotential(board) / 10.0; // Normalized
+        double phiDisorder = calculateDisorder(board) / 100.0; // Normalized
+        
+        return (wEmpty * phiEmpty) + (wSnake * phiSnake) + (wMerge * phiMerge) - (wDisorder * phiDisorder);
+    }
+    
+    // Get total value = Brain prediction + Potential
+    public double getTotalValue(Tile[][] board) {
+        return predict(board) + getCompositePotential(board);
+    }
+
+    public double getTotalValue(long board) {
+        return predict(board) + getCompositePotential(board);
+    }
+
+    // ============== MESSAGEPACK I/O (Rust Compatible) - STREAMING ==============
+
+    /**
+     * Load from MessagePack format (Rust rmp_serde compatible).
+     * Same as loadFromBinary: the format is detected from the first bytes.
+     *
+     * Format (array variant):
+     * - Array of TupleConfig (each: {indices: [int], weight_index: int})
+     * - Array of weight tables (each: [f64])
+     * - alpha: f64
+     * - gamma: f64
+     */
+    public void loadFromMessagePack(InputStream is) throws Exception {
+        loadFromBinary(is, WeightPrecision.F64);
+    }
+
+    public void loadFromBinary(InputStream is) throws Exception {
+        loadFromBinary(is, WeightPrecision.F64);
+    }
+
+    /**
+     * Load brain.dat, decoding straight from the stream into tables of the given precision.
+     * Peak memory is the final tables plus one f64 table of scratch (F32 / I16).
+     * The network is only modified once the whole file decoded successfully.
+     *
+     * Format, from the first bytes:
+     * - MessagePack map   : Rust struct {tuples, weights, alpha, gamma, w_*, stats}
+     * - MessagePack array : old layout [tuples, weights, alpha, gamma]
+     * - "TCNB"            : flat model, rejected here (map it with loadFromFlat)
+     * - anything else     : legacy little-endian tables (tuples keep the snake layout)
+     *
+     * @return drift of the stored precision vs. the f64 file, null for F64 or an empty file
+     */
+    public PrecisionDrift loadFromBinary(InputStream is, WeightPrecision precision) throws Exception {
+        MsgPackReader in = new MsgPackReader(is);
+        int head = in.peek();
+        if (head < 0) return null; // Empty file: keep the current brain
+
+        ModelImage image = new ModelImage(this, precision);
+        if (isLegacyHeader(in.peekIntLE(0), in.peekIntLE(4))) {
+            // First: a legacy table count such as 128 or 220 starts with a MessagePack map/array byte
+            readLegacy(in, image, in.readIntLE());
+        } else if ((head & 0xF0) == 0x80 || head == 0xde || head == 0xdf) {
+            readRustMap(in, image);
+        } else if ((head & 0xF0) == 0x90 || head == 0xdc || head == 0xdd) {
+            readTuples(in, image);
+            readWeights(in, image);
+            image.alpha = in.readDouble();
+            image.gamma = in.readDouble();
+        } else {
+            int count = in.readIntLE();
+            if (count == FlatModel.MAGIC) {
+                throw new Exception("Flat model (TCNB): load it with loadFromFlat(File)");
+            }
+            readLegacy(in, image, count);
+        }
+        return image.applyTo(this);
+    }
+
+    // Rust struct -> MessagePack map, unknown keys skipped
+    private void readRustMap(MsgPackReader in, ModelImage image) throws Exception {
+        int mapSize = in.readMapHeader();
+        for (int m = 0; m < mapSize; m++) {
+            String key = in.readString();
+            switch (key) {
+                case "tuples": readTuples(in, image); break;
+                case "weights": readWeights(in, image); break;
+                case "alpha": image.alpha = in.readDouble(); break;
+                case "gamma": image.gamma = in.readDouble(); break;
+                case "w_empty": image.wEmpty = in.readDouble(); break;
+                case "w_snake": image.wSnake = in.readDouble(); break;
+                case "w_merge": image.wMerge = in.readDouble(); break;
+                case "w_disorder": image.wDisorder = in.readDouble(); break;
+
+                // Training stats from Rust
+                case "total_episodes": image.totalEpisodes = in.readLong(); break;
+                case "best_top1_avg": image.bestTop1Avg = in.readDouble(); break;
+                case "best_overall_avg": image.bestOverallAvg = in.readDouble(); break;
+                case "best_bot10_avg": image.bestBot10Avg = in.readDouble(); break;
+
+                default:
+                    // Skip unknown keys to maintain compatibility
+                    in.skipValue();
+                    break;
+            }
+        }
+    }
+
+    private void readTuples(MsgPackReader in, ModelImage image) throws Exception {
+        int count = in.readArrayHeader();
+        List<TupleConfig> list = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            // Mỗi tuple trong Rust là 1 struct -> Map trong MsgPack
+            int tupleMapSize = in.readMapHeader();
+            int[] indices = null;
+            int weightIndex = 0;
+            for (int j = 0; j < tupleMapSize; j++) {
+                String key = in.readString();
+                if (key.equals("indices")) {
+                    int len = in.readArrayHeader();
+                    indices = new int[len];
+                    for (int k = 0; k < len; k++) indices[k] = (int) in.readLong();
+                } else if (key.equals("weight_index")) {
+                    weightIndex = (int) in.readLong();
+                } else {
+                    in.skipValue();
+                }
+            }
+            list.add(new TupleConfig(indices, weightIndex));
+        }
+        image.tuples = list;
+    }
+
+    private void readWeights(MsgPackReader in, ModelImage image) throws Exception {
+        int count = in.readArrayHeader();
+        image.startTables(count);
+        for (int t = 0; t < count; t++) {
+            int size = in.readArrayHeader();
+            in.readDoubles(image.tableBuffer(size), size);
+            image.addTable(size);
+        }
+    }
+
+    // Legacy files start with table count then first table size (LE ints). No MessagePack
+    // model passes: its second to fourth bytes would have to read as a count <= 1000
+    private static boolean isLegacyHeader(int count, int firstSize) {
+        return count > 0 && count <= LEGACY_MAX_TABLES && firstSize > 0 && firstSize <= LEGACY_MAX_TABLE_SIZE;
+    }
+
+    private void readLegacy(MsgPackReader in, ModelImage image, int count) throws Exception {
+        // KIỂM TRA ĐỘ AN TOÀN (Sanity Check)
+        // Nếu numTables > 1000 hoặc số lượng quá vô lý, dừng ngay không cấp phát RAM
+        if (count <= 0 || count > LEGACY_MAX_TABLES) {
+            throw new Exception("File model không đúng định dạng (" + count + " tables).");
+        }
+        image.startTables(count);
+        for (int t = 0; t < count; t++) {
+            int size = in.readIntLE();
+            if (size <= 0 || size > LEGACY_MAX_TABLE_SIZE) throw new Exception("Table size quá lớn: " + size);
+            in.readDoublesLE(image.tableBuffer(size), size);
+            image.addTable(size);
+        }
+    }
+
+    /**
+     * A model being decoded: nothing touches the network until applyTo().
+     * Tables arrive one at a time in f64 and are stored right away in the target
+     * precision; the drift on the probe boards is accumulated table by table.
+     */
+    private static final class ModelImage {
+        final WeightPrecision precision;
+        List<TupleConfig> tuples;          // null = keep the network's tuples
+        final List<TupleConfig> currentTuples;
+        double alpha, gamma, wEmpty, wSnake, wMerge, wDisorder;
+        long totalEpisodes;
+        double bestTop1Avg, bestOverallAvg, bestBot10Avg;
+
+        // Decoded tables, only the list of the target precision is used
+        final List<double[]> f64 = new ArrayList<>();
+        final List<float[]> f32 = new ArrayList<>();
+        final List<short[]> i16 = new ArrayList<>();
+        double[] scales = new double[0];
+        boolean hasTables;
+
+        double[] current;                  // table being decoded
+        double[] scratch;                  // reused for F32 / I16
+        long[] probes;
+        double[] reference, stored;
+
+        ModelImage(NTupleNetwork net, WeightPrecision precision) {
+            this.precision = precision;
+            this.currentTuples = net.tuples;
+            alpha = net.alpha;
+            gamma = net.gamma;
+            wEmpty = net.wEmpty;
+            wSnake = net.wSnake;
+            wMerge = net.wMerge;
+            wDisorder = net.wDisorder;
+            totalEpisodes = net.totalEpisodes;
+            bestTop1Avg = net.bestTop1Avg;
+            bestOverallAvg = net.bestOverallAvg;
+            bestBot10Avg = net.bestBot10Avg;
+        }
+
+        void startTables(int count) {
+            f64.clear();
+            f32.clear();
+            i16.clear();
+            scales = new double[count];
+            hasTables = true;
+            if (precision != WeightPrecision.F64 && probes == null) {
+                probes = PrecisionDrift.probeBoards(PrecisionDrift.DEFAULT_PROBES);
+                for (int i = 0; i < probes.length; i++) probes[i] = foldCode15(probes[i]);
+                reference = new double[probes.length];
+                stored = new double[probes.length];
+            }
+        }
+
+        // Where the next table of the given size is decoded to
+        double[] tableBuffer(int size) {
+            if (precision == WeightPrecision.F64) {
+                current = new double[size];
+            } else {
+                if (scratch == null || scratch.length < size) scratch = new double[size];
+                current = scratch;
+            }
+            return current;
+        }
+
+        void addTable(int size) {
+            int t = f64.size() + f32.size() + i16.size();
+            double[] w = current;
+            switch (precision) {
+                case F32: {
+                    float[] out = new float[size];
+                    for (int i = 0; i < size; i++) out[i] = (float) w[i];
+                    f32.add(out);
+                    scales[t] = 1.0;
+                    break;
+                }
+                case I16: {
+                    double maxAbs = 0.0;
+                    for (int i = 0; i < size; i++) maxAbs = Math.max(maxAbs, Math.abs(w[i]));
+                    double scale = maxAbs > 0.0 ? maxAbs / Short.MAX_VALUE : 1.0;
+                    short[] out = new short[size];
+                    for (int i = 0; i < size; i++) out[i] = (short) Math.round(w[i] / scale);
+                    i16.add(out);
+                    scales[t] = scale;
+                    break;
+                }
+                default:
+                    f64.add(w);
+                    scales[t] = 1.0;
+                    return;
+            }
+            accumulateDrift(t, size);
+        }
+
+        // Contribution of table t to every probe prediction, f64 vs. stored value
+        private void accumulateDrift(int t, int size) {
+            List<TupleConfig> layout = tuples != null ? tuples : currentTuples;
+            for (TupleConfig tuple : layout) {
+                if (tuple.weightIndex != t) continue;
+                for (int b = 0; b < probes.length; b++) {
+                    int index = 0;
+                    for (int pos : tuple.indices) {
+                        index = index * MAX_VAL_CODE + ((int) (probes[b] >>> (pos << 2)) & 0xF);
+                    }
+                    if (index >= size) continue;
+                    reference[b] += current[index];
+                    stored[b] += precision == WeightPrecision.F32
+                        ? f32.get(t)[index]
+                        : i16.get(t)[index] * scales[t];
+                }
+            }
+        }
+
+        PrecisionDrift applyTo(NTupleNetwork net) throws Exception {
+            if (tuples != null) {
+                for (TupleConfig tuple : tuples) {
+                    if (tuple.indices == null) throw new Exception("Tuple without indices");
+                }
+                net.tuples.clear();
+                net.tuples.addAll(tuples);
+            }
+            net.alpha = alpha;
+            net.gamma = gamma;
+            net.wEmpty = wEmpty;
+            net.wSnake = wSnake;
+            net.wMerge = wMerge;
+            net.wDisorder = wDisorder;
+            net.totalEpisodes = totalEpisodes;
+            net.bestTop1Avg = bestTop1Avg;
+            net.bestOverallAvg = bestOverallAvg;
+            net.bestBot10Avg = bestBot10Avg;
+
+            if (!hasTables) {
+                net.rebuildLookup();
+                return null;
+            }
+            net.dropStorage();
+            switch (precision) {
+                case F32:
+                    net.tablesF32 = f32.toArray(new float[0][]);
+                    break;
+                case I16:
+                    net.tablesI16 = i16.toArray(new short[0][]);
+                    net.scalesI16 = scales;
+                    break;
+                default:
+                    net.weights.addAll(f64);
+                    break;
+            }
+            net.precision = precision;
+            net.rebuildLookup();
+            return precision == WeightPrecision.F64 ? null
+                : PrecisionDrift.compare(precision, reference, stored);
+        }
+    }
+
+    // ============== FLAT MODEL (memory-mapped, see FlatModel) ==============
+
+    public void loadFromFlat(java.io.File file) throws java.io.IOException {
+        FlatModel.map(this, file);
+    }
+
+    public void exportToFlat(java.io.File file) throws java.io.IOException {
+        FlatModel.write(this, file);
+    }
+
+    // Debug info
+    public String getNetworkInfo() {
+        return String.format("NTupleNetwork: %d tuples, %d tables (%s, %s), Episodes: %d, BestAvg: %.0f",
+            tuples.size(), numTables(), precision, mapped ? "mapped" : (weightBytes() >> 20) + " MB",
+            totalEpisodes, bestOverallAvg);
+    }
+    
+    // Export to binary (for saving to internal storage) - NOW F64.
+    // Flushes but does not close os: the caller owns it (AtomicFiles forces it to disk after)
+    public void exportToBinary(java.io.OutputStream os) throws Exception {
+        org.msgpack.core.MessagePacker packer = org.msgpack.core.MessagePack.newDefaultPacker(os);
+        
+        // Lưu dưới dạng Map để tương thích với hàm load
+        packer.packMapHeader(12); // 12 trường: tuples, weights, alpha, gamma, w_*, stats
+
+        // 1. Tuples
+        packer.packString("tuples");
+        packer.packArrayHeader(tuples.size());
+        for (TupleConfig t : tuples) {
+            packer.packMapHeader(2);
+            packer.packString("indices");
+            packer.packArrayHeader(t.indices.length);
+            for (int i : t.indices) packer.packLong(i);
+            packer.packString("weight_index");
+            packer.packLong(t.weightIndex);
+        }
+
+        // 2. Weights - NOW DOUBLE
+        packer.packString("weights");
+        packer.packArrayHeader(numTables());
+        for (int t = 0, n = numTables(); t < n; t++) {
+            int size = tableSize(t);
+            packer.packArrayHeader(size);
+            for (int i = 0; i < size; i++) packer.packDouble(weightAt(t, i));
+        }
+
+        // 3. Các thông số khác - NOW DOUBLE
+        packer.packString("alpha"); packer.packDouble(alpha);
+        packer.packString("gamma"); packer.packDouble(gamma);
+        packer.packString("w_empty"); packer.packDouble(wEmpty);
+        packer.packString("w_snake"); packer.packDouble(wSnake);
+        packer.packString("w_merge"); packer.packDouble(wMerge);
+        packer.packString("w_disorder"); packer.packDouble(wDisorder);
+        
+        // 4. Training stats
+        packer.packString("total_episodes"); packer.packLong(totalEpisodes);
+        packer.packString("best_top1_avg"); packer.packDouble(bestTop1Avg);
+        packer.packString("best_overall_avg"); packer.packDouble(bestOverallAvg);
+        packer.packString("best_bot10_avg"); packer.packDouble(bestBot10Avg);
+
+        packer.flush();
+    }
+}
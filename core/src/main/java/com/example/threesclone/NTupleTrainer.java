@@ -0,0 +1,111 @@
+package com.example.threesclone;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Learns the brain from recorded games (EpisodeBuffer), off the UI / gameplay thread.
+ *
+ * The value is V(s) = predict(s) + potential(s), as in the search leaves. Each episode is
+ * swept backwards; state s_t moves towards its lambda-return
+ *   G_t = r_t + gamma * ((1 - lambda) * V(s_t+1) + lambda * G_t+1)
+ * by alpha / tupleCount per active tuple (so one step moves V by about alpha * error).
+ * MONTE_CARLO is lambda = 1: the plain backward discounted score, as in the Rust trainer.
+ *
+ * Updates write the shared tables without locks while games keep reading them; a reader
+ * may see a half-trained position, never a broken one. Search caches are dropped through
+ * NTupleNetwork.getTrainingVersion().
+ */
+public final class NTupleTrainer {
+
+    public enum Mode { TD_LAMBDA, MONTE_CARLO }
+
+    private final NTupleNetwork brain;
+    private final ExecutorService worker;
+
+    // Settings (alpha / gamma come from the brain)
+    public volatile Mode mode = Mode.TD_LAMBDA;
+    public volatile double lambda = 0.5;
+
+    public NTupleTrainer(NTupleNetwork brain) {
+        brain.requireTrainable();
+        this.brain = brain;
+        this.worker = Executors.newSingleThreadExecutor(r -> {
+            Thread t = new Thread(r, "ntuple-trainer");
+            t.setDaemon(true);
+            t.setPriority(Thread.MIN_PRIORITY);
+            return t;
+        });
+    }
+
+    public NTupleNetwork getBrain() {
+        return brain;
+    }
+
+    /**
+     * Queue an episode for training on the background thread. The episode is copied, so the
+     * caller may reuse it right away. Episodes are trained one at a time, in order.
+     * @return mean absolute TD error of the episode
+     */
+    public Future<Double> submit(EpisodeBuffer episode) {
+        EpisodeBuffer copy = episode.copy();
+        return worker.submit(() -> trainEpisode(copy));
+    }
+
+    /**
+     * Train one episode on the calling thread.
+     * @return mean absolute error before the updates
+     */
+    public double trainEpisode(EpisodeBuffer episode) {
+        double lam = mode == Mode.MONTE_CARLO ? 1.0 : lambda;
+        double error = learn(brain, episode, lam, brain::update);
+        brain.bumpTrainingVersion();
+        return error;
+    }
+
+    // Where the updates go: brain.update, or a synchronized writer (see ParallelTrainer)
+    interface WeightWriter {
+        void update(long board, double delta);
+    }
+
+    // Backward lambda-return sweep over one episode; returns the mean absolute error
+    static double learn(NTupleNetwork brain, EpisodeBuffer episode, double lam, WeightWriter writer) {
+        int steps = episode.size();
+        double gamma = brain.gamma;
+        double step = brain.alpha / brain.tupleCount();
+
+        double errorSum = 0.0;
+        int updates = 0;
+
+        // Value after the last board: 0 if the game ended, else bootstrap from the network
+        long last = episode.board(steps);
+        double nextValue;
+        if (episode.isTerminal()) {
+            double error = -brain.getTotalValue(last);
+            writer.update(last, step * error);
+            errorSum += Math.abs(error);
+            updates++;
+            nextValue = 0.0;
+        } else {
+            nextValue = brain.getTotalValue(last);
+        }
+        double ret = nextValue;
+
+        for (int t = steps - 1; t >= 0; t--) {
+            long board = episode.board(t);
+            ret = episode.reward(t) + gamma * ((1.0 - lam) * nextValue + lam * ret);
+            double error = ret - brain.getTotalValue(board);
+            writer.update(board, step * error);
+            errorSum += Math.abs(error);
+            updates++;
+            nextValue = brain.getTotalValue(board); // already trained, for the return of t - 1
+        }
+        return updates > 0 ? errorSum / updates : 0.0;
+    }
+
+    // Let queued episodes finish, then stop the worker
+    public void shutdown() {
+        worker.shutdown();
+    }
+}
@@ -0,0 +1,194 @@
+package com.example.threesclone;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Parallel root evaluation for Expectimax.
+ *
+ * The four root moves are expanded on the calling thread (cheap MoveTable lookups),
+ * then every spawn child of every legal move (moved row x spawn value) becomes one
+ * fork-join task. Each worker thread owns its ExpectimaxSearch and TranspositionTable,
+ * so no search scratch state is shared. NTupleNetwork is only read.
+ *
+ * Children are averaged in the same order as the sequential search, so without budgets
+ * the Q-values are identical to ExpectimaxSearch.evaluateMoves.
+ */
+public final class ParallelSearch {
+
+    // Below this depth a root split costs more than it saves
+    public static final int MIN_PARALLEL_DEPTH = 2;
+
+    // Per-worker cache: 2^14 buckets (~0.7 MB) per thread
+    private static final int WORKER_TABLE_LOG2_BUCKETS = 14;
+    private static final int WORKER_CACHE_LOG2_ENTRIES = 14;
+
+    private final NTupleNetwork brain;
+    private final ForkJoinPool pool;
+    private final ThreadLocal<ExpectimaxSearch> workers;
+
+    // Settings copied into the workers for every search
+    private int depth = 1;
+    private long nodeBudget = 0;
+    private long timeBudgetNanos = 0;
+    private boolean symmetryCache = false;
+
+    // Stats (last search)
+    private long nodes;
+    private boolean budgetExceeded;
+
+    public ParallelSearch(NTupleNetwork brain) {
+        this(brain, Runtime.getRuntime().availableProcessors());
+    }
+
+    public ParallelSearch(NTupleNetwork brain, int threads) {
+        this.brain = brain;
+        this.pool = new ForkJoinPool(Math.max(1, threads));
+        this.workers = ThreadLocal.withInitial(() -> {
+            ExpectimaxSearch search = new ExpectimaxSearch(brain);
+            search.setTranspositionTable(new TranspositionTable(WORKER_TABLE_LOG2_BUCKETS));
+            return search;
+        });
+    }
+
+    // ============== CONFIG ==============
+
+    public void setDepth(int depth) {
+        this.depth = Math.max(1, depth);
+    }
+
+    public void setNodeBudget(long nodeBudget) {
+        this.nodeBudget = Math.max(0, nodeBudget);
+    }
+
+    public void setTimeBudgetMillis(long millis) {
+        this.timeBudgetNanos = Math.max(0, millis) * 1_000_000L;
+    }
+
+    // Per-worker CanonicalCache for leaf predictions (see ExpectimaxSearch.setPredictCache)
+    public void setSymmetryCache(boolean enabled) {
+        this.symmetryCache = enabled;
+    }
+
+    public int getParallelism() {
+        return pool.getParallelism();
+    }
+
+    public long getNodeCount() {
+        return nodes;
+    }
+
+    public boolean isBudgetExceeded() {
+        return budgetExceeded;
+    }
+
+    public void shutdown() {
+        pool.shutdown();
+    }
+
+    // ============== ROOT ==============
+
+    /**
+     * Q(s, dir) for all four moves, indexed by Direction.ordinal().
+     * Illegal moves get ExpectimaxSearch.NO_MOVE.
+     */
+    public void evaluateMoves(long board, int future, int deck, double[] out) {
+        long deadline = timeBudgetNanos > 0 ? System.nanoTime() + timeBudgetNanos : 0;
+        int futureCode = BitBoard.codeOf(future);
+        int minCode = ExpectimaxSearch.minSpawnCode(futureCode);
+
+        // 1. Expand root moves and collect their spawn children
+        Direction[] dirs = Direction.values();
+        int[] gains = new int[dirs.length];
+        int[] firstChild = new int[dirs.length + 1];
+        List<ChildTask> tasks = new ArrayList<>();
+        for (int i = 0; i < dirs.length; i++) {
+            firstChild[i] = tasks.size();
+            int rot = BitBoard.rotationsToLeft(dirs[i]);
+            long rotated = BitBoard.rotate(board, rot);
+            int movedRows = MoveTable.movedRows(rotated);
+            if (movedRows == 0) continue;
+
+            gains[i] = MoveTable.gainLeft(rotated);
+            long shifted = MoveTable.shiftLeft(rotated);
+            for (int row = 0; row < 4; row++) {
+                if ((movedRows & (1 << row)) == 0) continue;
+                for (int code = minCode; code <= futureCode; code++) {
+                    long child = BitBoard.rotate(BitBoard.set(shifted, row, 3, code), 4 - rot);
+                    tasks.add(new ChildTask(child, deck, depth - 1, deadline));
+                }
+            }
+        }
+        firstChild[dirs.length] = tasks.size();
+
+        // 2. Search all children on the pool
+        long perChildBudget = nodeBudget > 0 && !tasks.isEmpty() ? Math.max(1, nodeBudget / tasks.size()) : 0;
+        for (ChildTask task : tasks) task.nodeBudget = perChildBudget;
+        pool.invoke(new RecursiveAction() {
+            @Override
+            protected void compute() {
+                invokeAll(tasks);
+            }
+        });
+
+        // 3. Q = R + gamma * avg(children), averaged in sequential order
+        nodes = 0;
+        budgetExceeded = false;
+        for (int i = 0; i < dirs.length; i++) {
+            int from = firstChild[i];
+            int to = firstChild[i + 1];
+            if (from == to) {
+                out[i] = ExpectimaxSearch.NO_MOVE;
+                continue;
+            }
+            double total = 0.0;
+            for (int k = from; k < to; k++) {
+                ChildTask task = tasks.get(k);
+                total += task.value;
+                nodes += task.nodes;
+                budgetExceeded |= task.budgetExceeded;
+            }
+            out[i] = gains[i] + brain.gamma * (total / (to - from));
+        }
+    }
+
+    // One spawn child, searched by the worker thread's own ExpectimaxSearch
+    private final class ChildTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        final long child;
+        final int deck;
+        final int depthLeft;
+        final long deadline;
+        long nodeBudget;
+
+        // Results
+        double value;
+        long nodes;
+        boolean budgetExceeded;
+
+        ChildTask(long child, int deck, int depthLeft, long deadline) {
+            this.child = child;
+            this.deck = deck;
+            this.depthLeft = depthLeft;
+            this.deadline = deadline;
+        }
+
+        @Override
+        protected void compute() {
+            ExpectimaxSearch search = workers.get();
+            search.setNodeBudget(nodeBudget);
+            search.setTimeBudgetMillis(0);
+            if (!symmetryCache) {
+                search.setPredictCache(null);
+            } else if (search.getPredictCache() == null) {
+                search.setPredictCache(new CanonicalCache(brain, WORKER_CACHE_LOG2_ENTRIES));
+            }
+            value = search.evaluateSpawnChild(child, deck, depthLeft, deadline);
+            nodes = search.getNodeCount();
+            budgetExceeded = search.isBudgetExceeded();
+        }
+    }
+}
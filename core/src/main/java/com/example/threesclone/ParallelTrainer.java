@@ -0,0 +1,345 @@
+package com.example.threesclone;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.InputStream;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.DoubleAdder;
+
+/**
+ * Multi-threaded self-play training: every worker plays its own games (Game + search) and
+ * applies NTupleTrainer's lambda-return updates straight into the one shared brain.
+ *
+ * An update touches 96 of ~9M weights, so two workers rarely hit the same entry:
+ *  - HOGWILD: plain unsynchronized writes (brain.update); a colliding update may be lost
+ *  - STRIPED: one of STRIPES monitors per weight entry, nothing is lost
+ *  - ATOMIC:  CAS add per weight entry (VarHandle, JVM / Android 13+ only)
+ *
+ * CLI (overnight run with hourly checkpoints):
+ *   ./gradlew :core:train --args="--model brain.dat --out trained.dat --minutes 600 --checkpoint-minutes 60"
+ *   ./gradlew :core:train --args="--model brain.dat --scaling 1,2,4,8,16,32"
+ */
+public final class ParallelTrainer {
+
+    public enum Sync { HOGWILD, STRIPED, ATOMIC }
+
+    private static final int STRIPES = 4096; // power of two
+
+    private final NTupleNetwork brain;
+    private final Object[] stripes;
+
+    // Settings
+    public int threads = Runtime.getRuntime().availableProcessors();
+    public Sync sync = Sync.HOGWILD;
+    public NTupleTrainer.Mode mode = NTupleTrainer.Mode.TD_LAMBDA;
+    public double lambda = 0.5;
+    public int searchDepth = 1;
+    public long seed = 1;
+    public int maxMovesPerGame = 100_000;
+
+    private final AtomicLong gamesPlayed = new AtomicLong(); // over all runs, seeds the next game
+
+    public ParallelTrainer(NTupleNetwork brain) {
+        brain.requireTrainable();
+        this.brain = brain;
+        this.stripes = new Object[STRIPES];
+        for (int i = 0; i < STRIPES; i++) stripes[i] = new Object();
+    }
+
+    // ============== TRAIN ==============
+
+    /**
+     * Train until the given number of games finished or the time is up (0 = no limit),
+     * whichever comes first.
+     */
+    public Report train(int games, long maxMillis) throws InterruptedException {
+        long deadline = maxMillis > 0 ? System.nanoTime() + maxMillis * 1_000_000L : Long.MAX_VALUE;
+        double lam = mode == NTupleTrainer.Mode.MONTE_CARLO ? 1.0 : lambda;
+        AtomicInteger started = new AtomicInteger();
+        AtomicLong updates = new AtomicLong();
+        AtomicLong scoreSum = new AtomicLong();
+        DoubleAdder errorSum = new DoubleAdder();
+        AtomicInteger finished = new AtomicInteger();
+
+        int workers = Math.max(1, threads);
+        ExecutorService pool = Executors.newFixedThreadPool(workers);
+        long start = System.nanoTime();
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int w = 0; w < workers; w++) {
+                futures.add(pool.submit(() -> {
+                    Xoshiro256 rng = new Xoshiro256(seed); // this worker's stream, reseeded per game
+                    Game game = new Game(brain, rng);
+                    game.parallelSearch = false;
+                    game.searchDepth = searchDepth;
+                    NTupleTrainer.WeightWriter writer = newWriter();
+
+                    while (started.getAndIncrement() < games && System.nanoTime() < deadline) {
+                        rng.setSeed(SelfPlaySimulator.gameSeed(seed, (int) gamesPlayed.getAndIncrement()));
+                        game.initGame();
+                        int n = 0;
+                        while (!game.gameOver && n < maxMovesPerGame) {
+                            Direction dir = game.getBestMove();
+                            if (dir == null || !game.move(dir)) break;
+                            n++;
+                        }
+                        EpisodeBuffer episode = game.getEpisode();
+                        errorSum.add(NTupleTrainer.learn(brain, episode, lam, writer));
+                        brain.bumpTrainingVersion();
+                        updates.addAndGet(episode.size() + (episode.isTerminal() ? 1 : 0));
+                        scoreSum.addAndGet(game.score);
+                        finished.incrementAndGet();
+                    }
+                }));
+            }
+            for (Future<?> f : futures) {
+                try {
+                    f.get();
+                } catch (ExecutionException e) {
+                    throw new IllegalStateException("Training worker failed", e.getCause());
+                }
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+        long elapsed = System.nanoTime() - start;
+        int done = finished.get();
+        return new Report(workers, sync, done, updates.get(), elapsed,
+            done > 0 ? (double) scoreSum.get() / done : 0.0,
+            done > 0 ? errorSum.sum() / done : 0.0);
+    }
+
+    /**
+     * Train for millisEach at every thread count and return the reports in order
+     * (speedup = report.updatesPerSecond() / first.updatesPerSecond()).
+     */
+    public List<Report> measureScaling(int[] threadCounts, long millisEach) throws InterruptedException {
+        int saved = threads;
+        List<Report> reports = new ArrayList<>();
+        try {
+            for (int n : threadCounts) {
+                threads = n;
+                reports.add(train(Integer.MAX_VALUE, millisEach));
+            }
+        } finally {
+            threads = saved;
+        }
+        return reports;
+    }
+
+    // ============== WEIGHT WRITERS ==============
+
+    // One per worker thread (STRIPED / ATOMIC keep per-thread scratch)
+    private NTupleTrainer.WeightWriter newWriter() {
+        switch (sync) {
+            case STRIPED: return new StripedWriter();
+            case ATOMIC: return new AtomicWriter();
+            default: return brain::update;
+        }
+    }
+
+    private final class StripedWriter implements NTupleTrainer.WeightWriter {
+        private final int[] tableOf = new int[brain.tupleCount()];
+        private final int[] index = new int[brain.tupleCount()];
+
+        @Override
+        public void update(long board, double delta) {
+            brain.activeWeights(board, tableOf, index);
+            for (int t = 0; t < tableOf.length; t++) {
+                int table = tableOf[t];
+                int i = index[t];
+                synchronized (stripes[(i * 31 + table) & (STRIPES - 1)]) {
+                    double[] w64 = brain.tableF64(table);
+                    if (w64 != null) w64[i] += delta;
+                    else brain.tableF32(table)[i] += (float) delta;
+                }
+            }
+        }
+    }
+
+    private final class AtomicWriter implements NTupleTrainer.WeightWriter {
+        private final int[] tableOf = new int[brain.tupleCount()];
+        private final int[] index = new int[brain.tupleCount()];
+
+        @Override
+        public void update(long board, double delta) {
+            brain.activeWeights(board, tableOf, index);
+            for (int t = 0; t < tableOf.length; t++) {
+                double[] w64 = brain.tableF64(tableOf[t]);
+                if (w64 != null) AtomicAdd.add(w64, index[t], delta);
+                else AtomicAdd.add(brain.tableF32(tableOf[t]), index[t], (float) delta);
+            }
+        }
+    }
+
+    // Own class so the VarHandles are only resolved when ATOMIC is used
+    private static final class AtomicAdd {
+        private static final VarHandle F64 = MethodHandles.arrayElementVarHandle(double[].class);
+        private static final VarHandle F32 = MethodHandles.arrayElementVarHandle(float[].class);
+
+        static void add(double[] w, int i, double delta) {
+            double old;
+            do {
+                old = (double) F64.getVolatile(w, i);
+            } while (!F64.weakCompareAndSet(w, i, old, old + delta));
+        }
+
+        static void add(float[] w, int i, float delta) {
+            float old;
+            do {
+                old = (float) F32.getVolatile(w, i);
+            } while (!F32.weakCompareAndSet(w, i, old, old + delta));
+        }
+    }
+
+    // ============== REPORT ==============
+
+    public static final class Report {
+        public final int threads;
+        public final Sync sync;
+        public final int games;
+        public final long updates; // trained positions, each one write per tuple
+        public final long elapsedNanos;
+        public final double meanScore;
+        public final double meanError;
+
+        Report(int threads, Sync sync, int games, long updates, long elapsedNanos,
+               double meanScore, double meanError) {
+            this.threads = threads;
+            this.sync = sync;
+            this.games = games;
+            this.updates = updates;
+            this.elapsedNanos = elapsedNanos;
+            this.meanScore = meanScore;
+            this.meanError = meanError;
+        }
+
+        public double updatesPerSecond() {
+            return updates / (elapsedNanos / 1e9);
+        }
+
+        public double gamesPerSecond() {
+            return games / (elapsedNanos / 1e9);
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%s x%d: %d games in %.1f s, %.0f updates/s (%.1f games/s), mean score %.0f, mean |error| %.1f",
+                sync, threads, games, elapsedNanos / 1e9, updatesPerSecond(), gamesPerSecond(), meanScore, meanError);
+        }
+    }
+
+    // ============== CLI ==============
+
+    public static void main(String[] args) throws Exception {
+        String model = null;
+        String out = null;
+        int games = Integer.MAX_VALUE;
+        long minutes = 0;
+        long checkpointMinutes = 0;
+        String scaling = null;
+        Double alpha = null;
+        Integer threads = null;
+        Sync sync = Sync.HOGWILD;
+        NTupleTrainer.Mode mode = NTupleTrainer.Mode.TD_LAMBDA;
+        double lambda = 0.5;
+        int depth = 1;
+        long seed = 1;
+        for (int i = 0; i < args.length; i++) {
+            String arg = args[i];
+            String value = i + 1 < args.length ? args[i + 1] : null;
+            switch (arg) {
+                case "--model": model = value; i++; break;
+                case "--out": out = value; i++; break;
+                case "--games": games = Integer.parseInt(value); i++; break;
+                case "--minutes": minutes = Long.parseLong(value); i++; break;
+                case "--checkpoint-minutes": checkpointMinutes = Long.parseLong(value); i++; break;
+                case "--scaling": scaling = value; i++; break;
+                case "--threads": threads = Integer.parseInt(value); i++; break;
+                case "--sync": sync = Sync.valueOf(value.toUpperCase()); i++; break;
+                case "--mode": mode = NTupleTrainer.Mode.valueOf(value.toUpperCase()); i++; break;
+                case "--lambda": lambda = Double.parseDouble(value); i++; break;
+                case "--alpha": alpha = Double.parseDouble(value); i++; break;
+                case "--depth": depth = Integer.parseInt(value); i++; break;
+                case "--seed": seed = Long.parseLong(value); i++; break;
+                default:
+                    System.err.println("Usage: ParallelTrainer [--model brain.dat] [--out trained.dat]"
+                        + " [--games N] [--minutes M] [--checkpoint-minutes M] [--scaling 1,2,4,...]"
+                        + " [--threads N] [--sync hogwild|striped|atomic] [--mode td_lambda|monte_carlo]"
+                        + " [--lambda L] [--alpha A] [--depth D] [--seed S]");
+                    System.exit(2);
+            }
+        }
+        if (games == Integer.MAX_VALUE && minutes == 0 && scaling == null) {
+            System.err.println("Give --games, --minutes or --scaling");
+            System.exit(2);
+        }
+
+        // brain.dat to continue from, or a fresh zero network
+        NTupleNetwork brain;
+        if (model != null) {
+            brain = NTupleNetwork.forLoading();
+            try (InputStream is = new FileInputStream(model)) {
+                brain.loadFromBinary(is);
+            }
+        } else {
+            brain = new NTupleNetwork();
+        }
+        if (alpha != null) brain.alpha = alpha;
+        System.err.println(brain.getNetworkInfo());
+
+        ParallelTrainer trainer = new ParallelTrainer(brain);
+        if (threads != null) trainer.threads = threads;
+        trainer.sync = sync;
+        trainer.mode = mode;
+        trainer.lambda = lambda;
+        trainer.searchDepth = depth;
+        trainer.seed = seed;
+
+        if (scaling != null) {
+            String[] parts = scaling.split(",");
+            int[] counts = new int[parts.length];
+            for (int i = 0; i < parts.length; i++) counts[i] = Integer.parseInt(parts[i].trim());
+            long each = minutes > 0 ? minutes * 60_000L : 20_000L;
+            List<Report> reports = trainer.measureScaling(counts, each);
+            double base = reports.get(0).updatesPerSecond() / reports.get(0).threads;
+            for (Report r : reports) {
+                System.out.printf("%s  speedup %.2fx, efficiency %.0f%%%n", r,
+                    r.updatesPerSecond() / reports.get(0).updatesPerSecond(),
+                    100.0 * r.updatesPerSecond() / (base * r.threads));
+            }
+        } else {
+            long deadline = System.currentTimeMillis() + minutes * 60_000L;
+            int left = games;
+            while (left > 0) {
+                long slice = checkpointMinutes * 60_000L; // 0 = no limit
+                if (minutes > 0) {
+                    long remaining = deadline - System.currentTimeMillis();
+                    if (remaining <= 0) break;
+                    slice = slice > 0 ? Math.min(slice, remaining) : remaining;
+                }
+                Report r = trainer.train(left, slice);
+                System.out.println(r);
+                left -= r.games;
+                if (out != null) save(brain, new File(out));
+                if (r.games == 0) break;
+            }
+        }
+        if (out != null && scaling != null) save(brain, new File(out));
+    }
+
+    // Through a temp file, so an interrupted run never leaves half a model
+    private static void save(NTupleNetwork brain, File file) throws Exception {
+        AtomicFiles.write(file, brain::exportToBinary);
+        System.err.println("Saved " + file);
+    }
+}
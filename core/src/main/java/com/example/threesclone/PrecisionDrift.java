@@ -0,0 +1,72 @@
+package com.example.threesclone;
+
+import java.util.Random;
+
+/**
+ * How far predictions of a reduced-precision network drift from the f64 original,
+ * measured on a fixed set of probe boards.
+ */
+public final class PrecisionDrift {
+
+    public static final int DEFAULT_PROBES = 4096;
+    private static final long PROBE_SEED = 0x7EE5C10EL;
+
+    public final WeightPrecision precision;
+    public final int samples;
+    public final double maxAbsError;
+    public final double meanAbsError;
+    public final double rmsError;
+    public final double maxRelativeError; // relative to |f64 prediction|, boards with |v| >= 1 only
+
+    private PrecisionDrift(WeightPrecision precision, int samples, double maxAbsError,
+                           double meanAbsError, double rmsError, double maxRelativeError) {
+        this.precision = precision;
+        this.samples = samples;
+        this.maxAbsError = maxAbsError;
+        this.meanAbsError = meanAbsError;
+        this.rmsError = rmsError;
+        this.maxRelativeError = maxRelativeError;
+    }
+
+    public static PrecisionDrift compare(WeightPrecision precision, double[] reference, double[] actual) {
+        double max = 0.0, sumAbs = 0.0, sumSq = 0.0, maxRel = 0.0;
+        for (int i = 0; i < reference.length; i++) {
+            double err = Math.abs(actual[i] - reference[i]);
+            if (err > max) max = err;
+            sumAbs += err;
+            sumSq += err * err;
+            double mag = Math.abs(reference[i]);
+            if (mag >= 1.0 && err / mag > maxRel) maxRel = err / mag;
+        }
+        int n = Math.max(1, reference.length);
+        return new PrecisionDrift(precision, reference.length, max, sumAbs / n, Math.sqrt(sumSq / n), maxRel);
+    }
+
+    /**
+     * Deterministic probe boards: ~30% empty cells, mostly small tiles, a few big ones.
+     */
+    public static long[] probeBoards(int count) {
+        Random rng = new Random(PROBE_SEED);
+        long[] boards = new long[count];
+        for (int b = 0; b < count; b++) {
+            long board = 0L;
+            for (int i = 0; i < 16; i++) {
+                int code = 0;
+                if (rng.nextInt(10) >= 3) {
+                    // 1, 2, 3 most of the time, then geometric towards 6144
+                    code = 1 + rng.nextInt(3);
+                    while (code < 14 && rng.nextInt(3) != 0) code++;
+                }
+                board = BitBoard.set(board, i, code);
+            }
+            boards[b] = board;
+        }
+        return boards;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s drift over %d boards: max %.3g, mean %.3g, rms %.3g, max rel %.3g",
+            precision, samples, maxAbsError, meanAbsError, rmsError, maxRelativeError);
+    }
+}
@@ -0,0 +1,101 @@
+package com.example.threesclone;
+
+import java.util.Arrays;
+
+/**
+ * Shuffled deck: every item of the template, multiplier times, dealt from the end and
+ * refilled + reshuffled when empty. Primitive arrays with an in-place Fisher-Yates shuffle,
+ * so refills and draws never allocate.
+ *
+ * The shuffle draws exactly like Collections.shuffle, so a deck on GameRandom.of(random)
+ * deals the same cards as the old List based deck did with that Random.
+ * copyFrom snapshots / restores a deck (e.g. to fork a game for search or simulation).
+ */
+public class PseudoList {
+    private int[] template = new int[4];
+    private int templateSize;
+    private int[] pool = new int[0];
+    private int poolSize;
+    private final int multiplier;
+    private final GameRandom rng;
+
+    public PseudoList(int multiplier) {
+        this(multiplier, GameRandom.shared());
+    }
+
+    // Shuffles with the given generator (Game passes its own stream)
+    public PseudoList(int multiplier, GameRandom rng) {
+        this.multiplier = multiplier;
+        this.rng = rng;
+    }
+
+    public void add(int item) {
+        if (templateSize == template.length) template = Arrays.copyOf(template, templateSize * 2);
+        template[templateSize++] = item;
+    }
+
+    public void generateList() {
+        int size = templateSize * multiplier;
+        if (pool.length < size) pool = new int[size];
+        poolSize = 0;
+        for (int t = 0; t < templateSize; t++) {
+            for (int i = 0; i < multiplier; i++) {
+                pool[poolSize++] = template[t];
+            }
+        }
+    }
+
+    public void shuffle() {
+        for (int i = poolSize; i > 1; i--) {
+            int j = rng.nextInt(i);
+            int tmp = pool[i - 1];
+            pool[i - 1] = pool[j];
+            pool[j] = tmp;
+        }
+    }
+
+    public int getNext() {
+        if (poolSize == 0) {
+            if (templateSize == 0) return 0; // Error safe
+            generateList();
+            shuffle();
+        }
+        // Remove last
+        return pool[--poolSize];
+    }
+
+    // How many copies of item are still in the pool (before the next refill)
+    public int count(int item) {
+        int n = 0;
+        for (int i = 0; i < poolSize; i++) {
+            if (pool[i] == item) n++;
+        }
+        return n;
+    }
+
+    // Cards left before the next refill
+    public int size() {
+        return poolSize;
+    }
+
+    // Take over template and remaining cards of other (same order); keeps this deck's rng.
+    // No allocation once the arrays are large enough.
+    public void copyFrom(PseudoList other) {
+        if (other.multiplier != multiplier) {
+            throw new IllegalArgumentException("Multiplier mismatch: " + other.multiplier + " vs " + multiplier);
+        }
+        if (template.length < other.templateSize) template = new int[other.template.length];
+        System.arraycopy(other.template, 0, template, 0, other.templateSize);
+        templateSize = other.templateSize;
+        if (pool.length < other.poolSize) pool = new int[other.pool.length];
+        System.arraycopy(other.pool, 0, pool, 0, other.poolSize);
+        poolSize = other.poolSize;
+    }
+
+    // Snapshot drawing from its own rng
+    public PseudoList copy(GameRandom rng) {
+        PseudoList copy = new PseudoList(multiplier, rng);
+        copy.copyFrom(this);
+        return copy;
+    }
+}
@@ -0,0 +1,257 @@
+package com.example.threesclone;
+
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntConsumer;
+
+/**
+ * Headless batch self-play: full games with Game's deck / spawn rules, moves from getBestMove.
+ *
+ * Every worker thread owns one Game (with its own search and cache) and replays it with
+ * initGame(); all workers share the read-only brain. Game i is seeded from (seed, i), so a
+ * run gives the same games whatever the thread count.
+ *
+ * CLI: ./gradlew :core:selfPlay --args="--model brain.dat --games 100000 --depth 1"
+ */
+public final class SelfPlaySimulator {
+
+    private final NTupleNetwork brain;
+
+    // Settings (same meaning as on Game)
+    public int threads = Runtime.getRuntime().availableProcessors();
+    public int searchDepth = 1;
+    public long searchNodeBudget = 0;
+    public boolean symmetryCache = false;
+    public long seed = 1;
+    public int maxMovesPerGame = 100_000; // safety cap
+
+    public SelfPlaySimulator(NTupleNetwork brain) {
+        this.brain = brain;
+    }
+
+    // ============== RUN ==============
+
+    public Report run(int games) throws InterruptedException {
+        return run(games, null);
+    }
+
+    /**
+     * Play the given number of games on all worker threads.
+     * @param progress called with the number of finished games (from worker threads), may be null
+     */
+    public Report run(int games, IntConsumer progress) throws InterruptedException {
+        int[] scores = new int[games];
+        int[] maxCodes = new int[games];
+        int[] moves = new int[games];
+        AtomicInteger nextGame = new AtomicInteger();
+        AtomicInteger finished = new AtomicInteger();
+
+        int workers = Math.max(1, Math.min(threads, games));
+        ExecutorService pool = Executors.newFixedThreadPool(workers);
+        long start = System.nanoTime();
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int w = 0; w < workers; w++) {
+                futures.add(pool.submit(() -> {
+                    Xoshiro256 rng = new Xoshiro256(seed); // this worker's stream, reseeded per game
+                    Game game = new Game(brain, rng);
+                    game.parallelSearch = false; // parallel over games instead
+                    game.searchDepth = searchDepth;
+                    game.searchNodeBudget = searchNodeBudget;
+                    game.symmetryCache = symmetryCache;
+
+                    for (int i = nextGame.getAndIncrement(); i < games; i = nextGame.getAndIncrement()) {
+                        rng.setSeed(gameSeed(seed, i));
+                        game.initGame();
+                        int n = 0;
+                        while (!game.gameOver && n < maxMovesPerGame) {
+                            Direction dir = game.getBestMove();
+                            if (dir == null || !game.move(dir)) break;
+                            n++;
+                        }
+                        scores[i] = game.score;
+                        maxCodes[i] = BitBoard.maxCode(game.getBoardBits());
+                        moves[i] = n;
+
+                        int done = finished.incrementAndGet();
+                        if (progress != null) progress.accept(done);
+                    }
+                }));
+            }
+            for (Future<?> f : futures) {
+                try {
+                    f.get();
+                } catch (ExecutionException e) {
+                    throw new IllegalStateException("Self-play worker failed", e.getCause());
+                }
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+        long elapsed = System.nanoTime() - start;
+        return new Report(scores, maxCodes, moves, elapsed, workers);
+    }
+
+    // SplitMix64 of (seed, game index): independent, reproducible stream per game
+    static long gameSeed(long seed, int game) {
+        return Xoshiro256.splitMix64(seed + (game + 1) * 0x9E3779B97F4A7C15L);
+    }
+
+    // ============== REPORT ==============
+
+    public static final class Report {
+        public final int games;
+        public final int threads;
+        public final long elapsedNanos;
+        public final int[] sortedScores;
+        public final int[] maxTileCounts; // games whose largest tile has code c (see BitBoard)
+        public final long totalMoves;
+        public final double meanScore;
+        public final double stdDevScore;
+
+        Report(int[] scores, int[] maxCodes, int[] moves, long elapsedNanos, int threads) {
+            this.games = scores.length;
+            this.threads = threads;
+            this.elapsedNanos = elapsedNanos;
+            this.sortedScores = scores.clone();
+            Arrays.sort(sortedScores);
+
+            maxTileCounts = new int[BitBoard.MAX_CODE + 1];
+            for (int code : maxCodes) maxTileCounts[code]++;
+
+            long moveSum = 0;
+            double sum = 0.0;
+            for (int i = 0; i < games; i++) {
+                moveSum += moves[i];
+                sum += scores[i];
+            }
+            totalMoves = moveSum;
+            meanScore = games > 0 ? sum / games : 0.0;
+            double sq = 0.0;
+            for (int s : scores) sq += (s - meanScore) * (s - meanScore);
+            stdDevScore = games > 1 ? Math.sqrt(sq / (games - 1)) : 0.0;
+        }
+
+        // Score at quantile q in [0, 1] (nearest rank)
+        public int scorePercentile(double q) {
+            if (games == 0) return 0;
+            int rank = (int) Math.ceil(q * games) - 1;
+            return sortedScores[Math.max(0, Math.min(games - 1, rank))];
+        }
+
+        // Fraction of games that reached a tile of at least this value
+        public double reachRate(int tileValue) {
+            int from = BitBoard.codeOf(tileValue);
+            int count = 0;
+            for (int code = from; code <= BitBoard.MAX_CODE; code++) count += maxTileCounts[code];
+            return games > 0 ? (double) count / games : 0.0;
+        }
+
+        public double gamesPerSecond() {
+            return games / (elapsedNanos / 1e9);
+        }
+
+        public double movesPerSecond() {
+            return totalMoves / (elapsedNanos / 1e9);
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder sb = new StringBuilder();
+            sb.append(String.format("Games: %d on %d threads in %.1f s (%.1f games/s, %.0f moves/s)%n",
+                games, threads, elapsedNanos / 1e9, gamesPerSecond(), movesPerSecond()));
+            sb.append(String.format("Score: mean %.0f, std %.0f, min %d, p10 %d, p25 %d, p50 %d, p75 %d, p90 %d, p99 %d, max %d%n",
+                meanScore, stdDevScore, scorePercentile(0.0), scorePercentile(0.10), scorePercentile(0.25),
+                scorePercentile(0.50), scorePercentile(0.75), scorePercentile(0.90), scorePercentile(0.99),
+                scorePercentile(1.0)));
+            sb.append("Max tile reached:");
+            for (int code = 6; code <= BitBoard.MAX_CODE; code++) {
+                double rate = reachRate(BitBoard.valueOf(code));
+                if (rate == 0.0 && code > 6) break;
+                sb.append(String.format(" %d: %.2f%%", BitBoard.valueOf(code), 100.0 * rate));
+            }
+            return sb.append(String.format("%n")).toString();
+        }
+    }
+
+    // ============== CLI ==============
+
+    public static void main(String[] args) throws Exception {
+        String model = null;
+        int games = 1000;
+        int threads = Runtime.getRuntime().availableProcessors();
+        int depth = 1;
+        long budget = 0;
+        long seed = 1;
+        boolean symmetryCache = false;
+        boolean metrics = false;
+        for (int i = 0; i < args.length; i++) {
+            String arg = args[i];
+            String value = i + 1 < args.length ? args[i + 1] : null;
+            switch (arg) {
+                case "--model": model = value; i++; break;
+                case "--games": games = Integer.parseInt(value); i++; break;
+                case "--threads": threads = Integer.parseInt(value); i++; break;
+                case "--depth": depth = Integer.parseInt(value); i++; break;
+                case "--node-budget": budget = Long.parseLong(value); i++; break;
+                case "--seed": seed = Long.parseLong(value); i++; break;
+                case "--symmetry-cache": symmetryCache = true; break;
+                case "--metrics": metrics = true; break;
+                default:
+                    System.err.println("Usage: SelfPlaySimulator --model <brain.dat|brain.bin> [--games N]"
+                        + " [--threads N] [--depth D] [--node-budget N] [--seed S] [--symmetry-cache] [--metrics]");
+                    System.exit(2);
+            }
+        }
+        if (model == null) {
+            System.err.println("--model is required");
+            System.exit(2);
+        }
+
+        NTupleNetwork brain = loadModel(new File(model));
+        System.err.println(brain.getNetworkInfo());
+
+        SelfPlaySimulator sim = new SelfPlaySimulator(brain);
+        sim.threads = threads;
+        sim.searchDepth = depth;
+        sim.searchNodeBudget = budget;
+        sim.seed = seed;
+        sim.symmetryCache = symmetryCache;
+        int total = games;
+        int step = Math.max(1, total / 20);
+        Report report = sim.run(total, done -> {
+            if (done % step == 0) System.err.printf("%d / %d games%n", done, total);
+        });
+        System.out.print(report);
+        if (metrics) System.out.println(EngineMetrics.snapshot());
+    }
+
+    // brain.dat (MessagePack / legacy) or a flat model (mapped)
+    private static NTupleNetwork loadModel(File file) throws Exception {
+        NTupleNetwork net = NTupleNetwork.forLoading();
+        try (InputStream is = new BufferedInputStream(new FileInputStream(file))) {
+            byte[] magic = new byte[4];
+            is.mark(4);
+            int read = is.read(magic);
+            is.reset();
+            if (read == 4 && (magic[0] & 0xFF | (magic[1] & 0xFF) << 8 | (magic[2] & 0xFF) << 16
+                    | (magic[3] & 0xFF) << 24) == FlatModel.MAGIC) {
+                net.loadFromFlat(file);
+            } else {
+                net.loadFromBinary(is);
+            }
+        }
+        if (net.numTables() == 0) throw new IllegalArgumentException("Empty model: " + file);
+        return net;
+    }
+}
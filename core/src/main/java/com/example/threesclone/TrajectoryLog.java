@@ -0,0 +1,557 @@
+package com.example.threesclone;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.function.Consumer;
+import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Append-only binary log of played games ("games.trj"), one record per move.
+ *
+ * Layout (little-endian):
+ * - Header : "TCTR", version, flags (bit 0: blocks may be deflated)
+ * - Blocks : stored length, raw length, first game id (long), game count, CRC32 of the raw
+ *            bytes, then the payload (deflated when that is smaller). A game never spans blocks.
+ * - Game   : move count (varint), terminal flag (byte), final board (long), final score
+ *            (varint), then per move: board before the move (varlong, XOR the replay of the
+ *            previous record, so normally a single 0 byte), direction ordinal (byte),
+ *            spawned tile (cell << 4 | code, byte), reward (zigzag varint)
+ *
+ * A sidecar index ("games.trj.idx": block offsets and first game ids, CRC32 checked) gives
+ * random access by game id. It is rewritten on close; if it is missing, stale or corrupt the
+ * reader rebuilds it from the block headers, and the writer cuts off a torn last block
+ * before appending.
+ */
+public final class TrajectoryLog {
+
+    public static final int MAGIC = 0x52544354;       // "TCTR" read as a little-endian int
+    public static final int INDEX_MAGIC = 0x49544354; // "TCTI"
+    public static final int VERSION = 1;
+
+    private static final int HEADER_BYTES = 12;
+    private static final int BLOCK_HEADER_BYTES = 24;
+    private static final int INDEX_CRC_AT = 28;
+    private static final int FLAG_COMPRESSED = 1;
+    private static final Direction[] DIRECTIONS = Direction.values();
+
+    private TrajectoryLog() {
+    }
+
+    public static File indexFile(File log) {
+        return new File(log.getPath() + ".idx");
+    }
+
+    // ============== TRAJECTORY (one decoded game) ==============
+
+    public static final class Trajectory {
+        public long id;
+        public int moves;
+        public boolean terminal;
+        public long finalBoard;
+        public int finalScore;
+        public long[] boards = new long[0];   // board before move i
+        public byte[] directions = new byte[0];
+        public byte[] spawns = new byte[0];   // cell << 4 | code
+        public int[] rewards = new int[0];
+
+        public Direction direction(int i) {
+            return DIRECTIONS[directions[i]];
+        }
+
+        public int spawnCell(int i) {
+            return (spawns[i] >> 4) & 0xF;
+        }
+
+        public int spawnCode(int i) {
+            return spawns[i] & 0xF;
+        }
+
+        // Board after move i (with its spawn)
+        public long boardAfter(int i) {
+            return i + 1 < moves ? boards[i + 1] : finalBoard;
+        }
+
+        // As NTupleTrainer / ParallelTrainer consume it
+        public EpisodeBuffer toEpisode() {
+            EpisodeBuffer episode = new EpisodeBuffer(Math.max(1, moves));
+            episode.start(moves > 0 ? boards[0] : finalBoard);
+            for (int i = 0; i < moves; i++) episode.add(rewards[i], boardAfter(i));
+            if (terminal) episode.markTerminal();
+            return episode;
+        }
+
+        private void ensure(int n) {
+            if (boards.length >= n) return;
+            boards = Arrays.copyOf(boards, n);
+            directions = Arrays.copyOf(directions, n);
+            spawns = Arrays.copyOf(spawns, n);
+            rewards = Arrays.copyOf(rewards, n);
+        }
+    }
+
+    // ============== WRITER ==============
+
+    /**
+     * Not thread-safe: one writer per file (use one file per thread in bulk runs).
+     * record() buffers the moves of the current game; endGame() moves it into the block,
+     * and a full block (blockBytes raw) goes to disk.
+     */
+    public static final class Writer implements Closeable {
+        private final File file;
+        private final FileChannel channel;
+        private final boolean compress;
+        private final int blockBytes;
+        private final Deflater deflater;
+        private final CRC32 crc = new CRC32();
+
+        private final Bytes game = new Bytes(4096);   // moves of the open game
+        private final Bytes block = new Bytes(1 << 16);
+        private byte[] packed = new byte[1 << 16];
+        private int gameMoves;
+        private long expected;    // replay of the previous record of the open game
+        private int blockGames;
+        private long nextGame;    // id of the next game to end
+        private long[] index;     // offset, first game per block
+        private int blocks;
+
+        public Writer(File file) throws IOException {
+            this(file, true, 1 << 16);
+        }
+
+        /** Opens for appending; a torn last block (crash) is cut off first. */
+        public Writer(File file, boolean compress, int blockBytes) throws IOException {
+            this.file = file;
+            this.compress = compress;
+            this.blockBytes = blockBytes;
+            this.deflater = compress ? new Deflater(Deflater.BEST_SPEED) : null;
+            this.channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+            if (channel.size() == 0) {
+                ByteBuffer head = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+                head.putInt(MAGIC).putInt(VERSION).putInt(compress ? FLAG_COMPRESSED : 0).flip();
+                writeFully(channel, head, 0);
+                index = new long[32];
+            } else {
+                Scan scan = scan(channel);
+                index = scan.index;
+                blocks = scan.blocks;
+                nextGame = scan.games;
+                channel.truncate(scan.end);
+            }
+            channel.position(channel.size());
+        }
+
+        // Games ended so far, including earlier sessions of an appended file
+        public long gameCount() {
+            return nextGame;
+        }
+
+        public void record(long board, Direction dir, int spawnCell, int spawnCode, int reward) {
+            game.putVarLong(board ^ expected); // 0 (one byte) whenever the replay matches
+            expected = replay(board, dir.ordinal(), spawnCell, spawnCode);
+            game.put(dir.ordinal());
+            game.put(spawnCell << 4 | spawnCode);
+            game.putVarint((reward << 1) ^ (reward >> 31));
+            gameMoves++;
+        }
+
+        public void endGame(long finalBoard, int finalScore, boolean terminal) throws IOException {
+            block.putVarint(gameMoves);
+            block.put(terminal ? 1 : 0);
+            block.putLong(finalBoard);
+            block.putVarint(finalScore);
+            block.put(game.data, 0, game.size);
+            game.size = 0;
+            gameMoves = 0;
+            expected = 0L;
+            blockGames++;
+            nextGame++;
+            if (block.size >= blockBytes) flushBlock();
+        }
+
+        // Games ended so far go to disk (the open game stays buffered)
+        public void flush() throws IOException {
+            flushBlock();
+            channel.force(false);
+        }
+
+        private void flushBlock() throws IOException {
+            if (blockGames == 0) return;
+            byte[] payload = block.data;
+            int stored = block.size;
+            if (compress) {
+                if (packed.length < block.size) packed = new byte[block.size];
+                deflater.reset();
+                deflater.setInput(block.data, 0, block.size);
+                deflater.finish();
+                int n = deflater.deflate(packed, 0, packed.length);
+                if (deflater.finished() && n < block.size) {
+                    payload = packed;
+                    stored = n;
+                }
+            }
+            crc.reset();
+            crc.update(block.data, 0, block.size);
+
+            long offset = channel.position();
+            ByteBuffer head = ByteBuffer.allocate(BLOCK_HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+            head.putInt(stored).putInt(block.size).putLong(nextGame - blockGames)
+                .putInt(blockGames).putInt((int) crc.getValue()).flip();
+            writeFully(channel, head, offset);
+            writeFully(channel, ByteBuffer.wrap(payload, 0, stored), offset + BLOCK_HEADER_BYTES);
+            channel.position(offset + BLOCK_HEADER_BYTES + stored);
+
+            if (2 * blocks + 2 > index.length) index = Arrays.copyOf(index, index.length * 2);
+            index[2 * blocks] = offset;
+            index[2 * blocks + 1] = nextGame - blockGames;
+            blocks++;
+            block.size = 0;
+            blockGames = 0;
+        }
+
+        /** Ended games and the index go to disk; a game without endGame is dropped. */
+        @Override
+        public void close() throws IOException {
+            try {
+                flushBlock();
+                channel.force(false);
+                writeIndex(indexFile(file), index, blocks, nextGame, channel.size());
+            } finally {
+                channel.close();
+                if (deflater != null) deflater.end();
+            }
+        }
+    }
+
+    // ============== READER ==============
+
+    /** Random access by game id. Not thread-safe (one reader per thread). */
+    public static final class Reader implements Closeable {
+        private final FileChannel channel;
+        private final long[] index;
+        private final int blocks;
+        private final long games;
+        private final Inflater inflater = new Inflater();
+        private final CRC32 crc = new CRC32();
+        private byte[] stored = new byte[1 << 16];
+        private byte[] raw = new byte[1 << 16];
+        private int cachedBlock = -1;
+        private int rawSize;
+
+        public Reader(File file) throws IOException {
+            channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+            long[] idx = readIndex(indexFile(file), channel.size());
+            if (idx != null) {
+                index = Arrays.copyOfRange(idx, 2, idx.length);
+                blocks = (int) idx[0];
+                games = idx[1];
+            } else {
+                Scan scan = scan(channel); // index missing or stale
+                index = scan.index;
+                blocks = scan.blocks;
+                games = scan.games;
+            }
+        }
+
+        public long gameCount() {
+            return games;
+        }
+
+        public int blockCount() {
+            return blocks;
+        }
+
+        public Trajectory readGame(long id) throws IOException {
+            return readGame(id, new Trajectory());
+        }
+
+        /** Decode game id into out (its arrays are reused). */
+        public Trajectory readGame(long id, Trajectory out) throws IOException {
+            if (id < 0 || id >= games) throw new IndexOutOfBoundsException("Game " + id + " of " + games);
+            int lo = 0, hi = blocks - 1; // last block whose first game <= id
+            while (lo < hi) {
+                int mid = (lo + hi + 1) >>> 1;
+                if (index[2 * mid + 1] <= id) lo = mid;
+                else hi = mid - 1;
+            }
+            loadBlock(lo);
+            int[] pos = {0};
+            for (long g = index[2 * lo + 1]; g < id; g++) skipGame(pos);
+            return decodeGame(pos, id, out);
+        }
+
+        /** Every game in order; the Trajectory passed to action is reused between calls. */
+        public void forEach(Consumer<Trajectory> action) throws IOException {
+            Trajectory t = new Trajectory();
+            for (int b = 0; b < blocks; b++) {
+                loadBlock(b);
+                int[] pos = {0};
+                long first = index[2 * b + 1];
+                long end = b + 1 < blocks ? index[2 * b + 3] : games;
+                for (long g = first; g < end; g++) action.accept(decodeGame(pos, g, t));
+            }
+        }
+
+        private void loadBlock(int b) throws IOException {
+            if (b == cachedBlock) return;
+            long offset = index[2 * b];
+            ByteBuffer head = ByteBuffer.allocate(BLOCK_HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+            readFully(channel, head, offset);
+            head.flip();
+            int storedSize = head.getInt();
+            rawSize = head.getInt();
+            head.getLong();
+            head.getInt();
+            int checksum = head.getInt();
+
+            if (raw.length < rawSize) raw = new byte[rawSize];
+            if (storedSize == rawSize) {
+                readFully(channel, ByteBuffer.wrap(raw, 0, rawSize), offset + BLOCK_HEADER_BYTES);
+            } else {
+                if (stored.length < storedSize) stored = new byte[storedSize];
+                readFully(channel, ByteBuffer.wrap(stored, 0, storedSize), offset + BLOCK_HEADER_BYTES);
+                inflater.reset();
+                inflater.setInput(stored, 0, storedSize);
+                try {
+                    if (inflater.inflate(raw, 0, rawSize) != rawSize) throw new IOException("Short block " + b);
+                } catch (DataFormatException e) {
+                    throw new IOException("Corrupt block " + b, e);
+                }
+            }
+            crc.reset();
+            crc.update(raw, 0, rawSize);
+            if ((int) crc.getValue() != checksum) throw new IOException("CRC mismatch in block " + b);
+            cachedBlock = b;
+        }
+
+        private void skipGame(int[] pos) {
+            int moves = varint(pos);
+            pos[0] += 1 + 8;
+            varint(pos);
+            for (int i = 0; i < moves; i++) {
+                varLong(pos);
+                pos[0] += 2;
+                varint(pos);
+            }
+        }
+
+        private Trajectory decodeGame(int[] pos, long id, Trajectory t) {
+            int moves = varint(pos);
+            t.id = id;
+            t.moves = moves;
+            t.terminal = raw[pos[0]++] != 0;
+            t.finalBoard = getLong(pos);
+            t.finalScore = varint(pos);
+            t.ensure(moves);
+            long expected = 0L;
+            for (int i = 0; i < moves; i++) {
+                long board = expected ^ varLong(pos);
+                t.boards[i] = board;
+                t.directions[i] = raw[pos[0]++];
+                t.spawns[i] = raw[pos[0]++];
+                expected = replay(board, t.directions[i], (t.spawns[i] >> 4) & 0xF, t.spawns[i] & 0xF);
+                int z = varint(pos);
+                t.rewards[i] = (z >>> 1) ^ -(z & 1);
+            }
+            return t;
+        }
+
+        private int varint(int[] pos) {
+            int p = pos[0];
+            int value = 0;
+            for (int shift = 0; ; shift += 7) {
+                byte b = raw[p++];
+                value |= (b & 0x7F) << shift;
+                if (b >= 0) break;
+            }
+            pos[0] = p;
+            return value;
+        }
+
+        private long varLong(int[] pos) {
+            int p = pos[0];
+            long value = 0;
+            for (int shift = 0; ; shift += 7) {
+                byte b = raw[p++];
+                value |= (long) (b & 0x7F) << shift;
+                if (b >= 0) break;
+            }
+            pos[0] = p;
+            return value;
+        }
+
+        private long getLong(int[] pos) {
+            int p = pos[0];
+            long v = 0;
+            for (int i = 7; i >= 0; i--) v = (v << 8) | (raw[p + i] & 0xFF);
+            pos[0] = p + 8;
+            return v;
+        }
+
+        @Override
+        public void close() throws IOException {
+            channel.close();
+            inflater.end();
+        }
+    }
+
+    // Board after a recorded move: shift in the move's direction, then the spawn
+    static long replay(long board, int direction, int spawnCell, int spawnCode) {
+        int rot = BitBoard.rotationsToLeft(DIRECTIONS[direction]);
+        long shifted = BitBoard.rotate(MoveTable.shiftLeft(BitBoard.rotate(board, rot)), 4 - rot);
+        return BitBoard.set(shifted, spawnCell, spawnCode);
+    }
+
+    // ============== INDEX / SCAN ==============
+
+    private static final class Scan {
+        long[] index = new long[32];
+        int blocks;
+        long games;
+        long end = HEADER_BYTES; // end of the last complete block
+    }
+
+    // Walk the block headers; stops at the first torn or inconsistent block
+    private static Scan scan(FileChannel channel) throws IOException {
+        long size = channel.size();
+        ByteBuffer head = ByteBuffer.allocate(Math.max(HEADER_BYTES, BLOCK_HEADER_BYTES)).order(ByteOrder.LITTLE_ENDIAN);
+        head.limit(HEADER_BYTES);
+        readFully(channel, head, 0);
+        head.flip();
+        if (head.getInt() != MAGIC) throw new IOException("Not a trajectory log");
+        int version = head.getInt();
+        if (version != VERSION) throw new IOException("Unsupported trajectory log version " + version);
+
+        Scan scan = new Scan();
+        long offset = HEADER_BYTES;
+        while (offset + BLOCK_HEADER_BYTES <= size) {
+            head.clear();
+            readFully(channel, head, offset);
+            head.flip();
+            int stored = head.getInt();
+            int raw = head.getInt();
+            long firstGame = head.getLong();
+            int count = head.getInt();
+            long next = offset + BLOCK_HEADER_BYTES + stored;
+            if (stored <= 0 || raw < stored || count <= 0 || firstGame != scan.games || next > size) break;
+
+            if (2 * scan.blocks + 2 > scan.index.length) scan.index = Arrays.copyOf(scan.index, scan.index.length * 2);
+            scan.index[2 * scan.blocks] = offset;
+            scan.index[2 * scan.blocks + 1] = firstGame;
+            scan.blocks++;
+            scan.games += count;
+            scan.end = next;
+            offset = next;
+        }
+        return scan;
+    }
+
+    private static void writeIndex(File file, long[] index, int blocks, long games, long dataSize) throws IOException {
+        ByteBuffer buf = ByteBuffer.allocate(32 + 16 * blocks).order(ByteOrder.LITTLE_ENDIAN);
+        buf.putInt(INDEX_MAGIC).putInt(VERSION).putLong(dataSize).putLong(games).putInt(blocks).putInt(0);
+        for (int b = 0; b < blocks; b++) buf.putLong(index[2 * b]).putLong(index[2 * b + 1]);
+        buf.putInt(INDEX_CRC_AT, indexCrc(buf.array()));
+        buf.flip();
+        AtomicFiles.write(file, out -> writeFully(out.getChannel(), buf, 0));
+    }
+
+    // {blocks, games, offset0, first0, offset1, ...}, or null if missing, stale or corrupt
+    private static long[] readIndex(File file, long dataSize) throws IOException {
+        if (!file.isFile()) return null;
+        try (FileChannel ch = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            if (ch.size() < 32) return null;
+            ByteBuffer buf = ByteBuffer.allocate((int) ch.size()).order(ByteOrder.LITTLE_ENDIAN);
+            readFully(ch, buf, 0);
+            buf.flip();
+            if (buf.getInt(INDEX_CRC_AT) != indexCrc(buf.array())) return null;
+            if (buf.getInt() != INDEX_MAGIC || buf.getInt() != VERSION || buf.getLong() != dataSize) return null;
+            long games = buf.getLong();
+            int blocks = buf.getInt();
+            buf.getInt();
+            if (buf.remaining() != 16 * blocks) return null;
+            long[] out = new long[2 + 2 * blocks];
+            out[0] = blocks;
+            out[1] = games;
+            for (int i = 2; i < out.length; i++) out[i] = buf.getLong();
+            return out;
+        }
+    }
+
+    // CRC32 of the whole index except the checksum field itself
+    private static int indexCrc(byte[] index) {
+        CRC32 crc = new CRC32();
+        crc.update(index, 0, INDEX_CRC_AT);
+        crc.update(index, INDEX_CRC_AT + 4, index.length - INDEX_CRC_AT - 4);
+        return (int) crc.getValue();
+    }
+
+    private static void writeFully(FileChannel ch, ByteBuffer buf, long position) throws IOException {
+        while (buf.hasRemaining()) position += ch.write(buf, position);
+    }
+
+    private static void readFully(FileChannel ch, ByteBuffer buf, long position) throws IOException {
+        while (buf.hasRemaining()) {
+            int n = ch.read(buf, position);
+            if (n < 0) throw new EOFException("Trajectory log truncated at " + position);
+            position += n;
+        }
+    }
+
+    // Growable little-endian byte buffer
+    private static final class Bytes {
+        byte[] data;
+        int size;
+
+        Bytes(int capacity) {
+            data = new byte[capacity];
+        }
+
+        private void ensure(int extra) {
+            if (size + extra > data.length) data = Arrays.copyOf(data, Math.max(data.length * 2, size + extra));
+        }
+
+        void put(int b) {
+            ensure(1);
+            data[size++] = (byte) b;
+        }
+
+        void put(byte[] src, int from, int length) {
+            ensure(length);
+            System.arraycopy(src, from, data, size, length);
+            size += length;
+        }
+
+        void putLong(long v) {
+            ensure(8);
+            for (int i = 0; i < 8; i++) data[size++] = (byte) (v >>> (8 * i));
+        }
+
+        void putVarLong(long v) {
+            ensure(10);
+            while ((v & ~0x7FL) != 0) {
+                data[size++] = (byte) ((v & 0x7F) | 0x80);
+                v >>>= 7;
+            }
+            data[size++] = (byte) v;
+        }
+
+        void putVarint(int v) {
+            ensure(5);
+            while ((v & ~0x7F) != 0) {
+                data[size++] = (byte) ((v & 0x7F) | 0x80);
+                v >>>= 7;
+            }
+            data[size++] = (byte) v;
+        }
+    }
+}
@@ -0,0 +1,137 @@
+package com.example.threesclone;
+
+/**
+ * Fixed-size transposition table for Expectimax afterstates.
+ *
+ * Key   : packed afterstate board + aux int (move, moved rows, hint, bag, ... - whatever
+ *         else the value depends on; the caller packs it)
+ * Value : expected value of the afterstate searched with a given remaining depth
+ *
+ * Storage is flat primitive arrays (no boxing, no per-entry objects).
+ * Two-tier buckets: slot 0 keeps the deepest result (depth-preferred),
+ * slot 1 always takes the newest one (always-replace).
+ * A probe hits when key and aux match and the stored depth is >= the requested depth.
+ *
+ * Not thread-safe: use one table per search thread.
+ */
+public final class TranspositionTable {
+
+    public static final int DEFAULT_LOG2_BUCKETS = 16; // 65,536 buckets = 131,072 entries (~2.7 MB)
+
+    private final long[] keys;
+    private final int[] aux;
+    private final byte[] depths;   // remaining depth + 1, 0 = empty slot
+    private final double[] values;
+    private final int bucketMask;
+
+    // Stats
+    private long hits;
+    private long misses;
+    private long stores;
+
+    public TranspositionTable() {
+        this(DEFAULT_LOG2_BUCKETS);
+    }
+
+    public TranspositionTable(int log2Buckets) {
+        if (log2Buckets < 1 || log2Buckets > 26) {
+            throw new IllegalArgumentException("log2Buckets out of range: " + log2Buckets);
+        }
+        int entries = 2 << log2Buckets;
+        keys = new long[entries];
+        aux = new int[entries];
+        depths = new byte[entries];
+        values = new double[entries];
+        bucketMask = (1 << log2Buckets) - 1;
+    }
+
+    // ============== PROBE / STORE ==============
+
+    /**
+     * @return the cached value, or Double.NaN on a miss
+     */
+    public double probe(long key, int auxKey, int depth) {
+        int slot = bucket(key, auxKey) << 1;
+        for (int i = slot; i < slot + 2; i++) {
+            if (keys[i] == key && aux[i] == auxKey && depths[i] > depth) {
+                hits++;
+                return values[i];
+            }
+        }
+        misses++;
+        return Double.NaN;
+    }
+
+    public void store(long key, int auxKey, int depth, double value) {
+        int slot = bucket(key, auxKey) << 1;
+        byte stored = (byte) (depth + 1);
+        stores++;
+
+        // Same position already in tier 1: keep the deeper result
+        if (keys[slot] == key && aux[slot] == auxKey && depths[slot] != 0) {
+            if (stored >= depths[slot]) write(slot, key, auxKey, stored, value);
+            return;
+        }
+        // Tier 1: depth-preferred, the old entry is demoted to tier 2
+        if (depths[slot] <= stored) {
+            if (depths[slot] != 0) copy(slot, slot + 1);
+            write(slot, key, auxKey, stored, value);
+            return;
+        }
+        // Tier 2: always-replace
+        write(slot + 1, key, auxKey, stored, value);
+    }
+
+    public void clear() {
+        java.util.Arrays.fill(depths, (byte) 0);
+        resetStats();
+    }
+
+    // ============== STATS ==============
+
+    public long getHits() {
+        return hits;
+    }
+
+    public long getMisses() {
+        return misses;
+    }
+
+    public long getStores() {
+        return stores;
+    }
+
+    public double getHitRate() {
+        long probes = hits + misses;
+        return probes > 0 ? (double) hits / probes : 0.0;
+    }
+
+    public void resetStats() {
+        hits = 0;
+        misses = 0;
+        stores = 0;
+    }
+
+    public int capacity() {
+        return keys.length;
+    }
+
+    // ============== INTERNALS ==============
+
+    private int bucket(long key, int auxKey) {
+        long h = (key ^ (auxKey * 0x9E3779B97F4A7C15L)) * 0xBF58476D1CE4E5B9L;
+        h ^= h >>> 31;
+        return (int) h & bucketMask;
+    }
+
+    private void write(int i, long key, int auxKey, byte depth, double value) {
+        keys[i] = key;
+        aux[i] = auxKey;
+        depths[i] = depth;
+        values[i] = value;
+    }
+
+    private void copy(int from, int to) {
+        write(to, keys[from], aux[from], depths[from], values[from]);
+    }
+}
@@ -0,0 +1,18 @@
+package com.example.threesclone;
+
+/**
+ * Storage precision of the NTupleNetwork weight tables.
+ *
+ * - F64 : double, exact (as trained by Rust)             ~73 MB for 12 x 759,375 weights
+ * - F32 : float, ~7 significant digits                   ~36 MB
+ * - I16 : short with one scale per table (w = q * scale) ~18 MB
+ */
+public enum WeightPrecision {
+    F64(8), F32(4), I16(2);
+
+    public final int bytesPerWeight;
+
+    WeightPrecision(int bytesPerWeight) {
+        this.bytesPerWeight = bytesPerWeight;
+    }
+}
@@ -0,0 +1,77 @@
+package com.example.threesclone;
+
+/**
+ * xoshiro256** generator (Blackman / Vigna): 256 bits of state in four longs, no locks,
+ * no allocation per draw. Seeds are expanded with SplitMix64 as the authors recommend.
+ *
+ * The whole state can be copied (copyFrom), so a forked game or deck replays the same
+ * draws as the original; split() seeds an independent stream for another worker.
+ * Not thread-safe: one instance per thread.
+ */
+public final class Xoshiro256 implements GameRandom {
+
+    private long s0, s1, s2, s3;
+
+    public Xoshiro256(long seed) {
+        setSeed(seed);
+    }
+
+    public Xoshiro256(Xoshiro256 other) {
+        copyFrom(other);
+    }
+
+    public void setSeed(long seed) {
+        long z = seed;
+        s0 = splitMix64(z += 0x9E3779B97F4A7C15L);
+        s1 = splitMix64(z += 0x9E3779B97F4A7C15L);
+        s2 = splitMix64(z += 0x9E3779B97F4A7C15L);
+        s3 = splitMix64(z + 0x9E3779B97F4A7C15L);
+    }
+
+    public void copyFrom(Xoshiro256 other) {
+        s0 = other.s0;
+        s1 = other.s1;
+        s2 = other.s2;
+        s3 = other.s3;
+    }
+
+    @Override
+    public long nextLong() {
+        long result = Long.rotateLeft(s1 * 5, 7) * 9;
+        long t = s1 << 17;
+        s2 ^= s0;
+        s3 ^= s1;
+        s1 ^= s2;
+        s0 ^= s3;
+        s2 ^= t;
+        s3 = Long.rotateLeft(s3, 45);
+        return result;
+    }
+
+    @Override
+    public Xoshiro256 split() {
+        return new Xoshiro256(nextLong());
+    }
+
+    // Lemire's multiply-shift with rejection: unbiased, usually no division
+    @Override
+    public int nextInt(int bound) {
+        if (bound <= 0) throw new IllegalArgumentException("bound must be positive: " + bound);
+        long m = (nextLong() >>> 32) * bound;
+        int low = (int) m;
+        if (Integer.compareUnsigned(low, bound) < 0) {
+            int threshold = Integer.remainderUnsigned(-bound, bound);
+            while (Integer.compareUnsigned(low, threshold) < 0) {
+                m = (nextLong() >>> 32) * bound;
+                low = (int) m;
+            }
+        }
+        return (int) (m >>> 32);
+    }
+
+    static long splitMix64(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}
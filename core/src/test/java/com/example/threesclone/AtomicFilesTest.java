@@ -0,0 +1,47 @@
+package com.example.threesclone;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class AtomicFilesTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void createsAndReplaces() throws IOException {
+        File file = new File(folder.getRoot(), "model.bin");
+        AtomicFiles.write(file, out -> out.write(new byte[] {1, 2, 3}));
+        assertArrayEquals(new byte[] {1, 2, 3}, Files.readAllBytes(file.toPath()));
+
+        AtomicFiles.write(file, out -> out.getChannel().write(ByteBuffer.wrap(new byte[] {9}), 4));
+        assertArrayEquals(new byte[] {0, 0, 0, 0, 9}, Files.readAllBytes(file.toPath()));
+        assertFalse(new File(file.getPath() + ".tmp").exists());
+    }
+
+    @Test
+    public void failedWriteKeepsTheOldFile() throws IOException {
+        File file = new File(folder.getRoot(), "model.bin");
+        AtomicFiles.write(file, out -> out.write(new byte[] {1, 2, 3}));
+        try {
+            AtomicFiles.write(file, out -> {
+                out.write(new byte[] {7, 7});
+                throw new IOException("disk full");
+            });
+            fail();
+        } catch (IOException expected) {
+            // the write fails as a whole
+        }
+        assertArrayEquals(new byte[] {1, 2, 3}, Files.readAllBytes(file.toPath()));
+        assertFalse(new File(file.getPath() + ".tmp").exists());
+    }
+}
@@ -0,0 +1,71 @@
+package com.example.threesclone;
+
+/**
+ * The original Tile[][] rules (Game before the BitBoard port), kept verbatim as the
+ * reference the packed code is checked against.
+ */
+final class BaselineRules {
+
+    private BaselineRules() {
+    }
+
+    // Shift row r of board one step left in place; returns the score gain, NaN if nothing moved
+    static double processSingleRowOnBoard(Tile[][] board, int r) {
+        for (int c = 0; c < 3; c++) {
+            int target = board[r][c].value;
+            int source = board[r][c + 1].value;
+            if (source == 0) continue;
+
+            int newVal = -1;
+            if (target == 0) {
+                newVal = source;
+            } else if (target + source == 3) {
+                newVal = 3;
+            } else if (target >= 3 && target == source) {
+                newVal = target * 2;
+            }
+
+            if (newVal != -1) {
+                double gain = getTileScore(newVal) - (getTileScore(target) + getTileScore(source));
+                board[r][c] = new Tile(newVal);
+                for (int k = c + 1; k < 3; k++) {
+                    board[r][k] = board[r][k + 1];
+                }
+                board[r][3] = new Tile(0);
+                return gain;
+            }
+        }
+        return Double.NaN;
+    }
+
+    static double getTileScore(int val) {
+        if (val < 3) return 0.0;
+        int rank = (int) (Math.log(val / 3.0) / Math.log(2)) + 1;
+        return Math.pow(3, rank);
+    }
+
+    // Clockwise, (r, c) -> (c, 3 - r)
+    static Tile[][] rotateBoardCopy(Tile[][] src, int times) {
+        Tile[][] result = src;
+        for (int k = 0; k < times % 4; k++) {
+            Tile[][] newBoard = new Tile[4][4];
+            for (int r = 0; r < 4; r++) {
+                for (int c = 0; c < 4; c++) {
+                    newBoard[c][3 - r] = result[r][c];
+                }
+            }
+            result = newBoard;
+        }
+        return result;
+    }
+
+    static Tile[][] rowBoard(int... values) {
+        Tile[][] board = new Tile[4][4];
+        for (int r = 0; r < 4; r++) {
+            for (int c = 0; c < 4; c++) {
+                board[r][c] = new Tile(r == 0 ? values[c] : 0);
+            }
+        }
+        return board;
+    }
+}
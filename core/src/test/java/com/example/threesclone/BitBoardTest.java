@@ -0,0 +1,150 @@
+package com.example.threesclone;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.util.Random;
+import org.junit.Test;
+
+public class BitBoardTest {
+
+    private static final int BOARDS = 20_000;
+
+    // Codes up to maxCode, about a quarter of the cells empty
+    static long randomBoard(Random random, int maxCode) {
+        long board = 0L;
+        for (int i = 0; i < 16; i++) {
+            if (random.nextInt(4) != 0) board = BitBoard.set(board, i, random.nextInt(maxCode + 1));
+        }
+        return board;
+    }
+
+    private static int[] values(Tile[][] tiles) {
+        int[] v = new int[16];
+        for (int r = 0; r < 4; r++) {
+            for (int c = 0; c < 4; c++) v[r * 4 + c] = tiles[r][c].value;
+        }
+        return v;
+    }
+
+    private static int scoreOf(Tile[][] tiles) {
+        int total = 0;
+        for (int v : values(tiles)) total += (int) BaselineRules.getTileScore(v);
+        return total;
+    }
+
+    // ============== SHIFT ==============
+
+    // Codes <= 14: 6144 + 6144 = 12288 is the largest merge both rules agree on
+    @Test
+    public void shiftRowLeftMatchesBaselineRule() {
+        Random random = new Random(1);
+        for (int n = 0; n < BOARDS; n++) {
+            long board = randomBoard(random, 14);
+            Tile[][] tiles = BitBoard.toTiles(board);
+            for (int r = 0; r < 4; r++) {
+                int row = BitBoard.getRow(board, r);
+                int shifted = BitBoard.shiftRowLeft(row);
+                double gain = BaselineRules.processSingleRowOnBoard(tiles, r);
+
+                String msg = "row " + Integer.toHexString(row);
+                assertEquals(msg, !Double.isNaN(gain), shifted != row);
+                if (shifted != row) {
+                    assertEquals(msg, gain, BitBoard.rowScore(shifted) - BitBoard.rowScore(row), 0.0);
+                }
+            }
+            assertEquals(BitBoard.shiftLeft(board), BitBoard.fromTiles(tiles));
+            assertEquals(scoreOf(tiles), BitBoard.score(BitBoard.shiftLeft(board)));
+        }
+    }
+
+    @Test
+    public void shiftRowLeftSpotChecks() {
+        assertEquals(row(3, 0, 0, 0), BitBoard.shiftRowLeft(row(1, 2, 0, 0)));
+        assertEquals(row(2, 1, 0, 0), BitBoard.shiftRowLeft(row(0, 2, 1, 0)));
+        assertEquals(row(1, 1, 0, 0), BitBoard.shiftRowLeft(row(1, 1, 0, 0)));
+        assertEquals(row(4, 3, 0, 0), BitBoard.shiftRowLeft(row(3, 3, 3, 0)));
+        assertEquals(row(15, 0, 0, 0), BitBoard.shiftRowLeft(row(14, 14, 0, 0)));
+        // 12288 cannot be packed any larger
+        assertEquals(row(15, 15, 0, 0), BitBoard.shiftRowLeft(row(15, 15, 0, 0)));
+    }
+
+    private static int row(int c0, int c1, int c2, int c3) {
+        return c0 | (c1 << 4) | (c2 << 8) | (c3 << 12);
+    }
+
+    // ============== SYMMETRIES ==============
+
+    @Test
+    public void rotateMatchesBaselineRotation() {
+        Random random = new Random(2);
+        for (int n = 0; n < BOARDS; n++) {
+            long board = randomBoard(random, 15);
+            for (int times = 0; times < 4; times++) {
+                Tile[][] expected = BaselineRules.rotateBoardCopy(BitBoard.toTiles(board), times);
+                assertEquals(BitBoard.fromTiles(expected), BitBoard.rotate(board, times));
+            }
+            assertEquals(BitBoard.rotate(board, 1), BitBoard.rotateClockwise(board));
+        }
+    }
+
+    @Test
+    public void symmetriesAreInvolutionsOrCycles() {
+        Random random = new Random(3);
+        for (int n = 0; n < BOARDS; n++) {
+            long board = random.nextLong();
+            long x = board;
+            for (int k = 0; k < 4; k++) x = BitBoard.rotate(x, 1);
+            assertEquals(board, x);
+            assertEquals(board, BitBoard.transpose(BitBoard.transpose(board)));
+            assertEquals(board, BitBoard.mirrorRows(BitBoard.mirrorRows(board)));
+            assertEquals(board, BitBoard.mirrorColumns(BitBoard.mirrorColumns(board)));
+            for (int r = 0; r < 4; r++) {
+                for (int c = 0; c < 4; c++) {
+                    assertEquals(BitBoard.get(board, r, c), BitBoard.get(BitBoard.transpose(board), c, r));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void canonicalIsSharedBySymmetricBoards() {
+        Random random = new Random(4);
+        for (int n = 0; n < BOARDS; n++) {
+            long board = random.nextLong();
+            long canon = BitBoard.canonical(board);
+            for (int times = 0; times < 4; times++) {
+                long rotated = BitBoard.rotate(board, times);
+                assertEquals(canon, BitBoard.canonical(rotated));
+                assertEquals(canon, BitBoard.canonical(BitBoard.transpose(rotated)));
+            }
+        }
+    }
+
+    // ============== CONVERSION ==============
+
+    @Test
+    public void tilesRoundTrip() {
+        Random random = new Random(5);
+        for (int n = 0; n < BOARDS; n++) {
+            long board = random.nextLong();
+            Tile[][] tiles = BitBoard.toTiles(board);
+            assertEquals(board, BitBoard.fromTiles(tiles));
+            int[] v = values(tiles);
+            for (int i = 0; i < 16; i++) {
+                assertEquals(BitBoard.valueAt(board, i), v[i]);
+            }
+            assertArrayEquals(v, values(BitBoard.toTiles(BitBoard.fromTiles(tiles))));
+        }
+    }
+
+    @Test
+    public void codesMatchTileValues() {
+        for (int code = 0; code <= BitBoard.MAX_CODE; code++) {
+            int value = BitBoard.valueOf(code);
+            assertEquals(code, BitBoard.codeOf(value));
+            assertEquals(new Tile(value).getRank(), BitBoard.rankOf(code));
+            assertEquals(BaselineRules.getTileScore(value), BitBoard.tileScore(code), 0.0);
+        }
+    }
+}
@@ -0,0 +1,370 @@
+package com.example.threesclone;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import org.junit.BeforeClass;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class DistillationImporterTest {
+
+    private static final int[] CHUNKS = {64, 100, 256, 1000, 4096, 65536, 1 << 20, 4 << 20};
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    // Read only (alpha 0): V(s) stays put, so |G - V| per line does not depend on line order
+    private static NTupleNetwork frozen;
+
+    @BeforeClass
+    public static void createBrain() {
+        frozen = new NTupleNetwork();
+        frozen.alpha = 0.0;
+    }
+
+    // ============== REFERENCE (String based, one line after another) ==============
+
+    private static final class Expected {
+        long lines, malformed;
+        double errorSum;
+    }
+
+    // Same rules as the importer: a line of chunkBytes or more (without '\\n') is dropped
+    private static Expected reference(String text, int chunkBytes, NTupleNetwork brain) {
+        Expected e = new Expected();
+        double step = brain.alpha / brain.tupleCount();
+        String[] lines = text.split("\n", -1);
+        for (int i = 0; i < lines.length; i++) {
+            String line = lines[i];
+            if (i == lines.length - 1 && line.isEmpty()) break; // after the final '\n'
+            if (line.getBytes(StandardCharsets.UTF_8).length >= chunkBytes) {
+                e.malformed++;
+                continue;
+            }
+            if (line.endsWith("\r")) line = line.substring(0, line.length() - 1);
+            if (line.isEmpty() || line.startsWith("#")) continue;
+            Long board = parseBoard(line);
+            double target = board == null ? Double.NaN : parseTarget(line.substring(line.indexOf('|') + 1));
+            if (Double.isNaN(target)) {
+                e.malformed++;
+                continue;
+            }
+            double error = target - brain.getTotalValue(board);
+            brain.update(board, step * error);
+            e.errorSum += Math.abs(error);
+            e.lines++;
+        }
+        return e;
+    }
+
+    private static Long parseBoard(String line) {
+        int bar = line.indexOf('|');
+        if (bar < 0) return null;
+        String[] cells = line.substring(0, bar).split(",", -1);
+        if (cells.length != 16) return null;
+        long board = BitBoard.EMPTY;
+        for (int i = 0; i < 16; i++) {
+            if (!cells[i].matches("[0-9]{1,6}")) return null;
+            int value = Integer.parseInt(cells[i]);
+            int code = value > 12288 ? -1 : BitBoard.codeOf(value);
+            if (code < 0 || BitBoard.valueOf(code) != value) return null;
+            board = BitBoard.set(board, i, code);
+        }
+        return board;
+    }
+
+    private static double parseTarget(String s) {
+        s = s.trim();
+        if (!s.matches("[-+]?([0-9]+\\.?[0-9]*|\\.[0-9]+)([eE][-+]?[0-9]+)?")) return Double.NaN;
+        return Double.parseDouble(s);
+    }
+
+    // ============== LOG GENERATION ==============
+
+    private static final int[] TILES = {0, 0, 0, 1, 2, 3, 6, 12, 24, 48, 96, 192, 384, 768};
+
+    private static String board(Random random) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < 16; i++) {
+            if (i > 0) sb.append(',');
+            sb.append(TILES[random.nextInt(TILES.length)]);
+        }
+        return sb.toString();
+    }
+
+    // Mostly well formed positions, with CRLF, comments, blank and malformed lines mixed in
+    private static String randomLog(Random random, int lines) {
+        StringBuilder sb = new StringBuilder();
+        for (int n = 0; n < lines; n++) {
+            int kind = random.nextInt(40);
+            if (kind == 0) {
+                sb.append("# comment ").append(n);
+            } else if (kind == 1) {
+                // blank
+            } else if (kind == 2) {
+                sb.append(board(random).replaceFirst("[0-9]+", "5")).append("|1.5");  // not a tile
+            } else if (kind == 3) {
+                sb.append(board(random)).append("|x");
+            } else if (kind == 4) {
+                sb.append(board(random).substring(2)).append("|7");                  // 15 cells
+            } else {
+                sb.append(board(random)).append('|').append(target(random));
+            }
+            sb.append(random.nextInt(10) == 0 ? "\r\n" : "\n");
+        }
+        return sb.toString();
+    }
+
+    private static String target(Random random) {
+        switch (random.nextInt(4)) {
+            case 0: return Integer.toString(random.nextInt(200_000));
+            case 1: return String.format(Locale.ROOT, "%.3f", random.nextDouble() * 1e5);
+            case 2: return String.format(Locale.ROOT, "-%.2f", random.nextDouble() * 500);
+            default: return (1 + random.nextInt(9)) + "." + random.nextInt(100) + "e" + random.nextInt(5);
+        }
+    }
+
+    private File write(String text) throws IOException {
+        File file = folder.newFile();
+        Files.write(file.toPath(), text.getBytes(StandardCharsets.UTF_8));
+        return file;
+    }
+
+    private static DistillationImporter.Report importLog(NTupleNetwork brain, File log, int chunkBytes,
+                                                         int threads) throws Exception {
+        DistillationImporter importer = new DistillationImporter(brain);
+        importer.chunkBytes = chunkBytes;
+        importer.threads = threads;
+        return importer.importLog(log);
+    }
+
+    private static void assertReport(String msg, Expected expected, DistillationImporter.Report report) {
+        assertEquals(msg, expected.lines, report.lines);
+        assertEquals(msg, expected.malformed, report.malformed);
+        double sum = report.meanError * report.lines;
+        assertEquals(msg, expected.errorSum, sum, Math.abs(expected.errorSum) * 1e-12);
+    }
+
+    // ============== CHUNKS x THREADS ==============
+
+    @Test
+    public void everyLineOnceForAllChunksAndThreads() throws Exception {
+        String text = randomLog(new Random(1), 10_000);
+        File log = write(text);
+        for (int chunk : CHUNKS) {
+            Expected expected = reference(text, chunk, frozen);
+            assertTrue(expected.lines > 8_000);
+            for (int threads = 1; threads <= 8; threads++) {
+                assertReport("chunk " + chunk + ", threads " + threads, expected,
+                    importLog(frozen, log, chunk, threads));
+            }
+        }
+    }
+
+    // One thread trains in file order, so the weights match the reference bit for bit
+    @Test
+    public void singleThreadWeightsMatchReference() throws Exception {
+        String text = randomLog(new Random(2), 5_000);
+        File log = write(text);
+        NTupleNetwork expectedBrain = new NTupleNetwork();
+        Expected expected = reference(text, 4096, expectedBrain);
+        for (int chunk : CHUNKS) {
+            if (chunk < 4096) continue; // smaller chunks drop the long lines: other weights
+            NTupleNetwork brain = new NTupleNetwork();
+            DistillationImporter.Report report = importLog(brain, log, chunk, 1);
+            assertEquals(expected.lines, report.lines);
+            assertEquals(expected.errorSum, report.meanError * report.lines, Math.abs(expected.errorSum) * 1e-12);
+            assertWeights("chunk " + chunk, expectedBrain, brain);
+        }
+        NTupleNetwork small = new NTupleNetwork();
+        Expected expectedSmall = reference(text, 64, small);
+        NTupleNetwork brain = new NTupleNetwork();
+        assertEquals(expectedSmall.lines, importLog(brain, log, 64, 1).lines);
+        assertWeights("chunk 64", small, brain);
+    }
+
+    private static void assertWeights(String msg, NTupleNetwork expected, NTupleNetwork actual) {
+        List<double[]> a = expected.weights;
+        List<double[]> b = actual.weights;
+        assertEquals(a.size(), b.size());
+        for (int t = 0; t < a.size(); t++) assertArrayEquals(msg + ", table " + t, a.get(t), b.get(t), 0.0);
+    }
+
+    // Several threads race on the tables (HOGWILD), so the update order and the weights vary
+    // from run to run; they stay within a few percent of the file-order weights
+    @Test
+    public void multiThreadWeightsStayCloseToReference() throws Exception {
+        String text = randomLog(new Random(3), 20_000);
+        File log = write(text);
+        NTupleNetwork expectedBrain = new NTupleNetwork();
+        Expected expected = reference(text, 4096, expectedBrain);
+        for (int threads = 2; threads <= 8; threads += 3) {
+            NTupleNetwork brain = new NTupleNetwork();
+            long version = brain.getTrainingVersion();
+            DistillationImporter.Report report = importLog(brain, log, 4096, threads);
+            assertEquals(expected.lines, report.lines);
+            assertEquals(expected.malformed, report.malformed);
+            assertTrue(brain.getTrainingVersion() != version);
+
+            double diff = 0.0, norm = 0.0;
+            for (int t = 0; t < brain.weights.size(); t++) {
+                double[] a = expectedBrain.weights.get(t);
+                double[] b = brain.weights.get(t);
+                for (int i = 0; i < a.length; i++) {
+                    diff += Math.abs(a[i] - b[i]);
+                    norm += Math.abs(a[i]);
+                }
+            }
+            assertTrue("threads " + threads + ": relative L1 " + diff / norm, diff < 0.1 * norm);
+        }
+    }
+
+    // ============== LINE BOUNDARIES ==============
+
+    // Padding moves every range boundary across every byte of the first lines
+    @Test
+    public void linesOwnedByThePreviousRange() throws Exception {
+        String body = randomLog(new Random(4), 40);
+        for (int pad = 0; pad < 64; pad++) {
+            StringBuilder sb = new StringBuilder("#");
+            for (int i = 0; i < pad; i++) sb.append('x');
+            String text = sb.append('\n').append(body).toString();
+            File log = write(text);
+            for (int chunk : new int[] {64, 97}) {
+                Expected expected = reference(text, chunk, frozen);
+                for (int threads = 1; threads <= 8; threads++) {
+                    assertReport("pad " + pad + ", chunk " + chunk + ", threads " + threads,
+                        expected, importLog(frozen, log, chunk, threads));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void linesLongerThanAChunk() throws Exception {
+        Random random = new Random(5);
+        StringBuilder sb = new StringBuilder();
+        for (int n = 0; n < 200; n++) {
+            if (n % 7 == 3) {
+                sb.append("# ");
+                int len = 60 + random.nextInt(600);
+                for (int i = 0; i < len; i++) sb.append('y');
+                sb.append('\n');
+            }
+            sb.append(board(random)).append('|').append(target(random)).append('\n');
+        }
+        String text = sb.toString();
+        File log = write(text);
+        for (int chunk : new int[] {64, 128, 333, 700}) {
+            Expected expected = reference(text, chunk, frozen);
+            assertTrue(chunk > 600 || expected.malformed > 0);
+            for (int threads = 1; threads <= 8; threads++) {
+                assertReport("chunk " + chunk + ", threads " + threads, expected,
+                    importLog(frozen, log, chunk, threads));
+            }
+        }
+    }
+
+    @Test
+    public void missingFinalNewlineAndCrlf() throws Exception {
+        String line = "0,1,2,3,6,12,24,48,96,192,384,768,0,0,0,0|1234.5";
+        for (String text : new String[] {
+                line,
+                line + "\n" + line,
+                line + "\r\n" + line + "\r\n",
+                line + "\r\n" + line + "\r",
+                "\n\r\n" + line + "\r\n\r\n" + line,
+                "#" + "\n" + line + "\n#tail"}) {
+            File log = write(text);
+            for (int chunk : new int[] {64, 100, 4096}) {
+                Expected expected = reference(text, chunk, frozen);
+                assertTrue(expected.lines >= 1);
+                for (int threads = 1; threads <= 8; threads++) {
+                    assertReport(text.replace("\r", "\\r").replace("\n", "\\n") + ", threads " + threads,
+                        expected, importLog(frozen, log, chunk, threads));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void emptyLog() throws Exception {
+        DistillationImporter.Report report = importLog(frozen, write(""), 64, 4);
+        assertEquals(0, report.lines);
+        assertEquals(0, report.malformed);
+    }
+
+    // ============== parseDouble ==============
+
+    private static double parse(String s) {
+        byte[] b = s.getBytes(StandardCharsets.US_ASCII);
+        return DistillationImporter.parseDouble(b, 0, b.length);
+    }
+
+    @Test
+    public void parseDoubleIsExactUpTo15Digits() {
+        Random random = new Random(6);
+        for (int n = 0; n < 200_000; n++) {
+            StringBuilder sb = new StringBuilder();
+            if (random.nextBoolean()) sb.append('-');
+            int digits = 1 + random.nextInt(15);
+            int dot = random.nextInt(digits + 1);
+            for (int i = 0; i < digits; i++) {
+                if (i == dot && i > 0) sb.append('.');
+                sb.append((char) ('0' + random.nextInt(10)));
+            }
+            if (random.nextInt(3) == 0) {
+                sb.append(random.nextBoolean() ? 'e' : 'E').append(random.nextBoolean() ? "-" : "");
+                sb.append(random.nextInt(8));
+            }
+            String s = sb.toString();
+            assertEquals(s, Double.parseDouble(s), parse(s), 0.0);
+        }
+    }
+
+    @Test
+    public void parseDoubleEdgeCases() {
+        assertEquals(0.0, parse("0"), 0.0);
+        assertEquals(Double.doubleToLongBits(-0.0), Double.doubleToLongBits(parse("-0")));
+        assertEquals(5.0, parse("+5"), 0.0);
+        assertEquals(0.5, parse(".5"), 0.0);
+        assertEquals(5.0, parse("5."), 0.0);
+        assertEquals(1500.0, parse("1.5E3"), 0.0);
+        assertEquals(1500.0, parse("1.5e+3"), 0.0);
+        assertEquals(0.015, parse("1.5e-2"), 0.0);
+        assertEquals(12.25, parse("  12.25  "), 0.0);
+        assertEquals(1e22, parse("1e22"), 0.0);
+        assertEquals(1e-22, parse("1e-22"), 0.0);
+        assertEquals(Double.POSITIVE_INFINITY, parse("1e400"), 0.0);
+        assertEquals(0.0, parse("1e-400"), 0.0);
+        assertEquals(Double.POSITIVE_INFINITY, parse("1e99999999999"), 0.0);
+
+        // More digits than a long holds: within an ulp or two
+        String big = "123456789012345678901234567890";
+        assertEquals(Double.parseDouble(big), parse(big), Math.ulp(Double.parseDouble(big)) * 2);
+        String small = "0.000000000000000000012345678901234567890";
+        assertEquals(Double.parseDouble(small), parse(small), Math.ulp(Double.parseDouble(small)) * 2);
+
+        for (String bad : new String[] {"", " ", "-", "+", ".", "-.", "e5", ".e1", "1e", "1e+", "1e-",
+                "1.2.3", "abc", "1 2", "--1", "+-1", "1x", "0x10", "NaN", "Infinity", "1,5", "1e5.5"}) {
+            assertTrue("'" + bad + "'", Double.isNaN(parse(bad)));
+        }
+    }
+
+    @Test
+    public void parseDoubleReadsASubrange() {
+        byte[] b = "xx|-42.5|yy".getBytes(StandardCharsets.US_ASCII);
+        assertEquals(-42.5, DistillationImporter.parseDouble(b, 3, 8), 0.0);
+        assertTrue(Double.isNaN(DistillationImporter.parseDouble(b, 3, 3)));
+    }
+}
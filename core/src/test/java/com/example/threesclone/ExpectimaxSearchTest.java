@@ -0,0 +1,48 @@
+package com.example.threesclone;
+
+import static org.junit.Assert.assertArrayEquals;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Random;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class ExpectimaxSearchTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    // A search created before its model is loaded (forLoading: the 96 snake tuples) must
+    // pick up a larger layout loaded later, not index past its leaf buffers
+    @Test
+    public void leafBuffersFollowTheLoadedLayout() throws IOException {
+        NTupleNetwork trained = new NTupleNetwork();
+        for (int row = 0; row < 4; row++) {
+            trained.tuples.add(new NTupleNetwork.TupleConfig(new int[] {4 * row, 4 * row + 1, 4 * row + 2, 4 * row + 3}, row));
+        }
+        trained.rebuildLookup();
+        Random random = new Random(10);
+        for (int n = 0; n < 20_000; n++) trained.update(random.nextLong(), random.nextGaussian());
+        trained.setPrecision(WeightPrecision.I16);
+        File file = folder.newFile();
+        FlatModel.write(trained, file);
+
+        NTupleNetwork loaded = NTupleNetwork.forLoading();
+        ExpectimaxSearch early = new ExpectimaxSearch(loaded);
+        FlatModel.map(loaded, file);
+        ExpectimaxSearch reference = new ExpectimaxSearch(trained);
+        early.setDepth(2);
+        reference.setDepth(2);
+
+        double[] expected = new double[4];
+        double[] actual = new double[4];
+        for (int n = 0; n < 50; n++) {
+            long board = BitBoardTest.randomBoard(random, 8);
+            reference.evaluateMoves(board, 1, DeckState.NEW_DECKS, expected);
+            early.evaluateMoves(board, 1, DeckState.NEW_DECKS, actual);
+            assertArrayEquals(expected, actual, 0.0);
+        }
+    }
+}
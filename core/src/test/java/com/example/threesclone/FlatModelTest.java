@@ -0,0 +1,72 @@
+package com.example.threesclone;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.Random;
+import org.junit.BeforeClass;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class FlatModelTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    // I16 keeps the files small (~18 MB)
+    private static NTupleNetwork brain;
+
+    @BeforeClass
+    public static void createBrain() {
+        brain = new NTupleNetwork();
+        Random random = new Random(8);
+        for (int n = 0; n < 20_000; n++) brain.update(random.nextLong(), random.nextGaussian());
+        brain.setPrecision(WeightPrecision.I16);
+    }
+
+    @Test
+    public void mappedModelPredictsLikeHeapModel() throws IOException {
+        File file = folder.newFile();
+        FlatModel.write(brain, file);
+        NTupleNetwork mapped = NTupleNetwork.forLoading();
+        FlatModel.map(mapped, file);
+        assertTrue(mapped.isMapped());
+        Random random = new Random(9);
+        for (int n = 0; n < 10_000; n++) {
+            long board = random.nextLong();
+            assertEquals(brain.predict(board), mapped.predict(board), 0.0);
+        }
+    }
+
+    // Directory entry of table t: offset (long), size (int), pad, scale
+    private static long sizeFieldOf(NTupleNetwork net, int t) {
+        long pos = 104;
+        for (NTupleNetwork.TupleConfig tuple : net.tuples) pos += 8 + 4 * tuple.indices.length;
+        return pos + 24L * t + 8;
+    }
+
+    @Test
+    public void tableSmallerThanItsTuplesIsCorrupt() throws IOException {
+        File file = folder.newFile();
+        FlatModel.write(brain, file);
+        int last = brain.numTables() - 1;
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            raf.seek(sizeFieldOf(brain, last));
+            int size = Integer.reverseBytes(raf.readInt());
+            assertEquals(NTupleNetwork.indexSpace(5), size);
+            raf.seek(sizeFieldOf(brain, last));
+            raf.writeInt(Integer.reverseBytes(size - 1));
+        }
+        try {
+            FlatModel.map(NTupleNetwork.forLoading(), file);
+            fail();
+        } catch (IOException e) {
+            assertEquals("Corrupt table " + last, e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,243 @@
+package com.example.threesclone;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.nio.file.Files;
+import java.io.OutputStream;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import org.junit.BeforeClass;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class GameTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    // Zero weights: search and training run, only the evaluations are flat
+    private static NTupleNetwork brain;
+
+    @BeforeClass
+    public static void createBrain() {
+        brain = new NTupleNetwork();
+    }
+
+    private static Game newGame(long seed) {
+        Game game = new Game(brain, GameRandom.seeded(seed));
+        game.trainOnGameOver = false;
+        return game;
+    }
+
+    // ============== DECK STATE ==============
+
+    // The hints a search draw node weighs after a move onto board from deck, as
+    // (value << 32 | deck after the draw) -> probability (mirrors ExpectimaxSearch.drawNode)
+    private static Map<Long, Double> drawOutcomes(long board, int deck) {
+        Map<Long, Double> out = new HashMap<>();
+        deck = DeckState.afterMove(deck);
+        if (!DeckState.specialActive(deck)) {
+            numberDraw(deck, 1.0, out);
+            return out;
+        }
+        deck = DeckState.refillSpecial(deck);
+        int bonus = DeckState.bonusLeft(deck);
+        int blanks = DeckState.blanksLeft(deck);
+        double total = bonus + blanks;
+        if (blanks > 0) numberDraw(DeckState.drawBlank(deck), blanks / total, out);
+        if (bonus > 0) bonusDraw(board, DeckState.drawBonus(deck), bonus / total, out);
+        return out;
+    }
+
+    private static void numberDraw(int deck, double p, Map<Long, Double> out) {
+        deck = DeckState.refillNumbers(deck);
+        int total = DeckState.numbersLeft(deck);
+        for (int v = 1; v <= 3; v++) {
+            int n = DeckState.count(deck, v);
+            if (n > 0) add(out, v, DeckState.drawNumber(deck, v), p * n / total);
+        }
+    }
+
+    private static void bonusDraw(long board, int deck, double p, Map<Long, Double> out) {
+        int num = Math.max(BitBoard.rankOf(BitBoard.maxCode(board)) - 3, 0);
+        if (num < 2) {
+            numberDraw(deck, p, out);
+        } else if (num < 4) {
+            add(out, BitBoard.valueOf(num + 2), deck, p);
+        } else {
+            for (int rank = 4; rank <= num; rank++) add(out, BitBoard.valueOf(rank + 2), deck, p / (num - 3));
+        }
+    }
+
+    private static void add(Map<Long, Double> out, int value, int deck, double p) {
+        out.merge((long) value << 32 | (deck & 0xFFFFFFFFL), p, Double::sum);
+    }
+
+    // Seeded games with random moves: every hint the game draws is one the search weighs,
+    // and the deck state moves exactly as DeckState says
+    @Test
+    public void deckStateFollowsTheDraws() {
+        Random moves = new Random(21);
+        Direction[] dirs = Direction.values();
+        int specialDraws = 0, bonusHints = 0;
+        for (int g = 0; g < 300; g++) {
+            Game game = newGame(1000 + g);
+            int deck = game.getDeckState();
+            while (!game.gameOver) {
+                if (!game.move(dirs[moves.nextInt(4)])) continue;
+                int next = game.getDeckState();
+                long board = game.getBoardBits();
+
+                Map<Long, Double> outcomes = drawOutcomes(board, deck);
+                double sum = 0.0;
+                for (double p : outcomes.values()) sum += p;
+                assertEquals(1.0, sum, 1e-12);
+                long drawn = (long) game.futureValue << 32 | (next & 0xFFFFFFFFL);
+                assertTrue("game " + g + ", move " + game.numMove + ": hint " + game.futureValue
+                        + ", deck " + DeckState.toString(next) + " after " + DeckState.toString(deck),
+                    outcomes.getOrDefault(drawn, 0.0) > 0.0);
+
+                // Same thing spelled out: afterMove, then the drawn card leaves its deck
+                int expected = DeckState.afterMove(deck);
+                if (DeckState.specialActive(expected)) {
+                    specialDraws++;
+                    expected = DeckState.refillSpecial(expected);
+                    expected = DeckState.bonusLeft(next) < DeckState.bonusLeft(expected)
+                        ? DeckState.drawBonus(expected) : DeckState.drawBlank(expected);
+                }
+                if (game.futureValue <= 3) {
+                    expected = DeckState.drawNumber(DeckState.refillNumbers(expected), game.futureValue);
+                } else {
+                    bonusHints++;
+                }
+                assertEquals(DeckState.toString(expected) + " vs " + DeckState.toString(next), expected, next);
+                assertEquals(Math.min(game.numMove, DeckState.BONUS_AFTER_MOVES + 1), DeckState.moves(next));
+                deck = next;
+            }
+        }
+        assertTrue(specialDraws > 1000);
+        assertTrue("bonus hints drawn: " + bonusHints, bonusHints > 0);
+    }
+
+    // ============== Q-VALUE CACHE ==============
+
+    private static long qMisses() {
+        return EngineMetrics.snapshot().get(EngineMetrics.Counter.Q_CACHE_MISSES);
+    }
+
+    @Test
+    public void qCacheKeyCoversSearchSettings() {
+        Game game = newGame(5);
+        game.searchDepth = 2;
+        game.getQValues();
+        long misses = qMisses();
+        game.getQValues();
+        assertEquals("same position and settings", misses, qMisses());
+
+        game.searchNodeBudget = 1_000;
+        game.getQValues();
+        assertEquals("node budget", ++misses, qMisses());
+        game.searchTimeBudgetMillis = 1_000;
+        game.getQValues();
+        assertEquals("time budget", ++misses, qMisses());
+        game.parallelSearch = !game.parallelSearch;
+        game.getQValues();
+        assertEquals("parallel search", ++misses, qMisses());
+        game.getQValues();
+        assertEquals(misses, qMisses());
+    }
+
+    // ============== TIMED SEARCH ==============
+
+    @Test(timeout = 10_000)
+    public void noTimeBudgetSearchesDepthOne() {
+        Game game = newGame(25);
+        game.maxSearchDepth = 8;
+        assertNotNull(game.getBestMove(0));
+        assertEquals(1, game.getLastSearchDepth());
+        assertNotNull(game.getBestMove(-5));
+        assertEquals(1, game.getLastSearchDepth());
+    }
+
+    @Test(timeout = 10_000)
+    public void timeBudgetDeepensWithinLimit() {
+        Game game = newGame(25);
+        game.maxSearchDepth = 3;
+        assertNotNull(game.getBestMove(60_000));
+        assertEquals(3, game.getLastSearchDepth());
+
+        game.maxSearchDepth = 8;
+        long start = System.nanoTime();
+        assertNotNull(game.getBestMove(50));
+        assertTrue(game.getLastSearchDepth() >= 1);
+        assertTrue((System.nanoTime() - start) / 1_000_000L < 2_000);
+    }
+
+    // ============== TRAINING ==============
+
+    // A brain loaded through a ModelSource with a cache dir is mapped; setBrainPrecision
+    // copies it to heap (same predictions) so a trainer can be attached
+    @Test
+    public void trainerAttachesToLoadedBrain() throws Exception {
+        NTupleNetwork saved = new NTupleNetwork();
+        Random random = new Random(15);
+        for (int n = 0; n < 20_000; n++) saved.update(random.nextLong(), random.nextGaussian());
+        File dir = folder.newFolder();
+        try (OutputStream os = new FileOutputStream(new File(dir, FileModelSource.MODEL_FILE))) {
+            saved.exportToBinary(os);
+        }
+
+        Game game = new Game(new FileModelSource(dir), GameRandom.seeded(15));
+        game.trainOnGameOver = false;
+        assertTrue(game.brain.isMapped());
+        assertFalse(game.brain.isTrainable());
+        long probe = BitBoardTest.randomBoard(random, 8);
+        double mappedValue = game.brain.predict(probe);
+
+        game.setBrainPrecision(WeightPrecision.F64);
+        assertFalse(game.brain.isMapped());
+        assertTrue(game.brain.isTrainable());
+        assertEquals(mappedValue, game.brain.predict(probe), 0.0);
+
+        NTupleTrainer trainer = new NTupleTrainer(game.brain);
+        game.setTrainer(trainer);
+        Direction[] dirs = Direction.values();
+        while (!game.gameOver) game.move(dirs[random.nextInt(4)]);
+        long version = game.brain.getTrainingVersion();
+        game.trainOnEpisode().get();
+        assertTrue(game.brain.getTrainingVersion() > version);
+        trainer.shutdown();
+    }
+
+    // saveBrain replaces brain.dat in one step: a reload sees the saved weights, a failed
+    // save leaves the previous file, and no temp file is left behind
+    @Test
+    public void saveBrainReplacesModelAtomically() throws Exception {
+        File dir = folder.newFolder();
+        File model = new File(dir, FileModelSource.MODEL_FILE);
+        Game game = new Game(new FileModelSource(dir), GameRandom.seeded(17));
+        Random random = new Random(17);
+        for (int n = 0; n < 2_000; n++) game.brain.update(random.nextLong(), random.nextGaussian());
+        game.saveBrain();
+        assertTrue(model.exists());
+        assertFalse(new File(dir, FileModelSource.MODEL_FILE + ".tmp").exists());
+
+        long probe = BitBoardTest.randomBoard(random, 8);
+        Game reloaded = new Game(new FileModelSource(dir), GameRandom.seeded(17));
+        assertEquals(game.brain.predict(probe), reloaded.brain.predict(probe), 0.0);
+
+        byte[] before = Files.readAllBytes(model.toPath());
+        File blocker = new File(dir, FileModelSource.MODEL_FILE + ".tmp");
+        assertTrue(blocker.mkdir()); // the temp file cannot be created
+        game.brain.update(probe, 1.0);
+        game.saveBrain();
+        assertTrue(java.util.Arrays.equals(before, Files.readAllBytes(model.toPath())));
+    }
+}
@@ -0,0 +1,74 @@
+package com.example.threesclone;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.Random;
+import org.junit.Test;
+
+public class MoveTableTest {
+
+    private static double baselineRowScore(int row) {
+        double total = 0;
+        for (int c = 0; c < 4; c++) {
+            total += BaselineRules.getTileScore(BitBoard.valueOf((row >>> (c << 2)) & 0xF));
+        }
+        return total;
+    }
+
+    @Test
+    public void everyRowMatchesShiftRowLeft() {
+        for (int row = 0; row < 1 << 16; row++) {
+            long entry = MoveTable.entry(row);
+            int shifted = BitBoard.shiftRowLeft(row);
+            String msg = "row " + Integer.toHexString(row);
+
+            assertEquals(msg, shifted, MoveTable.shiftedRow(entry));
+            assertEquals(msg, shifted != row, MoveTable.moved(entry));
+            assertEquals(msg, baselineRowScore(shifted) - baselineRowScore(row), MoveTable.gain(entry), 0.0);
+
+            // Same row on every lane: whole-board helpers see it once per row
+            for (int r = 0; r < 4; r++) {
+                long board = BitBoard.setRow(0L, r, row);
+                assertEquals(msg, BitBoard.setRow(0L, r, shifted), MoveTable.shiftLeft(board));
+                assertEquals(msg, shifted != row ? 1 << r : 0, MoveTable.movedRows(board));
+                assertEquals(msg, shifted != row, MoveTable.canMoveLeft(board));
+                assertEquals(msg, MoveTable.gain(entry), MoveTable.gainLeft(board));
+            }
+        }
+    }
+
+    // Rows up to 6144, where a merge gain is exactly the baseline processSingleRow reward
+    @Test
+    public void gainMatchesBaselineMergeReward() {
+        for (int row = 0; row < 1 << 16; row++) {
+            if (BitBoard.maxCode(row) > 14) continue;
+            Tile[][] tiles = BitBoard.toTiles(row);
+            double gain = BaselineRules.processSingleRowOnBoard(tiles, 0);
+            long entry = MoveTable.entry(row);
+            assertEquals(!Double.isNaN(gain), MoveTable.moved(entry));
+            if (MoveTable.moved(entry)) assertEquals(gain, MoveTable.gain(entry), 0.0);
+        }
+    }
+
+    @Test
+    public void wholeBoardMatchesPerRowShift() {
+        Random random = new Random(6);
+        for (int n = 0; n < 100_000; n++) {
+            long board = random.nextLong();
+            long expected = 0L;
+            int moved = 0;
+            int gain = 0;
+            for (int r = 0; r < 4; r++) {
+                int row = BitBoard.getRow(board, r);
+                int shifted = BitBoard.shiftRowLeft(row);
+                expected = BitBoard.setRow(expected, r, shifted);
+                if (shifted != row) moved |= 1 << r;
+                gain += BitBoard.rowScore(shifted) - BitBoard.rowScore(row);
+            }
+            assertEquals(expected, MoveTable.shiftLeft(board));
+            assertEquals(moved, MoveTable.movedRows(board));
+            assertEquals(moved != 0, MoveTable.canMoveLeft(board));
+            assertEquals(gain, MoveTable.gainLeft(board));
+        }
+    }
+}
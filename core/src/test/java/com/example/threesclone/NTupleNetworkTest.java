@@ -0,0 +1,210 @@
+package com.example.threesclone;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.function.Consumer;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.msgpack.core.MessagePack;
+import org.msgpack.core.MessagePacker;
+
+public class NTupleNetworkTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    // ============== TRAINABILITY ==============
+
+    @Test
+    public void trainersRejectReadOnlyWeights() {
+        NTupleNetwork brain = new NTupleNetwork();
+        brain.setPrecision(WeightPrecision.I16);
+        try {
+            new DistillationImporter(brain);
+            fail();
+        } catch (IllegalArgumentException e) {
+            assertTrue(e.getMessage(), e.getMessage().contains("I16"));
+        }
+        try {
+            new ParallelTrainer(brain);
+            fail();
+        } catch (IllegalArgumentException expected) {
+            // same guard
+        }
+        brain.setPrecision(WeightPrecision.F32);
+        new ParallelTrainer(brain);
+    }
+
+    // ============== LOADING ==============
+
+    // Legacy layout: table count, then per table its size and the f64 weights (all LE)
+    private static byte[] legacy(int tables, int size) {
+        ByteBuffer buf = ByteBuffer.allocate(4 + tables * (4 + 8 * size)).order(ByteOrder.LITTLE_ENDIAN);
+        buf.putInt(tables);
+        for (int t = 0; t < tables; t++) {
+            buf.putInt(size);
+            for (int i = 0; i < size; i++) buf.putDouble(t * 1000 + i + 0.5);
+        }
+        return buf.array();
+    }
+
+    // Low count bytes 0x80-0x9F / 0xDC-0xDF look like a MessagePack map or array header
+    @Test
+    public void legacyCountsThatLookLikeMessagePack() throws Exception {
+        int[] counts = {1, 12, 0x80, 0x8C, 0x9F, 0xDC, 0xDD, 0xDE, 0xDF, 0x180, 0x3DF, 1000};
+        for (int count : counts) {
+            NTupleNetwork net = NTupleNetwork.forLoading();
+            net.loadFromBinary(new ByteArrayInputStream(legacy(count, 3)));
+            assertEquals("count " + count, count, net.weights.size());
+            for (int t = 0; t < count; t++) {
+                assertArrayEquals(new double[] {t * 1000 + 0.5, t * 1000 + 1.5, t * 1000 + 2.5},
+                    net.weights.get(t), 0.0);
+            }
+        }
+    }
+
+    @Test
+    public void badLegacyHeadersAreRejected() {
+        for (byte[] bytes : new byte[][] {legacy(1, 3), {0x0C, 0, 0}}) {
+            byte[] broken = bytes.clone();
+            broken[broken.length > 4 ? 4 : 0] = (byte) 0xFF; // first table size < 0 / short file
+            try {
+                NTupleNetwork.forLoading().loadFromBinary(new ByteArrayInputStream(broken));
+                fail();
+            } catch (Exception expected) {
+                // not a model
+            }
+        }
+    }
+
+    private static void packTuple(MessagePacker p) throws IOException {
+        p.packArrayHeader(1);
+        p.packMapHeader(2);
+        p.packString("indices").packArrayHeader(5);
+        for (int i = 0; i < 5; i++) p.packInt(i);
+        p.packString("weight_index").packInt(0);
+    }
+
+    private static void packWeights(MessagePacker p) throws IOException {
+        p.packArrayHeader(1).packArrayHeader(4);
+        for (int i = 0; i < 4; i++) p.packDouble(i * 0.25);
+    }
+
+    @Test
+    public void messagePackMapAndArrayStillLoad() throws Exception {
+        ByteArrayOutputStream map = new ByteArrayOutputStream();
+        try (MessagePacker p = MessagePack.newDefaultPacker(map)) {
+            p.packMapHeader(4);
+            p.packString("tuples");
+            packTuple(p);
+            p.packString("weights");
+            packWeights(p);
+            p.packString("alpha").packDouble(0.01);
+            p.packString("gamma").packDouble(0.9);
+        }
+        ByteArrayOutputStream array = new ByteArrayOutputStream();
+        try (MessagePacker p = MessagePack.newDefaultPacker(array)) {
+            // Older export: tuples, weights, alpha, gamma one after another
+            packTuple(p);
+            packWeights(p);
+            p.packDouble(0.01).packDouble(0.9);
+        }
+        for (ByteArrayOutputStream model : new ByteArrayOutputStream[] {map, array}) {
+            NTupleNetwork net = NTupleNetwork.forLoading();
+            net.loadFromBinary(new ByteArrayInputStream(model.toByteArray()));
+            assertEquals(1, net.tuples.size());
+            assertArrayEquals(new double[] {0.0, 0.25, 0.5, 0.75}, net.weights.get(0), 0.0);
+            assertEquals(0.01, net.alpha, 0.0);
+            assertEquals(0.9, net.gamma, 0.0);
+        }
+    }
+
+    // ============== INCREMENTAL PREDICT ==============
+
+    // Non-zero weights in every table, same for every call
+    private static NTupleNetwork trainedBrain() {
+        NTupleNetwork brain = new NTupleNetwork();
+        Random random = new Random(3);
+        for (int n = 0; n < 20_000; n++) brain.update(random.nextLong(), random.nextGaussian());
+        return brain;
+    }
+
+    // check on the trained brain at every precision, on heap tables and mapped from a flat model
+    private void atEveryPrecision(Consumer<NTupleNetwork> check) throws IOException {
+        for (WeightPrecision precision : WeightPrecision.values()) {
+            NTupleNetwork heap = trainedBrain();
+            heap.setPrecision(precision);
+            check.accept(heap);
+
+            File file = folder.newFile();
+            FlatModel.write(heap, file);
+            heap = null;
+            NTupleNetwork mapped = NTupleNetwork.forLoading();
+            FlatModel.map(mapped, file);
+            check.accept(mapped);
+        }
+    }
+
+    private static void assertSameBits(String message, double expected, double actual) {
+        assertEquals(message, Double.doubleToRawLongBits(expected), Double.doubleToRawLongBits(actual));
+    }
+
+    // The search's leaf values rely on predictWithChange == predict bit for bit
+    @Test
+    public void predictWithChangeMatchesPredict() throws IOException {
+        atEveryPrecision(brain -> {
+            Random random = new Random(10);
+            int[] indices = new int[brain.tupleCount()];
+            double[] partial = new double[brain.tupleCount()];
+            for (int n = 0; n < 40; n++) {
+                long board = BitBoardTest.randomBoard(random, 15);
+                assertSameBits("base", brain.predict(board), brain.prepareIncremental(board, indices, partial));
+                for (int cell = 0; cell < 16; cell++) {
+                    for (int code = 0; code < 16; code++) {
+                        assertSameBits(brain.getPrecision() + " cell " + cell + " code " + code,
+                            brain.predict(BitBoard.set(board, cell, code)),
+                            brain.predictWithChange(board, indices, partial, cell, code));
+                    }
+                }
+            }
+        });
+    }
+
+    // predictBatch gathers by tuple across a block of boards but must sum like predict
+    @Test
+    public void predictBatchMatchesPredict() throws IOException {
+        atEveryPrecision(brain -> {
+            Random random = new Random(14);
+            long[] boards = new long[1_000];
+            for (int i = 0; i < boards.length; i++) boards[i] = BitBoardTest.randomBoard(random, 15);
+            double[] out = new double[boards.length + 7];
+            brain.predictBatch(boards, out);
+            for (int i = 0; i < boards.length; i++) {
+                assertSameBits(brain.getPrecision() + " board " + i, brain.predict(boards[i]), out[i]);
+            }
+            // Ranges that start mid-array and cross the 256-board block boundary
+            int[][] ranges = {{0, 1}, {3, 255}, {1, 256}, {250, 257}, {9, 600}, {400, 600}};
+            for (int[] range : ranges) {
+                Arrays.fill(out, Double.NaN);
+                brain.predictBatch(boards, range[0], range[1], out, 7);
+                for (int i = 0; i < range[1]; i++) {
+                    assertSameBits(brain.getPrecision() + " range " + range[0] + "+" + i,
+                        brain.predict(boards[range[0] + i]), out[7 + i]);
+                }
+                assertTrue(Double.isNaN(out[6]));
+            }
+        });
+    }
+}
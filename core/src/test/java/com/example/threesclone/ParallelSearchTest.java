@@ -0,0 +1,66 @@
+package com.example.threesclone;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.Random;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+public class ParallelSearchTest {
+
+    private static final int[] FUTURES = {1, 2, 3, 6, 12, 24};
+
+    private static NTupleNetwork brain;
+
+    @BeforeClass
+    public static void createBrain() {
+        brain = new NTupleNetwork();
+        Random random = new Random(5);
+        for (int n = 0; n < 20_000; n++) brain.update(random.nextLong(), random.nextGaussian());
+    }
+
+    private static int randomDeck(Random random) {
+        return DeckState.of(random.nextInt(5), random.nextInt(5), random.nextInt(5),
+            random.nextInt(2), random.nextInt(21), random.nextInt(30));
+    }
+
+    // Without budgets the split root averages children in the sequential order: same bits
+    private static void assertSameQ(int depth, boolean symmetryCache, long seed) {
+        ExpectimaxSearch sequential = new ExpectimaxSearch(brain);
+        sequential.setDepth(depth);
+        if (symmetryCache) sequential.setPredictCache(new CanonicalCache(brain));
+        ParallelSearch parallel = new ParallelSearch(brain, 4);
+        parallel.setDepth(depth);
+        parallel.setSymmetryCache(symmetryCache);
+        try {
+            Random random = new Random(seed);
+            double[] expected = new double[4];
+            double[] actual = new double[4];
+            for (int n = 0; n < 30; n++) {
+                long board = BitBoardTest.randomBoard(random, 9);
+                int future = FUTURES[random.nextInt(FUTURES.length)];
+                int deck = randomDeck(random);
+                sequential.evaluateMoves(board, future, deck, expected);
+                parallel.evaluateMoves(board, future, deck, actual);
+                for (int i = 0; i < 4; i++) {
+                    assertEquals("depth " + depth + " board " + n + " move " + i,
+                        Double.doubleToRawLongBits(expected[i]), Double.doubleToRawLongBits(actual[i]));
+                }
+            }
+        } finally {
+            parallel.shutdown();
+        }
+    }
+
+    @Test
+    public void matchesSequentialSearch() {
+        assertSameQ(ParallelSearch.MIN_PARALLEL_DEPTH, false, 1);
+        assertSameQ(3, false, 2);
+    }
+
+    @Test
+    public void matchesSequentialSearchWithSymmetryCache() {
+        assertSameQ(ParallelSearch.MIN_PARALLEL_DEPTH, true, 3);
+        assertSameQ(3, true, 4);
+    }
+}
@@ -0,0 +1,124 @@
+package com.example.threesclone;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.Random;
+import org.junit.Test;
+
+/**
+ * The table driven potentials against the original cell loops (kept below, Math.log ranks
+ * and all), bit for bit on random boards.
+ */
+public class PotentialTest {
+
+    private static final int BOARDS = 400_000;
+
+    @Test
+    public void potentialsMatchCellLoops() {
+        NTupleNetwork net = NTupleNetwork.forLoading();
+        net.wEmpty = 1.5;
+        net.wSnake = 2.0;
+        net.wMerge = 0.75;
+        net.wDisorder = 0.25;
+        Random random = new Random(20);
+        for (int n = 0; n < BOARDS; n++) {
+            // Mix dense random boards with sparse ones (empty cells matter to merge / disorder)
+            long board = (n & 1) == 0 ? random.nextLong() : BitBoardTest.randomBoard(random, 15);
+            String msg = Long.toHexString(board);
+            assertEquals(msg, Double.doubleToLongBits(oldSnake(board)),
+                Double.doubleToLongBits(net.calculateSnake(board)));
+            assertEquals(msg, Double.doubleToLongBits(oldMergePotential(board)),
+                Double.doubleToLongBits(net.calculateMergePotential(board)));
+            assertEquals(msg, Double.doubleToLongBits(oldDisorder(board)),
+                Double.doubleToLongBits(net.calculateDisorder(board)));
+            double composite = net.wEmpty * BitBoard.countEmpty(board)
+                + net.wSnake * (oldSnake(board) / 1073741824.0)
+                + net.wMerge * (oldMergePotential(board) / 10.0)
+                - net.wDisorder * (oldDisorder(board) / 100.0);
+            assertEquals(msg, Double.doubleToLongBits(composite),
+                Double.doubleToLongBits(net.getCompositePotential(board)));
+        }
+    }
+
+    @Test
+    public void tileOverloadsMatchPackedBoard() {
+        NTupleNetwork net = NTupleNetwork.forLoading();
+        Random random = new Random(21);
+        for (int n = 0; n < 10_000; n++) {
+            long board = random.nextLong();
+            Tile[][] tiles = BitBoard.toTiles(board);
+            assertEquals(net.calculateSnake(board), net.calculateSnake(tiles), 0.0);
+            assertEquals(net.calculateMergePotential(board), net.calculateMergePotential(tiles), 0.0);
+            assertEquals(net.calculateDisorder(board), net.calculateDisorder(tiles), 0.0);
+        }
+    }
+
+    // ============== ORIGINAL IMPLEMENTATION ==============
+
+    private static final double[] SNAKE_WEIGHTS = {
+        1073741824.0, 268435456.0, 67108864.0, 16777216.0,
+        65536.0, 262144.0, 1048576.0, 4194304.0,
+        16384.0, 4096.0, 1024.0, 256.0,
+        1.0, 4.0, 16.0, 64.0
+    };
+
+    private static double oldSnake(long board) {
+        double maxScore = 0.0;
+        for (int orientation = 0; orientation < 4; orientation++) {
+            double score = 0.0;
+            for (int r = 0; r < 4; r++) {
+                for (int c = 0; c < 4; c++) {
+                    int rr = (orientation & 2) != 0 ? 3 - r : r;
+                    int cc = (orientation & 1) != 0 ? 3 - c : c;
+                    score += getRank(BitBoard.valueAt(board, rr * 4 + cc)) * SNAKE_WEIGHTS[r * 4 + c];
+                }
+            }
+            if (score > maxScore) maxScore = score;
+        }
+        return maxScore;
+    }
+
+    private static double getRank(int val) {
+        if (val <= 2) return 0.0;
+        return (Math.log(val / 3.0) / Math.log(2)) + 1.0;
+    }
+
+    private static double oldMergePotential(long board) {
+        double merges = 0.0;
+        for (int r = 0; r < 4; r++) {
+            for (int c = 0; c < 4; c++) {
+                int val = BitBoard.valueAt(board, r * 4 + c);
+                if (val == 0) continue;
+                if (c < 3 && canMerge(val, BitBoard.valueAt(board, r * 4 + c + 1))) merges += 1.0;
+                if (r < 3 && canMerge(val, BitBoard.valueAt(board, (r + 1) * 4 + c))) merges += 1.0;
+            }
+        }
+        return merges;
+    }
+
+    private static boolean canMerge(int a, int b) {
+        if (a == 0 || b == 0) return false;
+        if ((a == 1 && b == 2) || (a == 2 && b == 1)) return true;
+        return a > 2 && a == b;
+    }
+
+    private static double oldDisorder(long board) {
+        double penalty = 0.0;
+        for (int r = 0; r < 4; r++) {
+            for (int c = 0; c < 4; c++) {
+                int val = BitBoard.valueAt(board, r * 4 + c);
+                if (val == 0) continue;
+                double rankCurr = getRank(val);
+                if (c < 3) penalty += getDisorderPenalty(rankCurr, BitBoard.valueAt(board, r * 4 + c + 1));
+                if (r < 3) penalty += getDisorderPenalty(rankCurr, BitBoard.valueAt(board, (r + 1) * 4 + c));
+            }
+        }
+        return penalty;
+    }
+
+    private static double getDisorderPenalty(double rankCurr, int neighborVal) {
+        if (neighborVal == 0) return 0.0;
+        double diff = Math.abs(rankCurr - getRank(neighborVal));
+        return diff > 1.0 ? Math.pow(diff, 2.5) : 0.0;
+    }
+}
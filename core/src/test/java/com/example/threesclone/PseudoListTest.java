@@ -0,0 +1,122 @@
+package com.example.threesclone;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import org.junit.Test;
+
+public class PseudoListTest {
+
+    private static PseudoList deck(int multiplier, GameRandom rng, int... template) {
+        PseudoList deck = new PseudoList(multiplier, rng);
+        for (int item : template) deck.add(item);
+        return deck;
+    }
+
+    // The List based deck PseudoList replaced: template * multiplier, Collections.shuffle, take the last
+    private static final class ListDeck {
+        final List<Integer> template = new ArrayList<>();
+        final List<Integer> pool = new ArrayList<>();
+        final int multiplier;
+        final Random random;
+
+        ListDeck(int multiplier, Random random, int... items) {
+            this.multiplier = multiplier;
+            this.random = random;
+            for (int item : items) template.add(item);
+        }
+
+        int getNext() {
+            if (pool.isEmpty()) {
+                for (int item : template) {
+                    for (int i = 0; i < multiplier; i++) pool.add(item);
+                }
+                Collections.shuffle(pool, random);
+            }
+            return pool.remove(pool.size() - 1);
+        }
+    }
+
+    @Test
+    public void dealsLikeCollectionsShuffle() {
+        for (long seed = 0; seed < 200; seed++) {
+            ListDeck expected = new ListDeck(4, new Random(seed), 1, 2, 3);
+            PseudoList numbers = deck(4, GameRandom.of(new Random(seed)), 1, 2, 3);
+            ListDeck special = new ListDeck(1, new Random(~seed), templateOf(21));
+            PseudoList specialDeck = deck(1, GameRandom.of(new Random(~seed)), templateOf(21));
+            for (int n = 0; n < 120; n++) {
+                assertEquals("seed " + seed + ", card " + n, expected.getNext(), numbers.getNext());
+                assertEquals("seed " + seed + ", card " + n, special.getNext(), specialDeck.getNext());
+            }
+        }
+    }
+
+    // One 1 and blanks (0), like Game's special deck
+    private static int[] templateOf(int size) {
+        int[] items = new int[size];
+        items[0] = 1;
+        return items;
+    }
+
+    @Test
+    public void countsTrackTheDeal() {
+        PseudoList deck = deck(4, GameRandom.seeded(1), 1, 2, 3);
+        assertEquals(0, deck.size());
+        int[] drawn = new int[4];
+        for (int n = 0; n < 12; n++) {
+            drawn[deck.getNext()]++;
+            assertEquals(11 - n, deck.size());
+            for (int v = 1; v <= 3; v++) assertEquals(4 - drawn[v], deck.count(v));
+        }
+        // Refills on the next draw
+        deck.getNext();
+        assertEquals(11, deck.size());
+    }
+
+    @Test
+    public void copyDealsTheSameCards() {
+        Xoshiro256 rng = new Xoshiro256(2);
+        PseudoList deck = deck(4, rng, 1, 2, 3);
+        for (int n = 0; n < 5; n++) deck.getNext();
+
+        // Same rng state: same cards through the remaining deal and every refill after it
+        PseudoList copy = deck.copy(new Xoshiro256(rng));
+        assertEquals(deck.size(), copy.size());
+        for (int n = 0; n < 100; n++) assertEquals(deck.getNext(), copy.getNext());
+    }
+
+    @Test
+    public void copyFromRestoresASnapshot() {
+        PseudoList deck = deck(4, GameRandom.seeded(3), 1, 2, 3);
+        for (int n = 0; n < 3; n++) deck.getNext();
+        PseudoList snapshot = deck.copy(GameRandom.seeded(99));
+
+        int[] remaining = new int[deck.size()];
+        for (int n = 0; n < remaining.length; n++) remaining[n] = deck.getNext();
+        deck.getNext(); // refilled, snapshot untouched
+        assertEquals(9, snapshot.size());
+
+        deck.copyFrom(snapshot);
+        assertEquals(9, deck.size());
+        for (int n = 0; n < remaining.length; n++) assertEquals(remaining[n], deck.getNext());
+    }
+
+    @Test
+    public void copyFromGrowsEmptyDeck() {
+        PseudoList source = deck(1, GameRandom.seeded(4), templateOf(21));
+        source.getNext();
+        PseudoList target = new PseudoList(1, GameRandom.seeded(5));
+        target.copyFrom(source);
+        assertEquals(20, target.size());
+        assertEquals(source.count(1), target.count(1));
+        assertEquals(source.count(0), target.count(0));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void copyFromRejectsOtherMultiplier() {
+        new PseudoList(4).copyFrom(new PseudoList(1));
+    }
+}
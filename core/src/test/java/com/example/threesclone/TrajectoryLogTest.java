@@ -0,0 +1,262 @@
+package com.example.threesclone;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class TrajectoryLogTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    // A made up game: moves follow the replay rule, with the odd board that does not
+    private static final class Game {
+        long[] boards;
+        byte[] directions;
+        int[] cells, codes, rewards;
+        long finalBoard;
+        int finalScore;
+        boolean terminal;
+    }
+
+    private static Game randomGame(Random random) {
+        int moves = random.nextInt(8) == 0 ? 0 : 1 + random.nextInt(300);
+        Game g = new Game();
+        g.boards = new long[moves];
+        g.directions = new byte[moves];
+        g.cells = new int[moves];
+        g.codes = new int[moves];
+        g.rewards = new int[moves];
+        long board = BitBoardTest.randomBoard(random, 6);
+        for (int i = 0; i < moves; i++) {
+            if (random.nextInt(50) == 0) board = random.nextLong();
+            g.boards[i] = board;
+            g.directions[i] = (byte) random.nextInt(4);
+            g.cells[i] = random.nextInt(16);
+            g.codes[i] = 1 + random.nextInt(15);
+            g.rewards[i] = random.nextInt(10) == 0 ? -random.nextInt(1000) : random.nextInt(100_000);
+            board = TrajectoryLog.replay(board, g.directions[i], g.cells[i], g.codes[i]);
+        }
+        g.finalBoard = board;
+        g.finalScore = random.nextInt(1_000_000);
+        g.terminal = random.nextBoolean();
+        return g;
+    }
+
+    private static void write(TrajectoryLog.Writer writer, Game g) throws IOException {
+        Direction[] dirs = Direction.values();
+        for (int i = 0; i < g.boards.length; i++) {
+            writer.record(g.boards[i], dirs[g.directions[i]], g.cells[i], g.codes[i], g.rewards[i]);
+        }
+        writer.endGame(g.finalBoard, g.finalScore, g.terminal);
+    }
+
+    private static void assertGame(long id, Game g, TrajectoryLog.Trajectory t) {
+        String msg = "game " + id;
+        assertEquals(msg, id, t.id);
+        assertEquals(msg, g.boards.length, t.moves);
+        assertEquals(msg, g.terminal, t.terminal);
+        assertEquals(msg, g.finalBoard, t.finalBoard);
+        assertEquals(msg, g.finalScore, t.finalScore);
+        for (int i = 0; i < t.moves; i++) {
+            assertEquals(msg, g.boards[i], t.boards[i]);
+            assertEquals(msg, g.directions[i], t.directions[i]);
+            assertEquals(msg, g.cells[i], t.spawnCell(i));
+            assertEquals(msg, g.codes[i], t.spawnCode(i));
+            assertEquals(msg, g.rewards[i], t.rewards[i]);
+        }
+    }
+
+    // Random access by id, then the whole log in order
+    private static void assertLog(File file, List<Game> games) throws IOException {
+        try (TrajectoryLog.Reader reader = new TrajectoryLog.Reader(file)) {
+            assertEquals(games.size(), reader.gameCount());
+            Random random = new Random(games.size());
+            for (int n = 0; n < 200; n++) {
+                long id = random.nextInt(games.size());
+                assertGame(id, games.get((int) id), reader.readGame(id));
+            }
+            long[] next = {0};
+            reader.forEach(t -> assertGame(next[0], games.get((int) next[0]++), t));
+            assertEquals(games.size(), next[0]);
+        }
+    }
+
+    private List<Game> writeGames(File file, boolean compress, int count, long seed) throws IOException {
+        Random random = new Random(seed);
+        List<Game> games = new ArrayList<>();
+        try (TrajectoryLog.Writer writer = new TrajectoryLog.Writer(file, compress, 4096)) {
+            for (int n = 0; n < count; n++) {
+                Game g = randomGame(random);
+                write(writer, g);
+                games.add(g);
+            }
+        }
+        return games;
+    }
+
+    // ============== ROUND TRIP ==============
+
+    @Test
+    public void readsGamesById() throws IOException {
+        for (boolean compress : new boolean[] {true, false}) {
+            File file = folder.newFile();
+            List<Game> games = writeGames(file, compress, 500, 1);
+            assertTrue(TrajectoryLog.indexFile(file).isFile());
+            try (TrajectoryLog.Reader reader = new TrajectoryLog.Reader(file)) {
+                assertTrue(reader.blockCount() > 1);
+            }
+            assertLog(file, games);
+        }
+    }
+
+    @Test
+    public void appendsAfterReopen() throws IOException {
+        File file = folder.newFile();
+        List<Game> games = writeGames(file, true, 100, 2);
+        Random random = new Random(3);
+        try (TrajectoryLog.Writer writer = new TrajectoryLog.Writer(file)) {
+            assertEquals(100, writer.gameCount());
+            for (int n = 0; n < 150; n++) {
+                Game g = randomGame(random);
+                write(writer, g);
+                games.add(g);
+            }
+            // Not ended: dropped on close
+            writer.record(1L, Direction.UP, 0, 1, 3);
+        }
+        assertLog(file, games);
+    }
+
+    @Test
+    public void emptyLog() throws IOException {
+        File file = folder.newFile();
+        writeGames(file, true, 0, 4);
+        try (TrajectoryLog.Reader reader = new TrajectoryLog.Reader(file)) {
+            assertEquals(0, reader.gameCount());
+            assertEquals(0, reader.blockCount());
+        }
+    }
+
+    // ============== INDEX RECOVERY ==============
+
+    @Test
+    public void rebuildsDeletedIndex() throws IOException {
+        File file = folder.newFile();
+        List<Game> games = writeGames(file, true, 300, 5);
+        assertTrue(TrajectoryLog.indexFile(file).delete());
+        assertLog(file, games);
+    }
+
+    @Test
+    public void rebuildsCorruptIndex() throws IOException {
+        File file = folder.newFile();
+        List<Game> games = writeGames(file, true, 300, 6);
+        File index = TrajectoryLog.indexFile(file);
+        byte[] original = Files.readAllBytes(index.toPath());
+        Random random = new Random(7);
+        // Any byte of the index: header, counts, checksum or block entries
+        for (int pos = 0; pos < original.length; pos++) {
+            byte[] corrupt = original.clone();
+            corrupt[pos] ^= (byte) (1 + random.nextInt(255));
+            Files.write(index.toPath(), corrupt);
+            assertAllGames(file, games);
+        }
+        Files.write(index.toPath(), Arrays.copyOf(original, original.length - 8));
+        assertLog(file, games);
+        Files.write(index.toPath(), new byte[0]);
+        assertLog(file, games);
+    }
+
+    @Test
+    public void rebuildsStaleIndex() throws IOException {
+        File file = folder.newFile();
+        List<Game> games = writeGames(file, true, 200, 10);
+        File index = TrajectoryLog.indexFile(file);
+        byte[] firstIndex = Files.readAllBytes(index.toPath());
+        Random random = new Random(11);
+        try (TrajectoryLog.Writer writer = new TrajectoryLog.Writer(file, true, 4096)) {
+            for (int n = 0; n < 50; n++) {
+                Game g = randomGame(random);
+                write(writer, g);
+                games.add(g);
+            }
+        }
+        // The index of the shorter log no longer matches the data size
+        Files.write(index.toPath(), firstIndex);
+        assertLog(file, games);
+    }
+
+    // Cheaper than assertLog (runs once per corrupted byte)
+    private static void assertAllGames(File file, List<Game> games) throws IOException {
+        try (TrajectoryLog.Reader reader = new TrajectoryLog.Reader(file)) {
+            assertEquals(games.size(), reader.gameCount());
+            long[] next = {0};
+            reader.forEach(t -> assertGame(next[0], games.get((int) next[0]++), t));
+            assertEquals(games.size(), next[0]);
+        }
+    }
+
+    // ============== TORN TAIL ==============
+
+    @Test
+    public void recoversFromTornLastBlock() throws IOException {
+        for (boolean compress : new boolean[] {true, false}) {
+            File file = folder.newFile();
+            List<Game> games = writeGames(file, compress, 200, 8);
+            long complete = file.length();
+
+            // One more session whose games all land in one big last block
+            Random random = new Random(9);
+            try (TrajectoryLog.Writer writer = new TrajectoryLog.Writer(file, compress, 1 << 20)) {
+                for (int n = 0; n < 30; n++) write(writer, randomGame(random));
+            }
+            long full = file.length();
+            assertTrue(full > complete + 64);
+
+            // Crash mid-payload: only the first session survives
+            try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+                raf.setLength(complete + (full - complete) / 2);
+            }
+            assertLog(file, games);
+
+            // The writer cuts the torn block off and appends after the last complete one
+            try (TrajectoryLog.Writer writer = new TrajectoryLog.Writer(file, compress, 4096)) {
+                assertEquals(games.size(), writer.gameCount());
+                for (int n = 0; n < 40; n++) {
+                    Game g = randomGame(random);
+                    write(writer, g);
+                    games.add(g);
+                }
+            }
+            assertLog(file, games);
+        }
+    }
+
+    @Test
+    public void recoversFromTornBlockHeader() throws IOException {
+        File file = folder.newFile();
+        List<Game> games = writeGames(file, true, 100, 12);
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            raf.setLength(raf.length() + 10); // part of a block header, nothing after it
+        }
+        assertLog(file, games);
+        try (TrajectoryLog.Writer writer = new TrajectoryLog.Writer(file)) {
+            Game g = randomGame(new Random(13));
+            write(writer, g);
+            games.add(g);
+        }
+        assertLog(file, games);
+    }
+}
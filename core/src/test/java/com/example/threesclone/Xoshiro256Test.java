@@ -0,0 +1,88 @@
+package com.example.threesclone;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class Xoshiro256Test {
+
+    // xoshiro256** seeded through SplitMix64, from the reference C code
+    @Test
+    public void matchesReferenceOutputs() {
+        assertOutputs(0L, 0x99ec5f36cb75f2b4L, 0xbf6e1f784956452aL, 0x1a5f849d4933e6e0L,
+            0x6aa594f1262d2d2cL, 0xbba5ad4a1f842e59L);
+        assertOutputs(1L, 0xb3f2af6d0fc710c5L, 0x853b559647364ceaL, 0x92f89756082a4514L,
+            0x642e1c7bc266a3a7L, 0xb27a48e29a233673L);
+        assertOutputs(42L, 0x15780b2e0c2ec716L, 0x6104d9866d113a7eL, 0xae17533239e499a1L,
+            0xecb8ad4703b360a1L, 0xfde6dc7fe2ec5e64L);
+    }
+
+    private static void assertOutputs(long seed, long... expected) {
+        Xoshiro256 rng = new Xoshiro256(seed);
+        for (int i = 0; i < expected.length; i++) {
+            assertEquals("seed " + seed + ", draw " + i, expected[i], rng.nextLong());
+        }
+        assertEquals(expected[0], GameRandom.seeded(seed).nextLong());
+    }
+
+    @Test
+    public void nextIntStaysInBounds() {
+        Xoshiro256 rng = new Xoshiro256(7);
+        int[] bounds = {1, 2, 3, 5, 6, 7, 16, 21, 1000, (1 << 30) + 1, 2_000_000_001, Integer.MAX_VALUE};
+        for (int bound : bounds) {
+            for (int n = 0; n < 20_000; n++) {
+                int v = rng.nextInt(bound);
+                assertTrue(bound + " -> " + v, v >= 0 && v < bound);
+            }
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void nextIntRejectsZeroBound() {
+        new Xoshiro256(1).nextInt(0);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void nextIntRejectsNegativeBound() {
+        new Xoshiro256(1).nextInt(-3);
+    }
+
+    // Uniform: every face of a die within 2% of 1/6 over 600k draws
+    @Test
+    public void nextIntIsUniform() {
+        Xoshiro256 rng = new Xoshiro256(8);
+        int[] counts = new int[6];
+        int draws = 600_000;
+        for (int n = 0; n < draws; n++) counts[rng.nextInt(6)]++;
+        for (int count : counts) {
+            assertEquals(draws / 6.0, count, draws / 6.0 * 0.02);
+        }
+    }
+
+    @Test
+    public void copyReplaysTheSameStream() {
+        Xoshiro256 rng = new Xoshiro256(9);
+        for (int n = 0; n < 10; n++) rng.nextLong();
+        Xoshiro256 copy = new Xoshiro256(rng);
+        Xoshiro256 restored = new Xoshiro256(0);
+        restored.copyFrom(rng);
+        for (int n = 0; n < 1000; n++) {
+            long v = rng.nextLong();
+            assertEquals(v, copy.nextLong());
+            assertEquals(v, restored.nextLong());
+        }
+    }
+
+    @Test
+    public void splitStreamsDiffer() {
+        Xoshiro256 a = new Xoshiro256(10);
+        Xoshiro256 b = a.split();
+        Xoshiro256 c = a.split();
+        assertNotEquals(b.nextLong(), c.nextLong());
+        // Same seed, same splits
+        Xoshiro256 again = new Xoshiro256(10);
+        assertEquals(new Xoshiro256(10).split().nextLong(), again.split().nextLong());
+    }
+}
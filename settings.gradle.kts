@@ -21,3 +21,5 @@ dependencyResolutionManagement {
 
 rootProject.name = "ThreesClone"
 include(":app")
+include(":core")
+include(":benchmark")